@@ -0,0 +1,21 @@
+//VERTEX SHADER
+#version 330
+
+layout (location = 0) in vec3 position; //Take the position data
+//Ignore texture data
+layout (location = 2) in vec3 normal; //Take the normal data
+layout (location = 3) in mat4 instanceModelMatrix; //The model matrix, one per instance
+layout (location = 7) in mat3 instanceNormalMatrix; //The normal matrix, one per instance
+
+uniform vec3 loc; //Obtain the player location
+uniform mat4 projectedCameraMatrix; //Obtain a transformation array
+uniform float width; //The outline width in pixels
+
+void main()
+{
+	vec4 transformedPosition = instanceModelMatrix * vec4(position, 1);
+	vec3 transformedNormal = normalize(instanceNormalMatrix * normal);
+	float dist = width * sqrt((transformedPosition.x - loc.x) * (transformedPosition.x - loc.x) + (transformedPosition.y - loc.y) * (transformedPosition.y - loc.y) + (transformedPosition.z - loc.z) * (transformedPosition.z - loc.z));
+	vec4 toAdd = vec4(transformedNormal.x * dist, transformedNormal.y * dist, transformedNormal.z * dist, 0);
+	gl_Position = projectedCameraMatrix * (transformedPosition + toAdd); //Output the vertices transformed by the matrix
+}
\ No newline at end of file
@@ -1,583 +1,923 @@
-package net.engine.core;
-
-import static org.lwjgl.opengl.GL11.GL_BACK;
-import static org.lwjgl.opengl.GL11.GL_CW;
-import static org.lwjgl.opengl.GL11.GL_DEPTH_TEST;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
-import static org.lwjgl.opengl.GL11.glClearColor;
-import static org.lwjgl.opengl.GL11.glCullFace;
-import static org.lwjgl.opengl.GL11.glEnable;
-import static org.lwjgl.opengl.GL11.glFrontFace;
-import static org.lwjgl.opengl.GL13.*;
-import static org.lwjgl.opengl.GL20.glUseProgram;
-import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER_SRGB;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-
-import org.lwjgl.opengl.Display;
-
-import net.engine.gui.GUIManager;
-import net.engine.gui.GUIWindow;
-import net.engine.input.Input;
-import net.engine.matrix.MatrixStack;
-import net.engine.model.Model;
-import net.engine.render.Material;
-import net.engine.render.Sampler;
-import net.engine.render.Shader;
-import net.engine.transform.ProjectedOrientation;
-import net.engine.util.Camera;
-
-/**
- * A game engine
- * @author Davis Cook
- *
- */
-public class Engine
-{
-	
-	//Define the names of shader variables
-	public static final String PROJECTED_CAMERA_MATRIX = "projectedCameraMatrix"; //The matrix that does projection and camera movement
-	public static final String MODEL_MATRIX = "modelMatrix"; //The matrix that positions the model in the world
-	public static final String NORMAL_MATRIX = "normalMatrix"; //The matrix that corrects the normal's directions
-	public static final String SAMPLER = "sampler"; //The sampler for textures
-	public static final String COLOR = "color"; //The color for textures
-	
-	public static final int TEXTURE_LOCATION = 1; //The location where textures are bound
-	public static final int TEXTURE_LOCATION_OPENGL = GL_TEXTURE0 + TEXTURE_LOCATION; //The location where textures are bound defined in another way
-	
-	public static final int MATRIX_STACK_SIZE = 15; //The amount of matrices that can be on the matrix stack at max
-	
-	public static final String DEFAULT_TITLE = "Game Engine"; //The default title
-	
-	//Resource locations
-	public static final String DEFAULT_RESOURCE_LOCATION = "./res/"; //The default resources folder
-	public static final String DEFAULT_SHADER_LOCATION = "shaders/"; //The default shader folder
-	public static final String DEFAULT_TEXTURE_LOCATION = "textures/"; //The default texture folder
-	public static final String DEFAULT_MODEL_LOCATION = "models/"; //The default model folder
-	
-	public static final float MOVE_SPEED = 10f; //Camera move speed
-	public static final float TURN_SPEED = 100f; //Camera turn speed
-	
-	public static final int DESIRED_FPS = 640; //The desired FPS
-	
-	private static Engine instance = null; //The single instance of the engine
-	
-	/**
-	 * Gets the instance, null if it hasn't been created
-	 * @return the instance
-	 */
-	public static Engine getInstance()
-	{
-		if (instance == null)
-		{
-			instance = new Engine();
-		}
-		return instance;
-	}
-	
-	private Game game = null; //The game
-
-	//Engine variables
-	private HashMap<String, Shader> shaders; //List of shader
-	private Shader currentShader; //Current in use shader
-	
-	private ArrayList<Model> models; //All the models the engine is responsible for rendering
-	
-	private HashMap<String, Sampler> samplers; //List of sampler
-	
-	private HashMap<String, Material> materials; //List of material
-	private Material currentMaterial; //Current in use material
-	
-	private MatrixStack stack; //The matrix stack
-	
-	private Camera camera; //The camera
-	
-	private ProjectedOrientation worldOrientation; //The world orientation
-	
-	private String resourceLocation; //The base resource folder
-	
-	private String shaderLocation, textureLocation, modelLocation; //The resource locations
-	
-	private Shader guiShader; //A special shader for the gui
-	
-	private GUIManager guiManager; //The GUI manager
-	
-	//Engine control loop variables
-	private boolean isRunning;
-	
-	/**
-	 * Initializes the engine
-	 */
-	private Engine()
-	{
-		//Initialization
-		Window.createWindow(1280, 720); //Create the window & initialize openGL
-	    Input.createInput(); //Initialize the inputs
-	    
-	    isRunning = false;
-		
-		if (Window.getVersion() < 33) //Check for compatibility
-		{
-			System.err.println("At least openGL 3.3 required");
-		}
-		
-		//Set default values
-		setTitle(DEFAULT_TITLE);
-		setResourceLocation(DEFAULT_RESOURCE_LOCATION);
-		setShaderLocation(DEFAULT_SHADER_LOCATION);
-		setTextureLocation(DEFAULT_TEXTURE_LOCATION);
-		setModelLocation(DEFAULT_MODEL_LOCATION);
-		
-		//Shader
-		shaders = new HashMap<String, Shader>();
-		currentShader = null;
-		
-		//Gui Shader
-		guiShader = new Shader(GUIManager.GUI_VERTEX_SHADER, GUIManager.GUI_FRAGMENT_SHADER, null);
-
-		//Model
-		models = new ArrayList<Model>();
-		
-		//Sampler
-		samplers = new HashMap<String, Sampler>();
-		
-		//Material
-		materials = new HashMap<String, Material>();
-		
-		//Matrix Stack
-		stack = new MatrixStack(MATRIX_STACK_SIZE);
-		
-		//TODO: variables initialization
-		
-		//Camera
-		camera = new Camera(MOVE_SPEED, TURN_SPEED);
-		
-		//Projection and Camera orientation
-		worldOrientation = new ProjectedOrientation(70, .005f, 1000);
-		
-		//GUI
-		guiManager = new GUIManager();
-		
-		//Graphics settings
-		glClearColor(1.0f, 1.0f, 1.0f, 0.0f); //Set background color
-		        
-		glFrontFace(GL_CW); //The front face is defined in clockwise
-		glCullFace(GL_BACK); //Cull the back face
-		glEnable(GL_DEPTH_TEST); //Enable it such that pixels can be drawn in depth order
-		        
-		//TODO: Depth clamp for later
-		        
-		glEnable(GL_TEXTURE_2D); //Use textures
-		glEnable(GL_FRAMEBUFFER_SRGB); //Gamma correction for things appearing darker than they are
-	}
-	
-	/**
-	 * Runs the engine with the specified game
-	 * @param theGame the game to run
-	 */
-	public void start(Game theGame)
-	{
-		game = theGame;
-		
-		if (isRunning) //The game should not be running before run() is called
-		{
-			return;
-		}
-		
-		run(); //Run the game
-	}
-	
-	/**
-	 * Stops the game
-	 */
-	public void stop()
-	{
-		if (!isRunning) //The game cannot be stopped when it isn't running
-		{
-			return;
-		}
-		
-		isRunning = false; //Stop running
-	}
-	
-	/**
-	 * Runs the main game loop
-	 */
-	private void run()
-	{
-		isRunning = true; //Set the game to be running
-		
-		//This is for an fps count
-		int frames = 0;
-		long frameCounter = 0;
-		
-		//This determines how long a frame is
-		final double frameTime = 1f / DESIRED_FPS;
-		
-		long lastTime = Time.getTime();
-		double unprocessedTime = 0;
-		
-		while (isRunning)
-		{
-			boolean render = false; //Should the game render a frame
-			
-			long startTime = Time.getTime();
-			long passedTime = startTime - lastTime;
-			lastTime = startTime; //Calculate how much time passed
-			
-			//Add that time to the amount of time we check for frames
-			unprocessedTime += passedTime / (double) Time.SECOND;
-			frameCounter += passedTime;
-			
-			//Enough time has happened for a frame
-			while (unprocessedTime > frameTime)
-			{
-				render = true; //Do render this frame
-				
-				unprocessedTime -= frameTime; //Reset the counter
-				
-				Time.setDelta(frameTime); //Set the delta as to much time has passed
-				
-				if (Window.isCloseRequested()) //If the window has the 'x' clicked
-				{
-					stop(); //Stop
-				}
-				
-				Input.update(); //Update the input
-				
-				game.input(); //Allow the game to take input
-				game.update(); //Allow the game to update its state
-				
-				frames++;
-				
-				//FPS counter stuff
-				if (frameCounter >= Time.SECOND)
-				{
-					System.out.println(frames);
-					frameCounter = 0;
-					frames = 0;
-				}
-			}
-			if (render)
-			{
-				render(); //Renders everything
-			}
-			else //So there wasn't enough time built up for a frame
-			{
-				try
-				{
-					Thread.sleep(1); //Wait to try to build up for a frame
-				}
-				catch (InterruptedException e)
-				{
-					
-				}
-			}
-		}
-		
-		cleanUp(); //The game has stopped and now needs to clean-up resources and such
-	}
-	
-	/**
-	 * Cleans up resources and stuff
-	 */
-	private void cleanUp()
-	{
-		if (isRunning) //You cannot clean up while the game is running
-		{
-			return;
-		}
-		
-		Window.dispose(); //Dispose of the main window
-		Input.dispose(); //Dispose of the input
-	}
-	
-	/**
-	 * Renders all the models the engine has stored
-	 * 
-	 * The models are rendered according to their flags they have set
-	 * 
-	 * Flags:
-	 * render, if not zero the model will be rendered else it will not be
-	 * 
-	 */
-	private void render()
-	{
-		game.render(); //Tell the game to render
-		
-		guiShader.bind(); //Use the gui shader
-		
-		guiManager.render(); //Render the gui
-		
-		Window.render(); //Have the window render what we just rendered
-	}
-	
-	//Setters for engine properties
-	
-	/**
-	 * Sets the title
-	 * @param title the title
-	 */
-	public void setTitle(String title)
-	{
-		Display.setTitle(title);
-	}
-	
-	/**
-	 * Sets the folder where resources are stored
-	 * @param resourceLocation the folder where resources are stored
-	 */
-	public void setResourceLocation(String resourceLocation)
-	{
-		this.resourceLocation = resourceLocation;
-	}
-	
-	//Getters
-
-	/**
-	 * Sets the folder where shaders are found
-	 * @param shaderLocation where shaders are found
-	 */
-	public void setShaderLocation(String shaderLocation)
-	{
-		this.shaderLocation = shaderLocation;
-	}
-
-	/**
-	 * Sets the folder where textures are found
-	 * @param textureLocation the location textures are found
-	 */
-	public void setTextureLocation(String textureLocation)
-	{
-		this.textureLocation = textureLocation;
-	}
-	
-	/**
-	 * Sets the location where models are found
-	 * @param modelLocation where models are found
-	 */
-	public void setModelLocation(String modelLocation)
-	{
-		this.modelLocation = modelLocation;
-	}
-
-	/**
-	 * Gets the current shader
-	 * @return the current shader
-	 */
-	public Shader getCurrentShader()
-	{
-		return currentShader;
-	}
-	
-	/**
-	 * Gets the matrix stack
-	 * @return the matrix stack
-	 */
-	public MatrixStack getMatrixStack()
-	{
-		return stack;
-	}
-	
-	//Shader methods
-	
-	/**
-	 * Adds a shader to the engine
-	 * @param s the shader
-	 * @param name the name to call the shader
-	 */
-	public void addShader(Shader s, String name)
-	{
-		shaders.put(name, s);
-	}
-	
-	/**
-	 * Uses a shader
-	 * @param name the shader to use
-	 */
-	public void useShader(String name)
-	{
-		Shader s = shaders.get(name);
-		if (s != null)
-		{
-			s.bind();
-			currentShader = s;
-		}
-		else
-		{
-			glUseProgram(0); //Stop using shaders
-		}
-	}
-	
-	//Sampler methods
-	
-	/**
-	 * Adds a sampler to the engine
-	 * @param sampler the sampler to add
-	 * @param the name to call the sampler
-	 */
-	public void addSampler(Sampler s, String name)
-	{
-		samplers.put(name, s);
-	}
-	
-	/**
-	 * Uses a sampler
-	 * @param samplerName the sampler
-	 */
-	public void useSampler(String samplerName)
-	{
-		Sampler s = samplers.get(samplerName);
-		s.bind(TEXTURE_LOCATION);
-	}
-	
-	//Material methods
-	
-	/**
-	 * Adds a material to the list
-	 * @param m the material to add
-	 * @param name the name to call it
-	 */
-	public void addMaterial(Material m, String name)
-	{
-		materials.put(name, m);
-	}
-	
-	/**
-	 * Uses the material by binding
-	 * @param name the name the material is called
-	 */
-	public void useMaterial(String name)
-	{
-		Material m = materials.get(name);
-		m.getTexture().bind(TEXTURE_LOCATION_OPENGL);
-		currentMaterial = m;
-	}
-	
-	/**
-	 * Gets the material
-	 * @param name the material's name
-	 * @return the material
-	 */
-	public Material getMaterial(String name)
-	{
-		return materials.get(name);
-	}
-	
-	//Model methods
-	
-	/**
-	 * Adds a model
-	 * @param m the model to add
-	 */
-	public void addModel(Model m)
-	{
-		models.add(m);
-	}
-	
-	//Camera methods
-	
-	/**
-	 * Gets the camera
-	 * @return the camera
-	 */
-	public Camera getCamera()
-	{
-		return camera;
-	}
-	
-	//Resource Location Methods
-	
-	/**
-	 * Gets where resources are stored
-	 * @return where resources are stored
-	 */
-	public String getResourceLocation()
-	{
-		return resourceLocation;
-	}
-	
-	/**
-	 * Gets where shader are stored
-	 * @return where shaders are stored
-	 */
-	public String getShaderLocation()
-	{
-		return resourceLocation + shaderLocation;
-	}
-	
-	/**
-	 * Gets where textures are stored
-	 * @return where textures are stored
-	 */
-	public String getTextureLocation()
-	{
-		return resourceLocation + textureLocation;
-	}
-	
-	/**
-	 * Gets where models are stored
-	 * @return where models are stored
-	 */
-	public String getModelLocation()
-	{
-		return resourceLocation + modelLocation;
-	}
-	
-	//Gui methods
-	
-	/**
-	 * Adds a new gui
-	 * @param window the gui to add
-	 * @param x the x
-	 * @param y the y
-	 */
-	public void addGUI(GUIWindow window, float x, float y)
-	{
-		guiManager.addGUI(window, x, y);
-	}
-	
-	/**
-	 * Sets the shader's model matrix data
-	 */
-	public void setModelData()
-	{
-		if (currentShader.getUniformNames().contains(MODEL_MATRIX)) //If the shader uses textures set the texture location and the color
-		{
-			currentShader.setUniform(MODEL_MATRIX, stack.getTransform());
-		}
-		if (currentShader.getUniformNames().contains(NORMAL_MATRIX))
-		{
-			currentShader.setUniform(NORMAL_MATRIX, stack.getRotation());
-		}
-	}
-	
-	/**
-	 * Renders all the models the engine has stored
-	 * 
-	 * The models are rendered according to their flags they have set
-	 * 
-	 * Flags:
-	 * render, if not zero the model will be rendered else it will not be
-	 * 
-	 */
-	public void renderModels()
-	{
-		currentShader.setUniform(PROJECTED_CAMERA_MATRIX, worldOrientation.getCameraProjectedTransformationMatrix(camera)); //Set up the projection and camera matrix
-		if (currentShader.getUniformNames().contains(SAMPLER)) //If the shader uses textures set the texture location and the color
-		{
-			currentShader.setUniformi(SAMPLER, TEXTURE_LOCATION);
-		}
-		if (currentShader.getUniformNames().contains(COLOR))
-		{
-			currentShader.setUniform(COLOR, currentMaterial.getColor());
-		}
-		
-		for (Model m : models) //Render each model
-		{
-			m.render(stack);
-		}
-	}
-	
-}
+package net.engine.core;
+
+import static org.lwjgl.opengl.GL11.GL_BACK;
+import static org.lwjgl.opengl.GL11.GL_CW;
+import static org.lwjgl.opengl.GL11.GL_DEPTH_TEST;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
+import static org.lwjgl.opengl.GL11.glClearColor;
+import static org.lwjgl.opengl.GL11.glCullFace;
+import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.glFrontFace;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL20.glUseProgram;
+import static org.lwjgl.opengl.GL30.GL_FRAMEBUFFER_SRGB;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.lwjgl.opengl.Display;
+
+import net.engine.gui.GUIManager;
+import net.engine.gui.GUIWindow;
+import net.engine.input.Input;
+import net.engine.math.BoundingBox;
+import net.engine.math.BoundingSphere;
+import net.engine.math.Frustum;
+import net.engine.matrix.Matrix4f;
+import net.engine.matrix.MatrixStack;
+import net.engine.model.Model;
+import net.engine.render.Material;
+import net.engine.render.RenderPass;
+import net.engine.render.RenderQueue;
+import net.engine.render.RenderStats;
+import net.engine.render.Sampler;
+import net.engine.render.Shader;
+import net.engine.render.mesh.GPUMesh;
+import net.engine.transform.ProjectedOrientation;
+import net.engine.util.AssetManifest;
+import net.engine.util.Camera;
+
+/**
+ * A game engine
+ * @author Davis Cook
+ *
+ */
+public class Engine
+{
+	
+	//Define the names of shader variables
+	public static final String PROJECTED_CAMERA_MATRIX = "projectedCameraMatrix"; //The matrix that does projection and camera movement
+	public static final String MODEL_MATRIX = "modelMatrix"; //The matrix that positions the model in the world
+	public static final String NORMAL_MATRIX = "normalMatrix"; //The matrix that corrects the normal's directions
+	public static final String SAMPLER = "sampler"; //The sampler for textures
+	public static final String COLOR = "color"; //The color for textures
+	public static final String INSTANCE_MODEL_MATRIX = "instanceModelMatrix"; //The model matrix of each instance in instanced shaders
+	public static final String INSTANCE_NORMAL_MATRIX = "instanceNormalMatrix"; //The normal matrix of each instance in instanced shaders
+	
+	//Ids of the shader variables above, shaders look these up once so the engine can set them without using their names
+	public static final int PROJECTED_CAMERA_MATRIX_ID = 0;
+	public static final int MODEL_MATRIX_ID = 1;
+	public static final int NORMAL_MATRIX_ID = 2;
+	public static final int SAMPLER_ID = 3;
+	public static final int COLOR_ID = 4;
+	
+	public static final String[] STANDARD_UNIFORMS = {PROJECTED_CAMERA_MATRIX, MODEL_MATRIX, NORMAL_MATRIX, SAMPLER, COLOR}; //The shader variables in the order of their ids
+	
+	public static final int TEXTURE_LOCATION = 1; //The location where textures are bound
+	public static final int TEXTURE_LOCATION_OPENGL = GL_TEXTURE0 + TEXTURE_LOCATION; //The location where textures are bound defined in another way
+	
+	public static final int MATRIX_STACK_SIZE = 15; //The amount of matrices that can be on the matrix stack at max
+	
+	public static final String DEFAULT_TITLE = "Game Engine"; //The default title
+	
+	//Resource locations
+	public static final String DEFAULT_RESOURCE_LOCATION = "./res/"; //The default resources folder
+	public static final String DEFAULT_SHADER_LOCATION = "shaders/"; //The default shader folder
+	public static final String DEFAULT_TEXTURE_LOCATION = "textures/"; //The default texture folder
+	public static final String DEFAULT_MODEL_LOCATION = "models/"; //The default model folder
+	public static final String DEFAULT_CACHE_LOCATION = "cache/"; //The default folder for files made from other resources
+	
+	public static final float MOVE_SPEED = 10f; //Camera move speed
+	public static final float TURN_SPEED = 100f; //Camera turn speed
+	
+	public static final int DESIRED_FPS = 640; //The desired FPS
+	
+	public static final float DEFAULT_LOD_THRESHOLD = 1f; //How many pixels a simpler level of detail can be off by before a more detailed one is used
+	public static final float LOD_HYSTERESIS = 0.25f; //How far under the threshold a simpler level has to be before switching to it, so levels don't flicker at the threshold
+	
+	private static Engine instance = null; //The single instance of the engine
+	
+	/**
+	 * Gets the instance, null if it hasn't been created
+	 * @return the instance
+	 */
+	public static Engine getInstance()
+	{
+		if (instance == null)
+		{
+			instance = new Engine();
+		}
+		return instance;
+	}
+	
+	private Game game = null; //The game
+
+	//Engine variables
+	private HashMap<String, Shader> shaders; //List of shader
+	private Shader currentShader; //Current in use shader
+	
+	private ArrayList<Model> models; //All the models the engine is responsible for rendering
+	
+	private HashMap<String, Sampler> samplers; //List of sampler
+	
+	private HashMap<String, Material> materials; //List of material
+	
+	private MatrixStack stack; //The matrix stack
+	
+	private ArrayList<RenderPass> passes; //The passes every model is drawn in, in order
+	
+	private RenderQueue queue; //The draws collected while going through the models
+	
+	private Matrix4f cameraMatrix; //The projection and camera matrix for this frame
+	private Frustum frustum; //What the camera sees this frame, in world space
+	private boolean frustumCulling; //If models outside the frustum are skipped
+	private boolean visibilityKnown; //If the models being rendered are already known to be seen, so they aren't tested again
+	private BoundingBox cullBox; //Reused to test bounds in world space
+	private BoundingSphere cullSphere;
+	
+	private boolean levelOfDetail; //If meshes far away are drawn with simpler levels of detail
+	private float lodThreshold; //How many pixels of error a level of detail can have
+	private BoundingSphere lodSphere; //Reused to find the size of a mesh in world space
+	
+	private Camera camera; //The camera
+	
+	private ProjectedOrientation worldOrientation; //The world orientation
+	
+	private String resourceLocation; //The base resource folder
+	
+	private String shaderLocation, textureLocation, modelLocation, cacheLocation; //The resource locations
+	
+	private AssetManifest manifest; //What the asset baker made, loaded the first time it is needed
+	
+	private Shader guiShader; //A special shader for the gui
+	
+	private GUIManager guiManager; //The GUI manager
+	
+	//Engine control loop variables
+	private boolean isRunning;
+	
+	/**
+	 * Initializes the engine
+	 */
+	private Engine()
+	{
+		//Initialization
+		Window.createWindow(1280, 720); //Create the window & initialize openGL
+	    Input.createInput(); //Initialize the inputs
+	    
+	    isRunning = false;
+		
+		if (Window.getVersion() < 33) //Check for compatibility
+		{
+			System.err.println("At least openGL 3.3 required");
+		}
+		
+		//Set default values
+		setTitle(DEFAULT_TITLE);
+		setResourceLocation(DEFAULT_RESOURCE_LOCATION);
+		setShaderLocation(DEFAULT_SHADER_LOCATION);
+		setTextureLocation(DEFAULT_TEXTURE_LOCATION);
+		setModelLocation(DEFAULT_MODEL_LOCATION);
+		setCacheLocation(DEFAULT_CACHE_LOCATION);
+		
+		//Shader
+		shaders = new HashMap<String, Shader>();
+		currentShader = null;
+		
+		//Gui Shader
+		guiShader = new Shader(GUIManager.GUI_VERTEX_SHADER, GUIManager.GUI_FRAGMENT_SHADER, null);
+
+		//Model
+		models = new ArrayList<Model>();
+		
+		//Sampler
+		samplers = new HashMap<String, Sampler>();
+		
+		//Material
+		materials = new HashMap<String, Material>();
+		
+		//Matrix Stack
+		stack = new MatrixStack(MATRIX_STACK_SIZE);
+		
+		//Render queue
+		passes = new ArrayList<RenderPass>();
+		queue = new RenderQueue();
+		
+		//Culling
+		cameraMatrix = new Matrix4f().initIdentity();
+		frustum = new Frustum();
+		frustumCulling = true;
+		cullBox = new BoundingBox();
+		cullSphere = new BoundingSphere();
+		
+		//Level of detail
+		levelOfDetail = true;
+		lodThreshold = DEFAULT_LOD_THRESHOLD;
+		lodSphere = new BoundingSphere();
+		
+		//TODO: variables initialization
+		
+		//Camera
+		camera = new Camera(MOVE_SPEED, TURN_SPEED);
+		
+		//Projection and Camera orientation
+		worldOrientation = new ProjectedOrientation(70, .005f, 1000);
+		
+		//GUI
+		guiManager = new GUIManager();
+		
+		//Graphics settings
+		glClearColor(1.0f, 1.0f, 1.0f, 0.0f); //Set background color
+		        
+		glFrontFace(GL_CW); //The front face is defined in clockwise
+		glCullFace(GL_BACK); //Cull the back face
+		glEnable(GL_DEPTH_TEST); //Enable it such that pixels can be drawn in depth order
+		        
+		//TODO: Depth clamp for later
+		        
+		glEnable(GL_TEXTURE_2D); //Use textures
+		glEnable(GL_FRAMEBUFFER_SRGB); //Gamma correction for things appearing darker than they are
+	}
+	
+	/**
+	 * Runs the engine with the specified game
+	 * @param theGame the game to run
+	 */
+	public void start(Game theGame)
+	{
+		game = theGame;
+		
+		if (isRunning) //The game should not be running before run() is called
+		{
+			return;
+		}
+		
+		run(); //Run the game
+	}
+	
+	/**
+	 * Stops the game
+	 */
+	public void stop()
+	{
+		if (!isRunning) //The game cannot be stopped when it isn't running
+		{
+			return;
+		}
+		
+		isRunning = false; //Stop running
+	}
+	
+	/**
+	 * Runs the main game loop
+	 */
+	private void run()
+	{
+		isRunning = true; //Set the game to be running
+		
+		//This is for an fps count
+		int frames = 0;
+		long frameCounter = 0;
+		
+		//This determines how long a frame is
+		final double frameTime = 1f / DESIRED_FPS;
+		
+		long lastTime = Time.getTime();
+		double unprocessedTime = 0;
+		
+		while (isRunning)
+		{
+			boolean render = false; //Should the game render a frame
+			
+			long startTime = Time.getTime();
+			long passedTime = startTime - lastTime;
+			lastTime = startTime; //Calculate how much time passed
+			
+			//Add that time to the amount of time we check for frames
+			unprocessedTime += passedTime / (double) Time.SECOND;
+			frameCounter += passedTime;
+			
+			//Enough time has happened for a frame
+			while (unprocessedTime > frameTime)
+			{
+				render = true; //Do render this frame
+				
+				unprocessedTime -= frameTime; //Reset the counter
+				
+				Time.setDelta(frameTime); //Set the delta as to much time has passed
+				
+				if (Window.isCloseRequested()) //If the window has the 'x' clicked
+				{
+					stop(); //Stop
+				}
+				
+				Input.update(); //Update the input
+				
+				game.input(); //Allow the game to take input
+				game.update(); //Allow the game to update its state
+				
+				frames++;
+				
+				//FPS counter stuff
+				if (frameCounter >= Time.SECOND)
+				{
+					System.out.println(frames + " fps, " + RenderStats.getSummary()); //Along with what the last frame took
+					frameCounter = 0;
+					frames = 0;
+				}
+			}
+			if (render)
+			{
+				render(); //Renders everything
+			}
+			else //So there wasn't enough time built up for a frame
+			{
+				try
+				{
+					Thread.sleep(1); //Wait to try to build up for a frame
+				}
+				catch (InterruptedException e)
+				{
+					
+				}
+			}
+		}
+		
+		cleanUp(); //The game has stopped and now needs to clean-up resources and such
+	}
+	
+	/**
+	 * Cleans up resources and stuff
+	 */
+	private void cleanUp()
+	{
+		if (isRunning) //You cannot clean up while the game is running
+		{
+			return;
+		}
+		
+		Window.dispose(); //Dispose of the main window
+		Input.dispose(); //Dispose of the input
+	}
+	
+	/**
+	 * Renders all the models the engine has stored
+	 * 
+	 * The models are rendered according to their flags they have set
+	 * 
+	 * Flags:
+	 * render, if not zero the model will be rendered else it will not be
+	 * 
+	 */
+	private void render()
+	{
+		game.render(); //Tell the game to render
+		
+		guiShader.bind(); //Use the gui shader
+		
+		guiManager.render(); //Render the gui
+		
+		Window.render(); //Have the window render what we just rendered
+		
+		RenderStats.endFrame(); //Keep this frame's counts
+	}
+	
+	//Setters for engine properties
+	
+	/**
+	 * Sets the title
+	 * @param title the title
+	 */
+	public void setTitle(String title)
+	{
+		Display.setTitle(title);
+	}
+	
+	/**
+	 * Sets the folder where resources are stored
+	 * @param resourceLocation the folder where resources are stored
+	 */
+	public void setResourceLocation(String resourceLocation)
+	{
+		this.resourceLocation = resourceLocation;
+		manifest = null; //The manifest is in the resource folder
+	}
+	
+	//Getters
+
+	/**
+	 * Sets the folder where shaders are found
+	 * @param shaderLocation where shaders are found
+	 */
+	public void setShaderLocation(String shaderLocation)
+	{
+		this.shaderLocation = shaderLocation;
+	}
+
+	/**
+	 * Sets the folder where textures are found
+	 * @param textureLocation the location textures are found
+	 */
+	public void setTextureLocation(String textureLocation)
+	{
+		this.textureLocation = textureLocation;
+	}
+	
+	/**
+	 * Sets the location where models are found
+	 * @param modelLocation where models are found
+	 */
+	public void setModelLocation(String modelLocation)
+	{
+		this.modelLocation = modelLocation;
+	}
+
+	/**
+	 * Sets the location where files made from other resources are kept
+	 * @param cacheLocation where they are kept
+	 */
+	public void setCacheLocation(String cacheLocation)
+	{
+		this.cacheLocation = cacheLocation;
+		manifest = null; //The manifest is in the cache folder
+	}
+
+	/**
+	 * Gets the current shader
+	 * @return the current shader
+	 */
+	public Shader getCurrentShader()
+	{
+		return currentShader;
+	}
+	
+	/**
+	 * Gets the matrix stack
+	 * @return the matrix stack
+	 */
+	public MatrixStack getMatrixStack()
+	{
+		return stack;
+	}
+	
+	//Shader methods
+	
+	/**
+	 * Adds a shader to the engine
+	 * @param s the shader
+	 * @param name the name to call the shader
+	 */
+	public void addShader(Shader s, String name)
+	{
+		shaders.put(name, s);
+	}
+	
+	/**
+	 * Uses a shader
+	 * @param name the shader to use
+	 */
+	public void useShader(String name)
+	{
+		Shader s = shaders.get(name);
+		if (s != null)
+		{
+			s.bind();
+			currentShader = s;
+		}
+		else
+		{
+			glUseProgram(0); //Stop using shaders
+		}
+	}
+	
+	//Sampler methods
+	
+	/**
+	 * Adds a sampler to the engine
+	 * @param sampler the sampler to add
+	 * @param the name to call the sampler
+	 */
+	public void addSampler(Sampler s, String name)
+	{
+		samplers.put(name, s);
+	}
+	
+	/**
+	 * Uses a sampler
+	 * @param samplerName the sampler
+	 */
+	public void useSampler(String samplerName)
+	{
+		Sampler s = samplers.get(samplerName);
+		s.bind(TEXTURE_LOCATION);
+	}
+	
+	//Material methods
+	
+	/**
+	 * Adds a material to the list
+	 * @param m the material to add
+	 * @param name the name to call it
+	 */
+	public void addMaterial(Material m, String name)
+	{
+		materials.put(name, m);
+	}
+	
+	/**
+	 * Uses the material by binding
+	 * 
+	 * Models bind their own materials when they are drawn so this is only needed
+	 * for drawing that doesn't go through renderModels()
+	 * @param name the name the material is called
+	 */
+	public void useMaterial(String name)
+	{
+		Material m = materials.get(name);
+		m.getTexture().bind(TEXTURE_LOCATION_OPENGL);
+	}
+	
+	/**
+	 * Gets the material
+	 * @param name the material's name
+	 * @return the material
+	 */
+	public Material getMaterial(String name)
+	{
+		return materials.get(name);
+	}
+	
+	//Pass methods
+	
+	/**
+	 * Adds a pass that every model is drawn in, after the passes already added
+	 * 
+	 * With no passes renderModels() draws with the current shader instead
+	 * @param pass the pass
+	 */
+	public void addPass(RenderPass pass)
+	{
+		passes.add(pass);
+	}
+	
+	//Culling methods
+	
+	/**
+	 * Sets if models outside what the camera sees are skipped
+	 * @param frustumCulling if they are skipped
+	 */
+	public void setFrustumCulling(boolean frustumCulling)
+	{
+		this.frustumCulling = frustumCulling;
+	}
+	
+	/**
+	 * Sets if the models about to be rendered are already known to be seen, so isVisible() doesn't test them again.
+	 * Groups that have culled their models themselves set this around rendering them
+	 * @param visibilityKnown if they are known to be seen
+	 */
+	public void setVisibilityKnown(boolean visibilityKnown)
+	{
+		this.visibilityKnown = visibilityKnown;
+	}
+	
+	/**
+	 * Checks if the models being rendered are already known to be seen
+	 * @return if they are
+	 */
+	public boolean isVisibilityKnown()
+	{
+		return visibilityKnown;
+	}
+	
+	/**
+	 * Gets the frustum models are culled against, updated at the start of renderModels()
+	 * @return the frustum in world space
+	 */
+	public Frustum getFrustum()
+	{
+		return frustum;
+	}
+	
+	/**
+	 * Gets the projection and camera matrix, updated at the start of renderModels()
+	 * @return the matrix, which should not be modified
+	 */
+	public Matrix4f getCameraMatrix()
+	{
+		return cameraMatrix;
+	}
+	
+	/**
+	 * Checks if culling against the frustum is on
+	 * @return if it is
+	 */
+	public boolean isFrustumCulling()
+	{
+		return frustumCulling;
+	}
+	
+	/**
+	 * Checks if something at the top of the matrix stack might be seen
+	 * 
+	 * The sphere is tested first as it is cheaper, and the box only if the sphere is partly inside
+	 * @param bounds the box around it in the space of the top of the matrix stack
+	 * @param sphere the sphere around it in the same space, null to only test the box
+	 * @return false if it is certainly not seen
+	 */
+	public boolean isVisible(BoundingBox bounds, BoundingSphere sphere)
+	{
+		if (!frustumCulling || visibilityKnown || bounds == null)
+		{
+			return true;
+		}
+		
+		Matrix4f transform = stack.getTransform();
+		
+		if (sphere != null)
+		{
+			int result = frustum.test(transform == null ? cullSphere.set(sphere) : sphere.transform(transform, cullSphere));
+			
+			if (result != Frustum.INTERSECTS)
+			{
+				return result == Frustum.INSIDE;
+			}
+		}
+		
+		return frustum.intersects(transform == null ? cullBox.set(bounds) : bounds.transform(transform, cullBox));
+	}
+	
+	//Level of detail methods
+	
+	/**
+	 * Sets if meshes are drawn with simpler levels of detail when they are far away
+	 * @param levelOfDetail if they are
+	 */
+	public void setLevelOfDetail(boolean levelOfDetail)
+	{
+		this.levelOfDetail = levelOfDetail;
+	}
+	
+	/**
+	 * Checks if meshes are drawn with simpler levels of detail when they are far away
+	 * @return if they are
+	 */
+	public boolean isLevelOfDetail()
+	{
+		return levelOfDetail;
+	}
+	
+	/**
+	 * Sets how many pixels a simpler level of detail can be off by on screen
+	 * @param lodThreshold the pixels, bigger uses simpler levels closer to the camera
+	 */
+	public void setLODThreshold(float lodThreshold)
+	{
+		this.lodThreshold = lodThreshold;
+	}
+	
+	/**
+	 * Gets how many pixels a simpler level of detail can be off by on screen
+	 * @return the pixels
+	 */
+	public float getLODThreshold()
+	{
+		return lodThreshold;
+	}
+	
+	/**
+	 * Chooses the level of detail of a mesh at the top of the matrix stack
+	 * 
+	 * Each level's error is projected onto the screen at the distance of the mesh's sphere
+	 * from the camera. A more detailed level is used as soon as the current one is off by
+	 * more than the threshold, but a simpler one only once it is off by LOD_HYSTERESIS less,
+	 * so something sitting at the threshold doesn't switch back and forth every frame.
+	 * @param mesh the mesh
+	 * @param current the level it was drawn at last frame
+	 * @return the level to draw it at, 0 for the full mesh
+	 */
+	public int selectLOD(GPUMesh mesh, int current)
+	{
+		int levels = mesh.getLODCount();
+		
+		if (!levelOfDetail || levels == 1)
+		{
+			return 0;
+		}
+		
+		Matrix4f transform = stack.getTransform();
+		BoundingSphere local = mesh.getSphere();
+		BoundingSphere world = transform == null ? lodSphere.set(local) : local.transform(transform, lodSphere);
+		
+		float dx = world.x - camera.pos.x, dy = world.y - camera.pos.y, dz = world.z - camera.pos.z;
+		float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz) - world.radius; //The closest the mesh can be
+		
+		if (distance <= 0) //The camera is inside it
+		{
+			return 0;
+		}
+		
+		float scale = local.radius > 0 ? world.radius / local.radius : 1; //The errors are in the mesh's own units
+		float pixelsPerError = scale * worldOrientation.getProjectionScale() / distance;
+		
+		int lod = Math.min(Math.max(current, 0), levels - 1);
+		
+		while (lod > 0 && mesh.getLODError(lod) * pixelsPerError > lodThreshold) //Too far off
+		{
+			lod--;
+		}
+		while (lod + 1 < levels && mesh.getLODError(lod + 1) * pixelsPerError <= lodThreshold * (1 - LOD_HYSTERESIS)) //Well within the threshold
+		{
+			lod++;
+		}
+		
+		return lod;
+	}
+	
+	//Model methods
+	
+	/**
+	 * Adds a model
+	 * @param m the model to add
+	 */
+	public void addModel(Model m)
+	{
+		models.add(m);
+	}
+	
+	//Camera methods
+	
+	/**
+	 * Gets the camera
+	 * @return the camera
+	 */
+	public Camera getCamera()
+	{
+		return camera;
+	}
+	
+	//Resource Location Methods
+	
+	/**
+	 * Gets where resources are stored
+	 * @return where resources are stored
+	 */
+	public String getResourceLocation()
+	{
+		return resourceLocation;
+	}
+	
+	/**
+	 * Gets where shader are stored
+	 * @return where shaders are stored
+	 */
+	public String getShaderLocation()
+	{
+		return resourceLocation + shaderLocation;
+	}
+	
+	/**
+	 * Gets where textures are stored
+	 * @return where textures are stored
+	 */
+	public String getTextureLocation()
+	{
+		return resourceLocation + textureLocation;
+	}
+	
+	/**
+	 * Gets where models are stored
+	 * @return where models are stored
+	 */
+	public String getModelLocation()
+	{
+		return resourceLocation + modelLocation;
+	}
+	
+	/**
+	 * Gets where files made from other resources are kept
+	 * @return where they are kept
+	 */
+	public String getCacheLocation()
+	{
+		return resourceLocation + cacheLocation;
+	}
+	
+	/**
+	 * Gets the baked version of a resource made by the asset baker
+	 * @param path the resource's path, starting with the resource location
+	 * @return the baked file, null if it hasn't been baked or has changed since
+	 */
+	public File getBakedAsset(String path)
+	{
+		if (manifest == null)
+		{
+			try
+			{
+				manifest = AssetManifest.load(new File(getCacheLocation() + AssetManifest.FILE_NAME));
+			}
+			catch (IOException e) //Load everything from its source instead
+			{
+				e.printStackTrace();
+				manifest = new AssetManifest();
+			}
+		}
+		
+		path = path.replace(File.separatorChar, '/');
+		
+		if (!path.startsWith(resourceLocation))
+		{
+			return null;
+		}
+		
+		return manifest.getBaked(new File(resourceLocation), path.substring(resourceLocation.length()));
+	}
+	
+	//Gui methods
+	
+	/**
+	 * Adds a new gui
+	 * @param window the gui to add
+	 * @param x the x
+	 * @param y the y
+	 */
+	public void addGUI(GUIWindow window, float x, float y)
+	{
+		guiManager.addGUI(window, x, y);
+	}
+	
+	/**
+	 * Sets the shader's model matrix data
+	 */
+	public void setModelData()
+	{
+		if (currentShader.hasStandardUniform(MODEL_MATRIX_ID)) //If the shader positions models set the model matrix
+		{
+			currentShader.setUniform(currentShader.getStandardUniform(MODEL_MATRIX_ID), stack.getTransform());
+		}
+		if (currentShader.hasStandardUniform(NORMAL_MATRIX_ID))
+		{
+			currentShader.setUniform(currentShader.getStandardUniform(NORMAL_MATRIX_ID), stack.getNormalMatrix());
+		}
+	}
+	
+	/**
+	 * Draws a mesh at full detail at the top of the matrix stack
+	 * @param mesh the mesh
+	 * @param material the material to draw it with
+	 */
+	public void drawMesh(GPUMesh mesh, Material material)
+	{
+		drawMesh(mesh, 0, material);
+	}
+	
+	/**
+	 * Draws a mesh at the top of the matrix stack
+	 * 
+	 * The mesh is only recorded, once renderModels() has gone through every model the
+	 * draws are sorted and drawn in every pass together
+	 * @param mesh the mesh
+	 * @param lod the level of detail, from selectLOD()
+	 * @param material the material to draw it with
+	 */
+	public void drawMesh(GPUMesh mesh, int lod, Material material)
+	{
+		int transform = queue.addTransform(stack.getTransform()); //Shared by the draws in every pass
+		
+		if (passes.isEmpty())
+		{
+			queue.add(null, 0, currentShader, mesh, lod, material, transform);
+		}
+		else
+		{
+			for (int i = 0; i < passes.size(); i++)
+			{
+				RenderPass pass = passes.get(i);
+				queue.add(pass, i, pass.getShader(), mesh, lod, material, transform);
+			}
+		}
+	}
+	
+	/**
+	 * Renders all the models the engine has stored
+	 * 
+	 * Every model is drawn in every pass, or with the current shader if there are no passes.
+	 * The draws are sorted by pass, shader, material, and mesh so each is only bound when it changes.
+	 * 
+	 * The models are rendered according to their flags they have set
+	 * 
+	 * Flags:
+	 * render, if not zero the model will be rendered else it will not be
+	 * 
+	 */
+	public void renderModels()
+	{
+		cameraMatrix.set(worldOrientation.getCameraProjectedTransformationMatrix(camera)); //Copied as the orientation reuses its matrix
+		frustum.set(cameraMatrix);
+		
+		for (Model m : models) //Record each model that can be seen
+		{
+			m.render(stack);
+		}
+		
+		queue.submit(cameraMatrix);
+		
+		if (queue.getBoundShader() != null)
+		{
+			currentShader = queue.getBoundShader();
+		}
+	}
+	
+}
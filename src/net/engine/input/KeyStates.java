@@ -1,10 +1,10 @@
-package net.engine.input;
-
-/**
- * The states a key can be in
- * @author Davis
- */
-public enum KeyStates
-{
-    JUST_DOWN, WAS_DOWN, JUST_UP, WAS_UP
-}
+package net.engine.input;
+
+/**
+ * The states a key can be in
+ * @author Davis
+ */
+public enum KeyStates
+{
+    JUST_DOWN, WAS_DOWN, JUST_UP, WAS_UP
+}
@@ -1,10 +1,10 @@
-package net.engine.input;
-
-/**
- *
- * @author Davis
- */
-public enum MouseStates
-{
-    JUST_CLICKED, WAS_CLICKED, JUST_RELEASED, WAS_RELEASED
-}
+package net.engine.input;
+
+/**
+ *
+ * @author Davis
+ */
+public enum MouseStates
+{
+    JUST_CLICKED, WAS_CLICKED, JUST_RELEASED, WAS_RELEASED
+}
@@ -0,0 +1,216 @@
+package net.engine.math;
+
+import net.engine.matrix.Matrix4f;
+
+/**
+ * A box lined up with the axes, used to bound models
+ * 
+ * A box with nothing in it has its minimums above its maximums so including
+ * the first point sets it to that point
+ * @author Davis
+ */
+public class BoundingBox implements Cloneable
+{
+	
+	public float minX, minY, minZ, maxX, maxY, maxZ;
+	
+	/**
+	 * Creates an empty box
+	 */
+	public BoundingBox()
+	{
+		clear();
+	}
+	
+	/**
+	 * Creates a box
+	 * @param minX the smallest x
+	 * @param minY the smallest y
+	 * @param minZ the smallest z
+	 * @param maxX the biggest x
+	 * @param maxY the biggest y
+	 * @param maxZ the biggest z
+	 */
+	public BoundingBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+	{
+		set(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "[(" + minX + ", " + minY + ", " + minZ + "), (" + maxX + ", " + maxY + ", " + maxZ + ")]";
+	}
+	
+	@Override
+	public BoundingBox clone()
+	{
+		return new BoundingBox().set(this);
+	}
+	
+	/**
+	 * Sets the corners of this box
+	 * @param minX the smallest x
+	 * @param minY the smallest y
+	 * @param minZ the smallest z
+	 * @param maxX the biggest x
+	 * @param maxY the biggest y
+	 * @param maxZ the biggest z
+	 * @return this box
+	 */
+	public BoundingBox set(float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+	{
+		this.minX = minX; this.minY = minY; this.minZ = minZ;
+		this.maxX = maxX; this.maxY = maxY; this.maxZ = maxZ;
+		return this;
+	}
+	
+	/**
+	 * Copies another box into this one
+	 * @param other the other
+	 * @return this box
+	 */
+	public BoundingBox set(BoundingBox other)
+	{
+		return set(other.minX, other.minY, other.minZ, other.maxX, other.maxY, other.maxZ);
+	}
+	
+	/**
+	 * Empties this box
+	 * @return this box
+	 */
+	public BoundingBox clear()
+	{
+		return set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+				Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+	}
+	
+	/**
+	 * Checks if nothing has been put in this box
+	 * @return if it is empty
+	 */
+	public boolean isEmpty()
+	{
+		return minX > maxX || minY > maxY || minZ > maxZ;
+	}
+	
+	/**
+	 * Grows this box to hold a point
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return this box
+	 */
+	public BoundingBox include(float x, float y, float z)
+	{
+		if (x < minX) minX = x;
+		if (y < minY) minY = y;
+		if (z < minZ) minZ = z;
+		if (x > maxX) maxX = x;
+		if (y > maxY) maxY = y;
+		if (z > maxZ) maxZ = z;
+		return this;
+	}
+	
+	/**
+	 * Grows this box to hold another box
+	 * @param other the other
+	 * @return this box
+	 */
+	public BoundingBox include(BoundingBox other)
+	{
+		if (other.minX < minX) minX = other.minX;
+		if (other.minY < minY) minY = other.minY;
+		if (other.minZ < minZ) minZ = other.minZ;
+		if (other.maxX > maxX) maxX = other.maxX;
+		if (other.maxY > maxY) maxY = other.maxY;
+		if (other.maxZ > maxZ) maxZ = other.maxZ;
+		return this;
+	}
+	
+	/**
+	 * Checks if this box overlaps another, touching counts
+	 * @param other the other
+	 * @return if they overlap
+	 */
+	public boolean intersects(BoundingBox other)
+	{
+		return minX <= other.maxX && maxX >= other.minX
+				&& minY <= other.maxY && maxY >= other.minY
+				&& minZ <= other.maxZ && maxZ >= other.minZ;
+	}
+	
+	/**
+	 * Checks if this box holds a point
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return if it does
+	 */
+	public boolean contains(float x, float y, float z)
+	{
+		return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+	}
+	
+	/**
+	 * Gets the center of this box
+	 * @param dest the vector to store the center in
+	 * @return dest
+	 */
+	public Vector3f getCenter(Vector3f dest)
+	{
+		return dest.set((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+	}
+	
+	/**
+	 * Gets the squared distance from a point to the closest part of this box
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the squared distance, 0 if the point is inside
+	 */
+	public float distanceSquared(float x, float y, float z)
+	{
+		float dx = Math.max(Math.max(minX - x, x - maxX), 0);
+		float dy = Math.max(Math.max(minY - y, y - maxY), 0);
+		float dz = Math.max(Math.max(minZ - z, z - maxZ), 0);
+		return dx * dx + dy * dy + dz * dz;
+	}
+	
+	/**
+	 * Transforms this box and stores the box lined up with the axes that holds the result
+	 * 
+	 * Each corner of the result is built from the matrix one entry at a time instead of
+	 * transforming all eight corners. dest may be this box.
+	 * @param matrix the transformation
+	 * @param dest the box to store the result in
+	 * @return dest
+	 */
+	public BoundingBox transform(Matrix4f matrix, BoundingBox dest)
+	{
+		if (isEmpty())
+		{
+			return dest.clear();
+		}
+		
+		float[] m = matrix.m;
+		float x0 = m[3], y0 = m[7], z0 = m[11]; //Start at the translation
+		float x1 = x0, y1 = y0, z1 = z0;
+		float a, b;
+		
+		a = m[0] * minX; b = m[0] * maxX; x0 += Math.min(a, b); x1 += Math.max(a, b);
+		a = m[1] * minY; b = m[1] * maxY; x0 += Math.min(a, b); x1 += Math.max(a, b);
+		a = m[2] * minZ; b = m[2] * maxZ; x0 += Math.min(a, b); x1 += Math.max(a, b);
+		
+		a = m[4] * minX; b = m[4] * maxX; y0 += Math.min(a, b); y1 += Math.max(a, b);
+		a = m[5] * minY; b = m[5] * maxY; y0 += Math.min(a, b); y1 += Math.max(a, b);
+		a = m[6] * minZ; b = m[6] * maxZ; y0 += Math.min(a, b); y1 += Math.max(a, b);
+		
+		a = m[8] * minX; b = m[8] * maxX; z0 += Math.min(a, b); z1 += Math.max(a, b);
+		a = m[9] * minY; b = m[9] * maxY; z0 += Math.min(a, b); z1 += Math.max(a, b);
+		a = m[10] * minZ; b = m[10] * maxZ; z0 += Math.min(a, b); z1 += Math.max(a, b);
+		
+		return dest.set(x0, y0, z0, x1, y1, z1);
+	}
+	
+}
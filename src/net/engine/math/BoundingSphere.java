@@ -0,0 +1,110 @@
+package net.engine.math;
+
+import net.engine.matrix.Matrix4f;
+
+/**
+ * A sphere used to bound models, cheaper to test than a box but usually looser
+ * @author Davis
+ */
+public class BoundingSphere implements Cloneable
+{
+	
+	public float x, y, z; //The center
+	
+	public float radius;
+	
+	/**
+	 * Creates a sphere of no size at the origin
+	 */
+	public BoundingSphere()
+	{
+		this(0, 0, 0, 0);
+	}
+	
+	/**
+	 * Creates a sphere
+	 * @param x the center's x
+	 * @param y the center's y
+	 * @param z the center's z
+	 * @param radius the radius
+	 */
+	public BoundingSphere(float x, float y, float z, float radius)
+	{
+		set(x, y, z, radius);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "(" + x + ", " + y + ", " + z + "), " + radius;
+	}
+	
+	@Override
+	public BoundingSphere clone()
+	{
+		return new BoundingSphere(x, y, z, radius);
+	}
+	
+	/**
+	 * Sets this sphere
+	 * @param x the center's x
+	 * @param y the center's y
+	 * @param z the center's z
+	 * @param radius the radius
+	 * @return this sphere
+	 */
+	public BoundingSphere set(float x, float y, float z, float radius)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.radius = radius;
+		return this;
+	}
+	
+	/**
+	 * Copies another sphere into this one
+	 * @param other the other
+	 * @return this sphere
+	 */
+	public BoundingSphere set(BoundingSphere other)
+	{
+		return set(other.x, other.y, other.z, other.radius);
+	}
+	
+	/**
+	 * Checks if this sphere overlaps another, touching counts
+	 * @param other the other
+	 * @return if they overlap
+	 */
+	public boolean intersects(BoundingSphere other)
+	{
+		float dx = x - other.x, dy = y - other.y, dz = z - other.z;
+		float r = radius + other.radius;
+		return dx * dx + dy * dy + dz * dz <= r * r;
+	}
+	
+	/**
+	 * Transforms this sphere, scaling the radius by the largest scale of the transformation
+	 * so the result always holds what this sphere held. dest may be this sphere.
+	 * @param matrix the transformation
+	 * @param dest the sphere to store the result in
+	 * @return dest
+	 */
+	public BoundingSphere transform(Matrix4f matrix, BoundingSphere dest)
+	{
+		float[] m = matrix.m;
+		
+		float cx = m[0] * x + m[1] * y + m[2] * z + m[3];
+		float cy = m[4] * x + m[5] * y + m[6] * z + m[7];
+		float cz = m[8] * x + m[9] * y + m[10] * z + m[11];
+		
+		//The squared length of each column is how much that axis is scaled
+		float sx = m[0] * m[0] + m[4] * m[4] + m[8] * m[8];
+		float sy = m[1] * m[1] + m[5] * m[5] + m[9] * m[9];
+		float sz = m[2] * m[2] + m[6] * m[6] + m[10] * m[10];
+		
+		return dest.set(cx, cy, cz, radius * (float) Math.sqrt(Math.max(sx, Math.max(sy, sz))));
+	}
+	
+}
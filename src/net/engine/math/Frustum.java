@@ -0,0 +1,171 @@
+package net.engine.math;
+
+import net.engine.matrix.Matrix4f;
+
+/**
+ * The six planes bounding what a camera can see
+ * 
+ * The planes are taken straight from the rows of the projection and camera matrix
+ * (the Gribb-Hartmann method), so they are in whatever space the matrix transforms from.
+ * A point is inside a plane when a * x + b * y + c * z + d >= 0 and the planes are
+ * normalized so that is also the distance to the plane.
+ * @author Davis
+ */
+public class Frustum
+{
+	
+	public static final int PLANES = 6;
+	
+	public static final int PLANE_SIZE = 4; //a, b, c, d
+	
+	//Results of the tests
+	public static final int OUTSIDE = 0;
+	public static final int INTERSECTS = 1;
+	public static final int INSIDE = 2;
+	
+	private final float[] planes; //Each plane's a, b, c, d in turn
+	
+	/**
+	 * Creates a frustum that holds everything until it is set
+	 */
+	public Frustum()
+	{
+		planes = new float[PLANES * PLANE_SIZE];
+		
+		for (int i = 0; i < PLANES; i++)
+		{
+			planes[i * PLANE_SIZE + 3] = Float.POSITIVE_INFINITY;
+		}
+	}
+	
+	/**
+	 * Sets the planes from a projection and camera matrix
+	 * 
+	 * A point is seen when its clip coordinates are all between -w and w, and each
+	 * of those six checks is a plane made by adding or subtracting a row from the last row
+	 * @param matrix the matrix that takes points into clip coordinates
+	 * @return this frustum
+	 */
+	public Frustum set(Matrix4f matrix)
+	{
+		float[] m = matrix.m;
+		
+		for (int row = 0; row < 3; row++)
+		{
+			for (int side = 0; side < 2; side++)
+			{
+				int plane = (row * 2 + side) * PLANE_SIZE;
+				float sign = side == 0 ? 1 : -1;
+				
+				for (int col = 0; col < PLANE_SIZE; col++)
+				{
+					planes[plane + col] = m[3 * Matrix4f.SIZE + col] + sign * m[row * Matrix4f.SIZE + col];
+				}
+				
+				float a = planes[plane], b = planes[plane + 1], c = planes[plane + 2];
+				float inverseL = 1 / (float) Math.sqrt(a * a + b * b + c * c);
+				
+				for (int col = 0; col < PLANE_SIZE; col++)
+				{
+					planes[plane + col] *= inverseL;
+				}
+			}
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Gets the planes
+	 * @return each plane's a, b, c, d in turn
+	 */
+	public float[] getPlanes()
+	{
+		return planes;
+	}
+	
+	/**
+	 * Checks where a sphere is
+	 * @param sphere the sphere
+	 * @return OUTSIDE, INTERSECTS, or INSIDE
+	 */
+	public int test(BoundingSphere sphere)
+	{
+		int result = INSIDE;
+		
+		for (int i = 0; i < PLANES * PLANE_SIZE; i += PLANE_SIZE)
+		{
+			float distance = planes[i] * sphere.x + planes[i + 1] * sphere.y + planes[i + 2] * sphere.z + planes[i + 3];
+			
+			if (distance < -sphere.radius)
+			{
+				return OUTSIDE;
+			}
+			if (distance < sphere.radius)
+			{
+				result = INTERSECTS;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Checks where a box is
+	 * 
+	 * For each plane only the corner furthest along the plane's normal is checked to see if
+	 * the box is outside, and the corner furthest the other way to see if it is inside.
+	 * Boxes near the corners of the frustum can be called INTERSECTS when they are outside.
+	 * @param box the box
+	 * @return OUTSIDE, INTERSECTS, or INSIDE
+	 */
+	public int test(BoundingBox box)
+	{
+		if (box.isEmpty())
+		{
+			return OUTSIDE;
+		}
+		
+		int result = INSIDE;
+		
+		for (int i = 0; i < PLANES * PLANE_SIZE; i += PLANE_SIZE)
+		{
+			float a = planes[i], b = planes[i + 1], c = planes[i + 2], d = planes[i + 3];
+			
+			float far = a * (a >= 0 ? box.maxX : box.minX) + b * (b >= 0 ? box.maxY : box.minY) + c * (c >= 0 ? box.maxZ : box.minZ) + d;
+			if (far < 0)
+			{
+				return OUTSIDE;
+			}
+			
+			float near = a * (a >= 0 ? box.minX : box.maxX) + b * (b >= 0 ? box.minY : box.maxY) + c * (c >= 0 ? box.minZ : box.maxZ) + d;
+			if (near < 0)
+			{
+				result = INTERSECTS;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Checks if any of a sphere might be seen
+	 * @param sphere the sphere
+	 * @return false if it is certainly not seen
+	 */
+	public boolean intersects(BoundingSphere sphere)
+	{
+		return test(sphere) != OUTSIDE;
+	}
+	
+	/**
+	 * Checks if any of a box might be seen
+	 * @param box the box
+	 * @return false if it is certainly not seen
+	 */
+	public boolean intersects(BoundingBox box)
+	{
+		return test(box) != OUTSIDE;
+	}
+	
+}
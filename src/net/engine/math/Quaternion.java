@@ -1,84 +1,340 @@
-/*
- * To change this template, choose Tools | Templates
- * and open the template in the editor.
- */
-package net.engine.math;
-
-
-/**
- * A quaternion
- * @author Davis
- */
-public class Quaternion
-{
-    
-    public float x, y, z, w;
-    
-    public Quaternion(float x, float y, float z, float w)
-    {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-        this.w = w;
-    }
-    
-    /**
-     * Returns the length of this quaternion
-     * @return the length of this quaternion
-     */
-    public float length()
-    {
-        return (float) Math.sqrt(x * x + y * y + z * z + w * w);
-    }
-    
-    /**
-     * Normalizes this quaternion
-     * @return a normalized version of this quaternion
-     */
-    public Quaternion normal()
-    {
-        float inverseL = 1 / length();
-        
-        return (new Quaternion(x * inverseL, y * inverseL, z * inverseL, w * inverseL));
-    }
-    
-    /**
-     * Returns the conjugate of this quaternion
-     * @return the conjugate of this quaternion
-     */
-    public Quaternion conjugate()
-    {
-        return (new Quaternion(-x, -y, -z, w));
-    }
-    
-    /**
-     * Multiplies this quaternion by another
-     * @param other the other
-     * @return the resulting quaternion
-     */
-    public Quaternion mul(Quaternion other)
-    {
-        float _w = w * other.w - x * other.x - y * other.y - z * other.z;
-        float _x = x * other.w + w * other.x + y * other.z - z * other.y;
-        float _y = y * other.w + w * other.y + z * other.x - x * other.z;
-        float _z = z * other.w + w * other.z + x * other.y - y * other.x;
-        
-        return (new Quaternion(_x, _y, _z, _w));
-    }
-    
-    /**
-     * Multiplies this quaternion by a vector
-     * @param other the vector
-     * @return the resulting quaternion
-     */
-    public Quaternion mul(Vector3f other)
-    {
-        float w_ = -x * other.x - y * other.y - z * other.z;
-        float x_ = w * other.x + y * other.z - z * other.y;
-        float y_ = w * other.y + z * other.x - x * other.z;
-        float z_ = w * other.z + x * other.y - y * other.x;
-        
-        return (new Quaternion(x_, y_, z_, w_));
-    }
-    
-}
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package net.engine.math;
+
+import net.engine.matrix.Matrix4f;
+
+
+/**
+ * A quaternion
+ *
+ * The init*, *Local, and *Into methods write into an existing quaternion so they
+ * can be used every frame without creating garbage
+ * @author Davis
+ */
+public class Quaternion implements Cloneable
+{
+
+    public static final float NLERP_THRESHOLD = 0.9995f; //Past this dot product slerp falls back to nlerp
+
+    public float x, y, z, w;
+
+    /**
+     * Creates the identity quaternion
+     */
+    public Quaternion()
+    {
+        this(0, 0, 0, 1);
+    }
+
+    public Quaternion(float x, float y, float z, float w)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+    }
+
+    /**
+     * Creates a quaternion that rotates around an axis
+     * @param axis the axis, must be normalized
+     * @param angle the angle in radians
+     * @return the new quaternion
+     */
+    public static Quaternion fromAxisAngle(Vector3f axis, float angle)
+    {
+        return new Quaternion().initAxisAngle(axis, angle);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "(" + x + ", " + y + ", " + z + ", " + w + ")";
+    }
+
+    @Override
+    public Quaternion clone()
+    {
+        return new Quaternion(x, y, z, w);
+    }
+
+    /**
+     * Sets the values of this quaternion
+     * @param x the x
+     * @param y the y
+     * @param z the z
+     * @param w the w
+     * @return this quaternion
+     */
+    public Quaternion set(float x, float y, float z, float w)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+        return this;
+    }
+
+    /**
+     * Copies another quaternion into this one
+     * @param other the other
+     * @return this quaternion
+     */
+    public Quaternion set(Quaternion other)
+    {
+        return set(other.x, other.y, other.z, other.w);
+    }
+
+    /**
+     * Initializes this as the identity quaternion
+     * @return this quaternion
+     */
+    public Quaternion initIdentity()
+    {
+        return set(0, 0, 0, 1);
+    }
+
+    /**
+     * Initializes this as a rotation around an axis
+     * @param axis the axis, must be normalized
+     * @param angle the angle in radians
+     * @return this quaternion
+     */
+    public Quaternion initAxisAngle(Vector3f axis, float angle)
+    {
+        float sinHalfAngle = (float) Math.sin(angle / 2);
+        float cosHalfAngle = (float) Math.cos(angle / 2);
+
+        return set(axis.x * sinHalfAngle, axis.y * sinHalfAngle, axis.z * sinHalfAngle, cosHalfAngle);
+    }
+
+    /**
+     * Initializes this as the same rotation as Matrix4f.initRotation() makes from euler angles
+     * @param x the rotation around the x axis
+     * @param y the rotation around the y axis
+     * @param z the rotation around the z axis
+     * @return this quaternion
+     */
+    public Quaternion initEuler(float x, float y, float z)
+    {
+        //Matrix4f.initRotation() is rz * ry * rx where ry turns the opposite way to the other two
+        float cx = (float) Math.cos(x / 2); float sx = (float) Math.sin(x / 2);
+        float cy = (float) Math.cos(-y / 2); float sy = (float) Math.sin(-y / 2);
+        float cz = (float) Math.cos(z / 2); float sz = (float) Math.sin(z / 2);
+
+        return set(sx * cy * cz - cx * sy * sz,
+                   cx * sy * cz + sx * cy * sz,
+                   cx * cy * sz - sx * sy * cz,
+                   cx * cy * cz + sx * sy * sz);
+    }
+
+    /**
+     * Returns the length of this quaternion
+     * @return the length of this quaternion
+     */
+    public float length()
+    {
+        return (float) Math.sqrt(x * x + y * y + z * z + w * w);
+    }
+
+    /**
+     * Gets the dot product of this quaternion and another
+     * @param other the other
+     * @return the dot product
+     */
+    public float dot(Quaternion other)
+    {
+        return x * other.x + y * other.y + z * other.z + w * other.w;
+    }
+
+    /**
+     * Normalizes this quaternion
+     * @return a normalized version of this quaternion
+     */
+    public Quaternion normal()
+    {
+        float inverseL = 1 / length();
+
+        return (new Quaternion(x * inverseL, y * inverseL, z * inverseL, w * inverseL));
+    }
+
+    /**
+     * Normalizes this quaternion in place
+     * @return this quaternion
+     */
+    public Quaternion normalizeLocal()
+    {
+        float inverseL = 1 / length();
+
+        return set(x * inverseL, y * inverseL, z * inverseL, w * inverseL);
+    }
+
+    /**
+     * Returns the conjugate of this quaternion
+     * @return the conjugate of this quaternion
+     */
+    public Quaternion conjugate()
+    {
+        return (new Quaternion(-x, -y, -z, w));
+    }
+
+    /**
+     * Multiplies this quaternion by another
+     * @param other the other
+     * @return the resulting quaternion
+     */
+    public Quaternion mul(Quaternion other)
+    {
+        return mulInto(other, new Quaternion());
+    }
+
+    /**
+     * Multiplies this quaternion by another and stores the result in this quaternion
+     * @param other the other
+     * @return this quaternion
+     */
+    public Quaternion mulLocal(Quaternion other)
+    {
+        return mulInto(other, this);
+    }
+
+    /**
+     * Multiplies this quaternion by another and stores the result in dest
+     *
+     * dest may be this quaternion or other
+     * @param other the other
+     * @param dest the quaternion to store the result in
+     * @return dest
+     */
+    public Quaternion mulInto(Quaternion other, Quaternion dest)
+    {
+        float _w = w * other.w - x * other.x - y * other.y - z * other.z;
+        float _x = x * other.w + w * other.x + y * other.z - z * other.y;
+        float _y = y * other.w + w * other.y + z * other.x - x * other.z;
+        float _z = z * other.w + w * other.z + x * other.y - y * other.x;
+
+        return dest.set(_x, _y, _z, _w);
+    }
+
+    /**
+     * Multiplies this quaternion by a vector
+     * @param other the vector
+     * @return the resulting quaternion
+     */
+    public Quaternion mul(Vector3f other)
+    {
+        float w_ = -x * other.x - y * other.y - z * other.z;
+        float x_ = w * other.x + y * other.z - z * other.y;
+        float y_ = w * other.y + z * other.x - x * other.z;
+        float z_ = w * other.z + x * other.y - y * other.x;
+
+        return (new Quaternion(x_, y_, z_, w_));
+    }
+
+    /**
+     * Rotates a vector by this quaternion, which must be normalized
+     * @param v the vector
+     * @return the rotated vector
+     */
+    public Vector3f rotate(Vector3f v)
+    {
+        return rotate(v, new Vector3f(0, 0, 0));
+    }
+
+    /**
+     * Rotates a vector by this quaternion, which must be normalized, and stores it in dest
+     *
+     * This is the expanded form of q * v * conjugate(q) and dest may be v
+     * @param v the vector
+     * @param dest the vector to store the result in
+     * @return dest
+     */
+    public Vector3f rotate(Vector3f v, Vector3f dest)
+    {
+        //t = 2 * cross(q, v)
+        float tx = 2 * (y * v.z - z * v.y);
+        float ty = 2 * (z * v.x - x * v.z);
+        float tz = 2 * (x * v.y - y * v.x);
+
+        //v + w * t + cross(q, t)
+        float x_ = v.x + w * tx + (y * tz - z * ty);
+        float y_ = v.y + w * ty + (z * tx - x * tz);
+        float z_ = v.z + w * tz + (x * ty - y * tx);
+
+        dest.x = x_;
+        dest.y = y_;
+        dest.z = z_;
+        return dest;
+    }
+
+    /**
+     * Stores the rotation this quaternion, which must be normalized, represents in a matrix
+     * @param dest the matrix to store the rotation in
+     * @return dest
+     */
+    public Matrix4f toRotationMatrix(Matrix4f dest)
+    {
+        float xx = x * x, yy = y * y, zz = z * z;
+        float xy = x * y, xz = x * z, yz = y * z;
+        float wx = w * x, wy = w * y, wz = w * z;
+
+        float[] m = dest.m;
+        m[0] = 1 - 2 * (yy + zz); m[1] = 2 * (xy - wz);     m[2] = 2 * (xz + wy);      m[3] = 0;
+        m[4] = 2 * (xy + wz);     m[5] = 1 - 2 * (xx + zz); m[6] = 2 * (yz - wx);      m[7] = 0;
+        m[8] = 2 * (xz - wy);     m[9] = 2 * (yz + wx);     m[10] = 1 - 2 * (xx + yy); m[11] = 0;
+        m[12] = 0;                m[13] = 0;                m[14] = 0;                 m[15] = 1;
+        return dest;
+    }
+
+    /**
+     * Linearly interpolates to another quaternion and normalizes the result
+     *
+     * This is cheaper than slerp but does not turn at a constant speed
+     * @param other the quaternion to interpolate to
+     * @param t how far to go from this (0) to other (1)
+     * @param dest the quaternion to store the result in, may be this or other
+     * @return dest
+     */
+    public Quaternion nlerp(Quaternion other, float t, Quaternion dest)
+    {
+        float sign = dot(other) < 0 ? -1 : 1; //Take the shortest way around
+        float s = 1 - t;
+        float t_ = t * sign;
+
+        return dest.set(x * s + other.x * t_, y * s + other.y * t_, z * s + other.z * t_, w * s + other.w * t_).normalizeLocal();
+    }
+
+    /**
+     * Spherically interpolates to another quaternion, turning at a constant speed
+     * @param other the quaternion to interpolate to
+     * @param t how far to go from this (0) to other (1)
+     * @param dest the quaternion to store the result in, may be this or other
+     * @return dest
+     */
+    public Quaternion slerp(Quaternion other, float t, Quaternion dest)
+    {
+        float cos = dot(other);
+        float sign = 1;
+
+        if (cos < 0) //Take the shortest way around
+        {
+            cos = -cos;
+            sign = -1;
+        }
+
+        if (cos > NLERP_THRESHOLD) //The quaternions are too close for the angle to be accurate
+        {
+            return nlerp(other, t, dest);
+        }
+
+        float angle = (float) Math.acos(cos);
+        float invSin = 1 / (float) Math.sin(angle);
+        float s = (float) Math.sin((1 - t) * angle) * invSin;
+        float t_ = (float) Math.sin(t * angle) * invSin * sign;
+
+        return dest.set(x * s + other.x * t_, y * s + other.y * t_, z * s + other.z * t_, w * s + other.w * t_);
+    }
+
+}
@@ -1,176 +1,319 @@
-package net.engine.math;
-
-/**
- * A vector of 2 length storing floating point values
- * @author Davis
- */
-public class Vector2f implements Cloneable
-{
-    
-    public float x, y;
-    
-    /**
-     * Creates a new vector of length 2 that stores floating point numbers
-     * @param x the first floating point number
-     * @param y the second floating point number
-     */
-    public Vector2f(float x, float y)
-    {
-        this.x = x;
-        this.y = y;
-    }
-    
-    @Override
-    public String toString()
-    {
-        return "(" + x + ", " + y + ")";
-    }
-    
-    @Override
-    public Vector2f clone()
-    {
-    	return new Vector2f(x, y);
-    }
-    
-    /**
-     * Gets the state of the vector as an array
-     * @return an array of the form {x, y}
-     */
-    public float[] getAsArray()
-    {
-        return new float[] {x, y};
-    }
-    
-    /**
-     * Gets the length of the vector
-     * @return  the length of the vector
-     */
-    public float length()
-    {
-        return (float) Math.sqrt(x * x + y * y);
-    }
-    
-    /**
-     * Gets the absolute value of the vector
-     * @return the absolute value of the vector
-     */
-    public Vector2f abs()
-    {
-    	return (new Vector2f(Math.abs(x), Math.abs(y)));
-    }
-    
-    /**
-     * Gets the dot product of this vector and another
-     * @param other the other vector
-     * @return the dot product
-     */
-    public float dot(Vector2f other)
-    {
-        return x * other.x + y * other.y;
-    }
-    
-    /**
-     * Calculates the normal of the vector
-     * @return the normal
-     */
-    public Vector2f normal()
-    {
-        float length = length();
-        
-        return (new Vector2f(x / length, y / length));
-    }
-    
-    /**
-     * Rotates this vector by angle angle
-     * @param angle the angle to rotate by
-     * @return the vector once rotated
-     */
-    public Vector2f rotate(float angle)
-    {
-        float cos = (float) Math.cos(angle);
-        float sin = (float) Math.sin(angle);
-        
-        return (new Vector2f(x * cos - y * sin, x * sin + y * cos));
-    }
-    
-    /**
-     * Adds this vector and another
-     * @param other the other
-     * @return the vector of their addition
-     */
-    public Vector2f add(Vector2f other)
-    {
-        return (new Vector2f(x + other.x, y + other.y));
-    }
-    
-    /**
-     * Adds a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the addition
-     */
-    public Vector2f add(float scalar)
-    {
-        return (new Vector2f(x + scalar, y + scalar));
-    }
-    
-    /**
-     * Subtracts this vector and another
-     * @param other the other
-     * @return the vector of their subtraction
-     */
-    public Vector2f sub(Vector2f other)
-    {
-        return (new Vector2f(x - other.x, y - other.y));
-    }
-    
-    /**
-     * Subtracts a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the subtraction
-     */
-    public Vector2f sub(float scalar)
-    {
-        return (new Vector2f(x - scalar, y - scalar));
-    }
-    
-    /**
-     * Multiplies this vector and another
-     * @param other the other
-     * @return the vector of their multiplication
-     */
-    public Vector2f mul(Vector2f other)
-    {
-        return (new Vector2f(x * other.x, y * other.y));
-    }
-    
-    /**
-     * Multiplies a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the multiplication
-     */
-    public Vector2f mul(float scalar)
-    {
-        return (new Vector2f(x * scalar, y * scalar));
-    }
-    
-    /**
-     * Divides this vector and another
-     * @param other the other
-     * @return the vector of their division
-     */
-    public Vector2f div(Vector2f other)
-    {
-        return (new Vector2f(x / other.x, y / other.y));
-    }
-    
-    /**
-     * Divides a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the division
-     */
-    public Vector2f div(float scalar)
-    {
-        return (new Vector2f(x / scalar, y / scalar));
-    }
-    
-}
+package net.engine.math;
+
+/**
+ * A vector of 2 length storing floating point values
+ * 
+ * The operations return new vectors, except for the *Local versions which change this
+ * vector and the versions taking a dest which write into it
+ * @author Davis
+ */
+public class Vector2f implements Cloneable
+{
+    
+    public float x, y;
+    
+    /**
+     * Creates a new vector of length 2 that stores floating point numbers
+     * @param x the first floating point number
+     * @param y the second floating point number
+     */
+    public Vector2f(float x, float y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "(" + x + ", " + y + ")";
+    }
+    
+    @Override
+    public Vector2f clone()
+    {
+    	return new Vector2f(x, y);
+    }
+    
+    /**
+     * Sets the values of this vector
+     * @param x the x
+     * @param y the y
+     * @return this vector
+     */
+    public Vector2f set(float x, float y)
+    {
+    	this.x = x;
+    	this.y = y;
+    	return this;
+    }
+    
+    /**
+     * Copies another vector into this one
+     * @param other the other
+     * @return this vector
+     */
+    public Vector2f set(Vector2f other)
+    {
+    	return set(other.x, other.y);
+    }
+    
+    /**
+     * Gets the state of the vector as an array
+     * @return an array of the form {x, y}
+     */
+    public float[] getAsArray()
+    {
+        return new float[] {x, y};
+    }
+    
+    /**
+     * Gets the length of the vector
+     * @return  the length of the vector
+     */
+    public float length()
+    {
+        return (float) Math.sqrt(x * x + y * y);
+    }
+    
+    /**
+     * Gets the absolute value of the vector
+     * @return the absolute value of the vector
+     */
+    public Vector2f abs()
+    {
+    	return (new Vector2f(Math.abs(x), Math.abs(y)));
+    }
+    
+    /**
+     * Gets the dot product of this vector and another
+     * @param other the other vector
+     * @return the dot product
+     */
+    public float dot(Vector2f other)
+    {
+        return x * other.x + y * other.y;
+    }
+    
+    /**
+     * Calculates the normal of the vector
+     * @return the normal
+     */
+    public Vector2f normal()
+    {
+        float length = length();
+        
+        return (new Vector2f(x / length, y / length));
+    }
+    
+    /**
+     * Normalizes this vector
+     * @return this vector
+     */
+    public Vector2f normalizeLocal()
+    {
+        float length = length();
+        
+        return set(x / length, y / length);
+    }
+    
+    /**
+     * Rotates this vector by angle angle
+     * @param angle the angle to rotate by
+     * @return the vector once rotated
+     */
+    public Vector2f rotate(float angle)
+    {
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        
+        return (new Vector2f(x * cos - y * sin, x * sin + y * cos));
+    }
+    
+    /**
+     * Rotates this vector by angle angle in place
+     * @param angle the angle to rotate by
+     * @return this vector
+     */
+    public Vector2f rotateLocal(float angle)
+    {
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+        
+        return set(x * cos - y * sin, x * sin + y * cos);
+    }
+    
+    /**
+     * Adds this vector and another
+     * @param other the other
+     * @return the vector of their addition
+     */
+    public Vector2f add(Vector2f other)
+    {
+        return (new Vector2f(x + other.x, y + other.y));
+    }
+    
+    /**
+     * Adds a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the addition
+     */
+    public Vector2f add(float scalar)
+    {
+        return (new Vector2f(x + scalar, y + scalar));
+    }
+    
+    /**
+     * Adds this vector and another and stores the result in dest
+     * @param other the other
+     * @param dest the vector to store the result in, may be this vector or other
+     * @return dest
+     */
+    public Vector2f add(Vector2f other, Vector2f dest)
+    {
+        return dest.set(x + other.x, y + other.y);
+    }
+    
+    /**
+     * Adds this vector and another in place
+     * @param other the other
+     * @return this vector
+     */
+    public Vector2f addLocal(Vector2f other)
+    {
+        return add(other, this);
+    }
+    
+    /**
+     * Adds this vector and a scalar in place
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public Vector2f addLocal(float scalar)
+    {
+        return set(x + scalar, y + scalar);
+    }
+    
+    /**
+     * Subtracts this vector and another
+     * @param other the other
+     * @return the vector of their subtraction
+     */
+    public Vector2f sub(Vector2f other)
+    {
+        return (new Vector2f(x - other.x, y - other.y));
+    }
+    
+    /**
+     * Subtracts a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the subtraction
+     */
+    public Vector2f sub(float scalar)
+    {
+        return (new Vector2f(x - scalar, y - scalar));
+    }
+    
+    /**
+     * Subtracts this vector and another and stores the result in dest
+     * @param other the other
+     * @param dest the vector to store the result in, may be this vector or other
+     * @return dest
+     */
+    public Vector2f sub(Vector2f other, Vector2f dest)
+    {
+        return dest.set(x - other.x, y - other.y);
+    }
+    
+    /**
+     * Subtracts this vector and another in place
+     * @param other the other
+     * @return this vector
+     */
+    public Vector2f subLocal(Vector2f other)
+    {
+        return sub(other, this);
+    }
+    
+    /**
+     * Subtracts this vector and a scalar in place
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public Vector2f subLocal(float scalar)
+    {
+        return set(x - scalar, y - scalar);
+    }
+    
+    /**
+     * Multiplies this vector and another
+     * @param other the other
+     * @return the vector of their multiplication
+     */
+    public Vector2f mul(Vector2f other)
+    {
+        return (new Vector2f(x * other.x, y * other.y));
+    }
+    
+    /**
+     * Multiplies a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the multiplication
+     */
+    public Vector2f mul(float scalar)
+    {
+        return (new Vector2f(x * scalar, y * scalar));
+    }
+    
+    /**
+     * Multiplies this vector and another and stores the result in dest
+     * @param other the other
+     * @param dest the vector to store the result in, may be this vector or other
+     * @return dest
+     */
+    public Vector2f mul(Vector2f other, Vector2f dest)
+    {
+        return dest.set(x * other.x, y * other.y);
+    }
+    
+    /**
+     * Multiplies this vector and another in place
+     * @param other the other
+     * @return this vector
+     */
+    public Vector2f mulLocal(Vector2f other)
+    {
+        return mul(other, this);
+    }
+    
+    /**
+     * Multiplies this vector and a scalar in place
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public Vector2f mulLocal(float scalar)
+    {
+        return set(x * scalar, y * scalar);
+    }
+    
+    /**
+     * Divides this vector and another
+     * @param other the other
+     * @return the vector of their division
+     */
+    public Vector2f div(Vector2f other)
+    {
+        return (new Vector2f(x / other.x, y / other.y));
+    }
+    
+    /**
+     * Divides a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the division
+     */
+    public Vector2f div(float scalar)
+    {
+        return (new Vector2f(x / scalar, y / scalar));
+    }
+    
+}
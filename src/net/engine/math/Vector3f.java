@@ -1,221 +1,397 @@
-package net.engine.math;
-
-import net.engine.matrix.Matrix4f;
-
-
-/**
- * A vector of length three with floating point values
- * @author Davis
- */
-public class Vector3f implements Cloneable
-{
-
-    public float x, y, z;
-    
-    /**
-     * Creates a new vector of length three with floating point values
-     * @param x the first floating point number
-     * @param y the second floating point number
-     * @param z the third floating point number
-     */
-    public Vector3f(float x, float y, float z)
-    {
-        this.x = x;
-        this.y = y;
-        this.z = z;
-    }
-    
-    @Override
-    public String toString()
-    {
-        return "(" + x + ", " + y + ", " + z + ")";
-    }
-    
-    @Override
-    public Vector3f clone()
-    {
-    	return new Vector3f(x, y, z);
-    }
-    
-    /**
-     * Gets the state of the vector as an array
-     * @return the vector in the form {x, y, z}
-     */
-    public float[] getAsArray()
-    {
-        return new float[] {x, y, z};
-    }
-    
-    /**
-     * Gets the length of the vector
-     * @return the length of the vector
-     */
-    public float length()
-    {
-        return (float) Math.sqrt(x * x + y * y + z * z);
-    }
-    
-    /**
-     * Gets the absolute value of the vector
-     * @return the absolute value of the vector
-     */
-    public Vector3f abs()
-    {
-    	return (new Vector3f(Math.abs(x), Math.abs(y), Math.abs(z)));
-    }
-    
-    /**
-     * Gets the dot product of the vector and another
-     * @param other the other vector
-     * @return the dot product
-     */
-    public float dot(Vector3f other)
-    {
-        return x * other.x + y * other.y + z * other.z;
-    }
-    
-    /**
-     * Gets the normal of this vector
-     * @return the normal
-     */
-    public Vector3f normal()
-    {
-        float inverseL = 1 / length();
-        return (new Vector3f(x * inverseL, y * inverseL, z * inverseL));
-    }
-    
-    /**
-     * Gets the cross product of this vector and another
-     * @param other the other
-     * @return the cross product
-     */
-    public Vector3f cross(Vector3f other)
-    {
-        float x_ = y * other.z - z * other.y;
-        float y_ = z * other.x - x * other.z;
-        float z_ = x * other.y - y * other.x;
-        
-        return (new Vector3f(x_, y_, z_));
-    }
-    
-    /**
-     * Gets this vector after rotated through a 3d angle
-     * @param angle the angle
-     * @param axis the axis to rotate around
-     * @return the vector after rotation
-     */
-    public Vector3f rotate(float angle, Vector3f axis)
-    {
-    	float sinHalfAngle = (float) Math.sin(angle / 2);
-    	float cosHalfAngle = (float) Math.cos(angle / 2);
-    	
-    	float rX = axis.x * sinHalfAngle;
-    	float rY = axis.y * sinHalfAngle;
-    	float rZ = axis.z * sinHalfAngle;
-    	float rW = cosHalfAngle;
-    	
-    	Quaternion rotation = new Quaternion(rX, rY, rZ, rW);
-    	Quaternion conjugate = rotation.conjugate();
-    	
-    	Quaternion result = rotation.mul(this).mul(conjugate);
-    	
-    	return new Vector3f(result.x, result.y, result.z);
-    }
-    
-    /**
-     * Adds this vector and another
-     * @param other the other
-     * @return the vector of their addition
-     */
-    public Vector3f add(Vector3f other)
-    {
-        return (new Vector3f(x + other.x, y + other.y, z + other.z));
-    }
-    
-    /**
-     * Adds a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the addition
-     */
-    public Vector3f add(float scalar)
-    {
-        return (new Vector3f(x + scalar, y + scalar, z + scalar));
-    }
-    
-    /**
-     * Subtracts this vector and another
-     * @param other the other
-     * @return the vector of their subtracts
-     */
-    public Vector3f sub(Vector3f other)
-    {
-        return (new Vector3f(x - other.x, y - other.y, z - other.z));
-    }
-    
-    /**
-     * Subtracts a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the subtraction
-     */
-    public Vector3f sub(float scalar)
-    {
-        return (new Vector3f(x - scalar, y - scalar, z - scalar));
-    }
-    
-    /**
-     * Multiplies this vector and another
-     * @param other the other
-     * @return the vector of their multiplies
-     */
-    public Vector3f mul(Vector3f other)
-    {
-        return (new Vector3f(x * other.x, y * other.y, z * other.z));
-    }
-    
-    /**
-     * Multiplies a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the multiplication
-     */
-    public Vector3f mul(float scalar)
-    {
-        return (new Vector3f(x * scalar, y * scalar, z * scalar));
-    }
-    
-    /**
-     * Multiplies this vector by a matrix
-     * @param mat the matrix
-     * @return the modified vector
-     */
-    public Vector3f mul(Matrix4f mat)
-    {
-    	float[] [] matrix = mat.matrix;
-    	float x_ = matrix[0] [0] * x + matrix[0] [1] * y + matrix[0] [2] * z + matrix[0] [3];
-    	float y_ = matrix[1] [0] * x + matrix[1] [1] * y + matrix[1] [2] * z + matrix[1] [3];
-    	float z_ = matrix[2] [0] * x + matrix[2] [1] * y + matrix[2] [2] * z + matrix[2] [3];
-    	return new Vector3f(x_, y_, z_);
-    }
-    
-    /**
-     * Divides this vector and another
-     * @param other the other
-     * @return the vector of their division
-     */
-    public Vector3f div(Vector3f other)
-    {
-        return (new Vector3f(x / other.x, y / other.y, z / other.z));
-    }
-    
-    /**
-     * Divides a scalar to this vector
-     * @param scalar the scalar
-     * @return the vector of the divides
-     */
-    public Vector3f div(float scalar)
-    {
-        float invertS = 1 / scalar;
-        
-        return (new Vector3f(x * invertS, y * invertS, z * invertS));
-    }
-    
-}
+package net.engine.math;
+
+import net.engine.matrix.Matrix4f;
+
+
+/**
+ * A vector of length three with floating point values
+ * 
+ * The operations return new vectors, except for the *Local versions which change this
+ * vector and the versions taking a dest which write into it, so that code run every
+ * tick can work on reused vectors
+ * @author Davis
+ */
+public class Vector3f implements Cloneable
+{
+
+    public float x, y, z;
+    
+    /**
+     * Creates a new vector of length three with floating point values
+     * @param x the first floating point number
+     * @param y the second floating point number
+     * @param z the third floating point number
+     */
+    public Vector3f(float x, float y, float z)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "(" + x + ", " + y + ", " + z + ")";
+    }
+    
+    @Override
+    public Vector3f clone()
+    {
+    	return new Vector3f(x, y, z);
+    }
+    
+    /**
+     * Sets the values of this vector
+     * @param x the x
+     * @param y the y
+     * @param z the z
+     * @return this vector
+     */
+    public Vector3f set(float x, float y, float z)
+    {
+    	this.x = x;
+    	this.y = y;
+    	this.z = z;
+    	return this;
+    }
+    
+    /**
+     * Copies another vector into this one
+     * @param other the other
+     * @return this vector
+     */
+    public Vector3f set(Vector3f other)
+    {
+    	return set(other.x, other.y, other.z);
+    }
+    
+    /**
+     * Gets the state of the vector as an array
+     * @return the vector in the form {x, y, z}
+     */
+    public float[] getAsArray()
+    {
+        return new float[] {x, y, z};
+    }
+    
+    /**
+     * Gets the length of the vector
+     * @return the length of the vector
+     */
+    public float length()
+    {
+        return (float) Math.sqrt(x * x + y * y + z * z);
+    }
+    
+    /**
+     * Gets the absolute value of the vector
+     * @return the absolute value of the vector
+     */
+    public Vector3f abs()
+    {
+    	return (new Vector3f(Math.abs(x), Math.abs(y), Math.abs(z)));
+    }
+    
+    /**
+     * Gets the dot product of the vector and another
+     * @param other the other vector
+     * @return the dot product
+     */
+    public float dot(Vector3f other)
+    {
+        return x * other.x + y * other.y + z * other.z;
+    }
+    
+    /**
+     * Gets the normal of this vector
+     * @return the normal
+     */
+    public Vector3f normal()
+    {
+        float inverseL = 1 / length();
+        return (new Vector3f(x * inverseL, y * inverseL, z * inverseL));
+    }
+    
+    /**
+     * Gets the normal of this vector and stores it in dest
+     * @param dest the vector to store the normal in, may be this vector
+     * @return dest
+     */
+    public Vector3f normal(Vector3f dest)
+    {
+    	float inverseL = 1 / length();
+    	return dest.set(x * inverseL, y * inverseL, z * inverseL);
+    }
+    
+    /**
+     * Normalizes this vector
+     * @return this vector
+     */
+    public Vector3f normalizeLocal()
+    {
+    	return normal(this);
+    }
+    
+    /**
+     * Gets the cross product of this vector and another
+     * @param other the other
+     * @return the cross product
+     */
+    public Vector3f cross(Vector3f other)
+    {
+        return crossInto(other, new Vector3f(0, 0, 0));
+    }
+    
+    /**
+     * Gets the cross product of this vector and another and stores it in dest
+     * @param other the other
+     * @param dest the vector to store the cross product in, may be this vector or other
+     * @return dest
+     */
+    public Vector3f crossInto(Vector3f other, Vector3f dest)
+    {
+        float x_ = y * other.z - z * other.y;
+        float y_ = z * other.x - x * other.z;
+        float z_ = x * other.y - y * other.x;
+        
+        return dest.set(x_, y_, z_);
+    }
+    
+    /**
+     * Gets this vector after rotated through a 3d angle
+     * @param angle the angle
+     * @param axis the axis to rotate around
+     * @return the vector after rotation
+     */
+    public Vector3f rotate(float angle, Vector3f axis)
+    {
+    	return rotate(angle, axis, new Vector3f(0, 0, 0));
+    }
+    
+    /**
+     * Rotates this vector through a 3d angle and stores the result in dest
+     * @param angle the angle
+     * @param axis the axis to rotate around
+     * @param dest the vector to store the result in, may be this vector
+     * @return dest
+     */
+    public Vector3f rotate(float angle, Vector3f axis, Vector3f dest)
+    {
+    	float sinHalfAngle = (float) Math.sin(angle / 2);
+    	float cosHalfAngle = (float) Math.cos(angle / 2);
+    	
+    	float rX = axis.x * sinHalfAngle;
+    	float rY = axis.y * sinHalfAngle;
+    	float rZ = axis.z * sinHalfAngle;
+    	float rW = cosHalfAngle;
+    	
+    	//The expanded form of rotation * this * conjugate(rotation) so no quaternions are created
+    	float tX = 2 * (rY * z - rZ * y);
+    	float tY = 2 * (rZ * x - rX * z);
+    	float tZ = 2 * (rX * y - rY * x);
+    	
+    	return dest.set(x + rW * tX + (rY * tZ - rZ * tY), y + rW * tY + (rZ * tX - rX * tZ), z + rW * tZ + (rX * tY - rY * tX));
+    }
+    
+    /**
+     * Adds this vector and another
+     * @param other the other
+     * @return the vector of their addition
+     */
+    public Vector3f add(Vector3f other)
+    {
+        return (new Vector3f(x + other.x, y + other.y, z + other.z));
+    }
+    
+    /**
+     * Adds this vector and another and stores the result in dest
+     * @param other the other
+     * @param dest the vector to store the result in, may be this vector or other
+     * @return dest
+     */
+    public Vector3f add(Vector3f other, Vector3f dest)
+    {
+        return dest.set(x + other.x, y + other.y, z + other.z);
+    }
+    
+    /**
+     * Adds another vector to this vector
+     * @param other the other
+     * @return this vector
+     */
+    public Vector3f addLocal(Vector3f other)
+    {
+        return add(other, this);
+    }
+    
+    /**
+     * Adds a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the addition
+     */
+    public Vector3f add(float scalar)
+    {
+        return (new Vector3f(x + scalar, y + scalar, z + scalar));
+    }
+    
+    /**
+     * Adds a scalar to this vector in place
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public Vector3f addLocal(float scalar)
+    {
+        return set(x + scalar, y + scalar, z + scalar);
+    }
+    
+    /**
+     * Subtracts this vector and another
+     * @param other the other
+     * @return the vector of their subtracts
+     */
+    public Vector3f sub(Vector3f other)
+    {
+        return (new Vector3f(x - other.x, y - other.y, z - other.z));
+    }
+    
+    /**
+     * Subtracts this vector and another and stores the result in dest
+     * @param other the other
+     * @param dest the vector to store the result in, may be this vector or other
+     * @return dest
+     */
+    public Vector3f sub(Vector3f other, Vector3f dest)
+    {
+        return dest.set(x - other.x, y - other.y, z - other.z);
+    }
+    
+    /**
+     * Subtracts another vector from this vector
+     * @param other the other
+     * @return this vector
+     */
+    public Vector3f subLocal(Vector3f other)
+    {
+        return sub(other, this);
+    }
+    
+    /**
+     * Subtracts a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the subtraction
+     */
+    public Vector3f sub(float scalar)
+    {
+        return (new Vector3f(x - scalar, y - scalar, z - scalar));
+    }
+    
+    /**
+     * Subtracts a scalar from this vector in place
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public Vector3f subLocal(float scalar)
+    {
+        return set(x - scalar, y - scalar, z - scalar);
+    }
+    
+    /**
+     * Multiplies this vector and another
+     * @param other the other
+     * @return the vector of their multiplies
+     */
+    public Vector3f mul(Vector3f other)
+    {
+        return (new Vector3f(x * other.x, y * other.y, z * other.z));
+    }
+    
+    /**
+     * Multiplies this vector and another in place
+     * @param other the other
+     * @return this vector
+     */
+    public Vector3f mulLocal(Vector3f other)
+    {
+        return set(x * other.x, y * other.y, z * other.z);
+    }
+    
+    /**
+     * Multiplies a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the multiplication
+     */
+    public Vector3f mul(float scalar)
+    {
+        return (new Vector3f(x * scalar, y * scalar, z * scalar));
+    }
+    
+    /**
+     * Multiplies a scalar to this vector and stores the result in dest
+     * @param scalar the scalar
+     * @param dest the vector to store the result in, may be this vector
+     * @return dest
+     */
+    public Vector3f mul(float scalar, Vector3f dest)
+    {
+        return dest.set(x * scalar, y * scalar, z * scalar);
+    }
+    
+    /**
+     * Multiplies a scalar to this vector in place
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public Vector3f mulLocal(float scalar)
+    {
+        return mul(scalar, this);
+    }
+    
+    /**
+     * Multiplies this vector by a matrix
+     * @param mat the matrix
+     * @return the modified vector
+     */
+    public Vector3f mul(Matrix4f mat)
+    {
+    	return mul(mat, new Vector3f(0, 0, 0));
+    }
+    
+    /**
+     * Multiplies this vector by a matrix and stores the result in dest
+     * @param mat the matrix
+     * @param dest the vector to store the result in, may be this vector
+     * @return dest
+     */
+    public Vector3f mul(Matrix4f mat, Vector3f dest)
+    {
+    	float[] m = mat.m;
+    	float x_ = m[0] * x + m[1] * y + m[2] * z + m[3];
+    	float y_ = m[4] * x + m[5] * y + m[6] * z + m[7];
+    	float z_ = m[8] * x + m[9] * y + m[10] * z + m[11];
+    	return dest.set(x_, y_, z_);
+    }
+    
+    /**
+     * Divides this vector and another
+     * @param other the other
+     * @return the vector of their division
+     */
+    public Vector3f div(Vector3f other)
+    {
+        return (new Vector3f(x / other.x, y / other.y, z / other.z));
+    }
+    
+    /**
+     * Divides a scalar to this vector
+     * @param scalar the scalar
+     * @return the vector of the divides
+     */
+    public Vector3f div(float scalar)
+    {
+        float invertS = 1 / scalar;
+        
+        return (new Vector3f(x * invertS, y * invertS, z * invertS));
+    }
+    
+}
@@ -0,0 +1,148 @@
+package net.engine.matrix;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A 3x3 matrix, used for transforming normals
+ *
+ * The values are stored in a single flat array in row-major order so the element
+ * at row i and column j is m[i * SIZE + j].
+ * @author Davis
+ */
+public class Matrix3f implements Cloneable
+{
+
+    public static final int SIZE = 3;
+
+    public static final int LENGTH = SIZE * SIZE;
+
+    public final float[] m;
+
+    /**
+     * Creates a new matrix
+     */
+    public Matrix3f()
+    {
+        m = new float[LENGTH];
+    }
+
+    /**
+     * Gets a value in the matrix
+     * @param row the row
+     * @param col the column
+     * @return the value
+     */
+    public float get(int row, int col)
+    {
+    	return m[row * SIZE + col];
+    }
+
+    /**
+     * Sets a value in the matrix
+     * @param row the row
+     * @param col the column
+     * @param value the value
+     */
+    public void set(int row, int col, float value)
+    {
+    	m[row * SIZE + col] = value;
+    }
+
+    /**
+     * Copies another matrix into this one
+     * @param other the matrix to copy
+     * @return this matrix
+     */
+    public Matrix3f set(Matrix3f other)
+    {
+    	System.arraycopy(other.m, 0, m, 0, LENGTH);
+    	return this;
+    }
+
+    /**
+     * Initializes the matrix as the identity matrix
+     * @return this matrix
+     */
+    public Matrix3f initIdentity()
+    {
+    	m[0] = 1; m[1] = 0; m[2] = 0;
+    	m[3] = 0; m[4] = 1; m[5] = 0;
+    	m[6] = 0; m[7] = 0; m[8] = 1;
+    	return this;
+    }
+
+    /**
+     * Initializes the matrix as the normal matrix of a transformation,
+     * the inverse transpose of its upper 3x3
+     *
+     * If the transformation can't be inverted its upper 3x3 is used as is
+     * @param transform the transformation
+     * @return this matrix
+     */
+    public Matrix3f initNormalMatrix(Matrix4f transform)
+    {
+    	float[] t = transform.m;
+    	float a = t[0], b = t[1], c = t[2];
+    	float d = t[4], e = t[5], f = t[6];
+    	float g = t[8], h = t[9], i = t[10];
+
+    	//The cofactors, the inverse transpose is these divided by the determinant
+    	float c00 = e * i - f * h; float c01 = f * g - d * i; float c02 = d * h - e * g;
+    	float c10 = c * h - b * i; float c11 = a * i - c * g; float c12 = b * g - a * h;
+    	float c20 = b * f - c * e; float c21 = c * d - a * f; float c22 = a * e - b * d;
+
+    	float det = a * c00 + b * c01 + c * c02;
+
+    	if (det == 0)
+    	{
+    		m[0] = a; m[1] = b; m[2] = c;
+    		m[3] = d; m[4] = e; m[5] = f;
+    		m[6] = g; m[7] = h; m[8] = i;
+    		return this;
+    	}
+
+    	float invDet = 1 / det;
+
+    	m[0] = c00 * invDet; m[1] = c01 * invDet; m[2] = c02 * invDet;
+    	m[3] = c10 * invDet; m[4] = c11 * invDet; m[5] = c12 * invDet;
+    	m[6] = c20 * invDet; m[7] = c21 * invDet; m[8] = c22 * invDet;
+    	return this;
+    }
+
+    /**
+     * Writes the matrix into a buffer in one bulk put and flips it so it is ready for openGL
+     * @param buffer the buffer, cleared before writing
+     * @return the buffer
+     */
+    public FloatBuffer store(FloatBuffer buffer)
+    {
+    	buffer.clear();
+    	buffer.put(m);
+    	buffer.flip();
+    	return buffer;
+    }
+
+    @Override
+    public String toString()
+    {
+    	String res = "";
+    	for (int i = 0; i < SIZE; i++)
+    	{
+    		for (int j = 0; j < SIZE; j++)
+    		{
+    			res += m[i * SIZE + j];
+    		}
+
+    		res += '\n';
+    	}
+
+    	return res;
+    }
+
+    @Override
+    public Matrix3f clone()
+    {
+    	return new Matrix3f().set(this);
+    }
+
+}
@@ -1,205 +1,342 @@
-package net.engine.matrix;
-
-import net.engine.math.Vector3f;
-
-
-/**
- * A 4x4 matrix
- * @author Davis
- */
-public class Matrix4f implements Cloneable
-{
-    
-    public static final int SIZE = 4;
-    
-    public float[] [] matrix;
-    
-    /**
-     * Creates a new matrix
-     */
-    public Matrix4f()
-    {
-        matrix = new float[SIZE] [SIZE];
-    }
-    
-    /**
-     * Initializes the matrix as the identity matrix
-     */
-    public void initIdentity()
-    {
-        matrix[0] [0] = 1; matrix[0] [1] = 0; matrix[0] [2] = 0; matrix[0] [3] = 0;
-        matrix[1] [0] = 0; matrix[1] [1] = 1; matrix[1] [2] = 0; matrix[1] [3] = 0;
-        matrix[2] [0] = 0; matrix[2] [1] = 0; matrix[2] [2] = 1; matrix[2] [3] = 0;
-        matrix[3] [0] = 0; matrix[3] [1] = 0; matrix[3] [2] = 0; matrix[3] [3] = 1;
-    }
-    
-    /**
-     * Initializes the matrix as a translation
-     * @param x the x coord of the translate vector
-     * @param y the y coord of the translate vector
-     * @param z the z coord of the translate vector
-     */
-    public void initTranslation(float x, float y, float z)
-    {
-    	matrix[0] [0] = 1; matrix[0] [1] = 0; matrix[0] [2] = 0; matrix[0] [3] = x;
-        matrix[1] [0] = 0; matrix[1] [1] = 1; matrix[1] [2] = 0; matrix[1] [3] = y;
-        matrix[2] [0] = 0; matrix[2] [1] = 0; matrix[2] [2] = 1; matrix[2] [3] = z;
-        matrix[3] [0] = 0; matrix[3] [1] = 0; matrix[3] [2] = 0; matrix[3] [3] = 1;
-    }
-    
-    /**
-     * Initializes the matrix as a rotation
-     * @param x the x coord of the rotate vector
-     * @param y the y coord of the rotate vector
-     * @param z the z coord of the rotate vector
-     */
-    public void initRotation(float x, float y, float z)
-    {
-    	Matrix4f rx = new Matrix4f();
-    	Matrix4f ry = new Matrix4f();
-    	Matrix4f rz = new Matrix4f();
-    	
-    	rx.matrix[0] [0] = 1; rx.matrix[0] [1] = 0; 				  rx.matrix[0] [2] = 0; 				   rx.matrix[0] [3] = 0;
-    	rx.matrix[1] [0] = 0; rx.matrix[1] [1] = (float) Math.cos(x); rx.matrix[1] [2] = (float) -Math.sin(x); rx.matrix[1] [3] = 0;
-    	rx.matrix[2] [0] = 0; rx.matrix[2] [1] = (float) Math.sin(x); rx.matrix[2] [2] = (float) Math.cos(x);  rx.matrix[2] [3] = 0;
-    	rx.matrix[3] [0] = 0; rx.matrix[3] [1] = 0; 				  rx.matrix[3] [2] = 0; 				   rx.matrix[3] [3] = 1;
-    	
-    	ry.matrix[0] [0] = (float) Math.cos(y); ry.matrix[0] [1] = 0; ry.matrix[0] [2] = (float) -Math.sin(y); ry.matrix[0] [3] = 0;
-    	ry.matrix[1] [0] = 0; 					ry.matrix[1] [1] = 1; ry.matrix[1] [2] = 0; 				   ry.matrix[1] [3] = 0;
-    	ry.matrix[2] [0] = (float) Math.sin(y); ry.matrix[2] [1] = 0; ry.matrix[2] [2] = (float) Math.cos(y);  ry.matrix[2] [3] = 0;
-    	ry.matrix[3] [0] = 0; 					ry.matrix[3] [1] = 0; ry.matrix[3] [2] = 0; 				   ry.matrix[3] [3] = 1;
-    	
-    	rz.matrix[0] [0] = (float) Math.cos(z); rz.matrix[0] [1] = (float) -Math.sin(z); rz.matrix[0] [2] = 0; rz.matrix[0] [3] = 0;
-    	rz.matrix[1] [0] = (float) Math.sin(z); rz.matrix[1] [1] = (float) Math.cos(z);  rz.matrix[1] [2] = 0; rz.matrix[1] [3] = 0;
-    	rz.matrix[2] [0] = 0; 					rz.matrix[2] [1] = 0; 					 rz.matrix[2] [2] = 1; rz.matrix[2] [3] = 0;
-    	rz.matrix[3] [0] = 0; 					rz.matrix[3] [1] = 0; 					 rz.matrix[3] [2] = 0; rz.matrix[3] [3] = 1;
-    	
-    	matrix = rz.mul(ry.mul(rx)).matrix;
-    }
-    
-    /**
-     * Initializes the matrix as a scaling
-     * @param x the x coord of the scale vector
-     * @param y the y coord of the scale vector
-     * @param z the z coord of the scale vector
-     */
-    public void initScale(float x, float y, float z)
-    {
-    	matrix[0] [0] = x; matrix[0] [1] = 0; matrix[0] [2] = 0; matrix[0] [3] = 0;
-        matrix[1] [0] = 0; matrix[1] [1] = y; matrix[1] [2] = 0; matrix[1] [3] = 0;
-        matrix[2] [0] = 0; matrix[2] [1] = 0; matrix[2] [2] = z; matrix[2] [3] = 0;
-        matrix[3] [0] = 0; matrix[3] [1] = 0; matrix[3] [2] = 0; matrix[3] [3] = 1;
-    }
-    
-    /**
-     * Initializes the matrix for projection
-     * @param fov the field of view
-     * @param width the width
-     * @param height the height
-     * @param zNear the near clipping
-     * @param zFar the far clipping
-     */
-    public void initProjection(float fov, float width, float height, float zNear, float zFar)
-    {
-    	float tanHalfFOV = (float) Math.tan(fov / 2);
-    	float aspectRatio = width / height;
-    	float zRange = zNear - zFar;
-    	
-    	matrix[0] [0] = 1 / (tanHalfFOV * aspectRatio); matrix[0] [1] = 0;				matrix[0] [2] = 0; 						  matrix[0] [3] = 0;
-        matrix[1] [0] = 0; 								matrix[1] [1] = 1 / tanHalfFOV; matrix[1] [2] = 0; 						  matrix[1] [3] = 0;
-        matrix[2] [0] = 0; 								matrix[2] [1] = 0; 				matrix[2] [2] = (-zNear - zFar) / zRange; matrix[2] [3] = 2 * zFar * zNear / zRange;
-        matrix[3] [0] = 0; 								matrix[3] [1] = 0; 				matrix[3] [2] = 1; 						  matrix[3] [3] = 0;
-    }
-    
-    /**
-     * Creates an orthogonal projection
-     * @param width the width
-     * @param height the height
-     * @param zNear the near clipping
-     * @param zFar the far clipping
-     */
-    /*public void initOrthographic(float right, float left, float top, float bottom, float zNear, float zFar)
-    {
-    	matrix[0] [0] = -2 / (right - left); matrix[0] [1] = 0; 					 matrix[0] [2] = 0; 					matrix[0] [3] = 0;
-        matrix[1] [0] = 0; 		   		    matrix[1] [1] = -2 / (top - bottom); matrix[1] [2] = 0; 					matrix[1] [3] = 0;
-        matrix[2] [0] = 0; 		   			matrix[2] [1] = 0; 					 matrix[2] [2] = 2 / (zFar - zNear); 	matrix[2] [3] = 0;
-        matrix[3] [0] = 0; 								matrix[3] [1] = 0; 				matrix[3] [2] = 0; 						  matrix[3] [3] = 1;
-    }*/
-    
-    /**
-     * Initializes the matrix for camera changes
-     * @param forward the forward direction
-     * @param up the up direction
-     */
-    public void initCamera(Vector3f forward, Vector3f up)
-    {
-    	Vector3f f = forward;
-    	f = f.normal();
-    	
-    	Vector3f r = up;
-    	r = r.normal();
-    	r = r.cross(f);
-    	
-    	Vector3f u = f.cross(r);
-    	
-    	matrix[0] [0] = r.x; matrix[0] [1] = r.y; matrix[0] [2] = r.z; matrix[0] [3] = 0;
-        matrix[1] [0] = u.x; matrix[1] [1] = u.y; matrix[1] [2] = u.z; matrix[1] [3] = 0;
-        matrix[2] [0] = f.x; matrix[2] [1] = f.y; matrix[2] [2] = f.z; matrix[2] [3] = 0;
-        matrix[3] [0] = 0; matrix[3] [1] = 0; matrix[3] [2] = 0; matrix[3] [3] = 1;
-    }
-    
-    @Override
-    public String toString()
-    {
-    	String res = "";
-    	for (int i = 0; i < matrix.length; i++)
-    	{
-    		for (int j = 0; j < matrix[i].length; j++)
-    		{
-    			res += matrix[i] [j];
-    		}
-    		
-    		res += '\n';
-    	}
-    	
-    	return res;
-    }
-    
-    @Override
-    public Matrix4f clone()
-    {
-    	Matrix4f toReturn = new Matrix4f();
-    	for (int i = 0; i < matrix.length; i++)
-    	{
-    		for (int j = 0; j < matrix[i].length; j++)
-    		{
-    			toReturn.matrix[i] [j] = matrix[i] [j];
-    		}
-    	}
-    	return toReturn;
-    }
-    
-    /**
-     * Multiples this matrix with another
-     * @param other the other
-     * @return the resulting matrix
-     */
-    public Matrix4f mul(Matrix4f other)
-    {
-        Matrix4f result = new Matrix4f();
-        
-        for (int i = 0; i < SIZE; i++)
-        {
-            for (int j = 0; j < SIZE; j++)
-            {
-                result.matrix[i] [j] = matrix[i] [0] * other.matrix[0] [j] +
-                                       matrix[i] [1] * other.matrix[1] [j] +
-                                       matrix[i] [2] * other.matrix[2] [j] +
-                                       matrix[i] [3] * other.matrix[3] [j];
-            }
-        }
-        
-        return result;
-    }
-    
-}
+package net.engine.matrix;
+
+import java.nio.FloatBuffer;
+
+import net.engine.math.Quaternion;
+import net.engine.math.Vector3f;
+
+
+/**
+ * A 4x4 matrix
+ *
+ * The values are stored in a single flat array in row-major order so the element
+ * at row i and column j is m[i * SIZE + j]. All of the init and mul*Local methods
+ * write into the existing instance so no garbage is created.
+ * @author Davis
+ */
+public class Matrix4f implements Cloneable
+{
+
+    public static final int SIZE = 4;
+
+    public static final int LENGTH = SIZE * SIZE;
+
+    public final float[] m;
+
+    /**
+     * Creates a new matrix
+     */
+    public Matrix4f()
+    {
+        m = new float[LENGTH];
+    }
+
+    /**
+     * Gets a value in the matrix
+     * @param row the row
+     * @param col the column
+     * @return the value
+     */
+    public float get(int row, int col)
+    {
+    	return m[row * SIZE + col];
+    }
+
+    /**
+     * Sets a value in the matrix
+     * @param row the row
+     * @param col the column
+     * @param value the value
+     */
+    public void set(int row, int col, float value)
+    {
+    	m[row * SIZE + col] = value;
+    }
+
+    /**
+     * Copies another matrix into this one
+     * @param other the matrix to copy
+     * @return this matrix
+     */
+    public Matrix4f set(Matrix4f other)
+    {
+    	System.arraycopy(other.m, 0, m, 0, LENGTH);
+    	return this;
+    }
+
+    /**
+     * Initializes the matrix as the identity matrix
+     * @return this matrix
+     */
+    public Matrix4f initIdentity()
+    {
+        m[0] = 1;  m[1] = 0;  m[2] = 0;  m[3] = 0;
+        m[4] = 0;  m[5] = 1;  m[6] = 0;  m[7] = 0;
+        m[8] = 0;  m[9] = 0;  m[10] = 1; m[11] = 0;
+        m[12] = 0; m[13] = 0; m[14] = 0; m[15] = 1;
+        return this;
+    }
+
+    /**
+     * Initializes the matrix as a translation
+     * @param x the x coord of the translate vector
+     * @param y the y coord of the translate vector
+     * @param z the z coord of the translate vector
+     * @return this matrix
+     */
+    public Matrix4f initTranslation(float x, float y, float z)
+    {
+    	m[0] = 1;  m[1] = 0;  m[2] = 0;  m[3] = x;
+        m[4] = 0;  m[5] = 1;  m[6] = 0;  m[7] = y;
+        m[8] = 0;  m[9] = 0;  m[10] = 1; m[11] = z;
+        m[12] = 0; m[13] = 0; m[14] = 0; m[15] = 1;
+        return this;
+    }
+
+    /**
+     * Initializes the matrix as a rotation
+     *
+     * This is the product rz * ry * rx of the rotations around each axis written out
+     * directly so no temporary matrices are needed
+     * @param x the x coord of the rotate vector
+     * @param y the y coord of the rotate vector
+     * @param z the z coord of the rotate vector
+     * @return this matrix
+     */
+    public Matrix4f initRotation(float x, float y, float z)
+    {
+    	float cx = (float) Math.cos(x); float sx = (float) Math.sin(x);
+    	float cy = (float) Math.cos(y); float sy = (float) Math.sin(y);
+    	float cz = (float) Math.cos(z); float sz = (float) Math.sin(z);
+
+    	m[0] = cz * cy; m[1] = -cz * sy * sx - sz * cx; m[2] = -cz * sy * cx + sz * sx;  m[3] = 0;
+    	m[4] = sz * cy; m[5] = -sz * sy * sx + cz * cx; m[6] = -sz * sy * cx - cz * sx;  m[7] = 0;
+    	m[8] = sy;      m[9] = cy * sx;                 m[10] = cy * cx;                 m[11] = 0;
+    	m[12] = 0;      m[13] = 0;                      m[14] = 0;                       m[15] = 1;
+    	return this;
+    }
+
+    /**
+     * Initializes the matrix as the rotation of a quaternion
+     *
+     * This takes no trig and far fewer multiplies than building it from euler angles
+     * @param rotation the quaternion, must be normalized
+     * @return this matrix
+     */
+    public Matrix4f initRotation(Quaternion rotation)
+    {
+    	return rotation.toRotationMatrix(this);
+    }
+
+    /**
+     * Initializes the matrix as translation * rotation * scale
+     *
+     * The product is written out directly so it costs no more than copying the rotation
+     * @param tx the x coord of the translate vector
+     * @param ty the y coord of the translate vector
+     * @param tz the z coord of the translate vector
+     * @param rotation the rotation, only its upper 3x3 is used
+     * @param sx the x coord of the scale vector
+     * @param sy the y coord of the scale vector
+     * @param sz the z coord of the scale vector
+     * @return this matrix
+     */
+    public Matrix4f initTransformation(float tx, float ty, float tz, Matrix4f rotation, float sx, float sy, float sz)
+    {
+    	float[] r = rotation.m;
+
+    	float r00 = r[0], r01 = r[1], r02 = r[2];
+    	float r10 = r[4], r11 = r[5], r12 = r[6];
+    	float r20 = r[8], r21 = r[9], r22 = r[10];
+
+    	m[0] = r00 * sx; m[1] = r01 * sy;  m[2] = r02 * sz;  m[3] = tx;
+    	m[4] = r10 * sx; m[5] = r11 * sy;  m[6] = r12 * sz;  m[7] = ty;
+    	m[8] = r20 * sx; m[9] = r21 * sy;  m[10] = r22 * sz; m[11] = tz;
+    	m[12] = 0;       m[13] = 0;        m[14] = 0;        m[15] = 1;
+    	return this;
+    }
+
+    /**
+     * Initializes the matrix as a scaling
+     * @param x the x coord of the scale vector
+     * @param y the y coord of the scale vector
+     * @param z the z coord of the scale vector
+     * @return this matrix
+     */
+    public Matrix4f initScale(float x, float y, float z)
+    {
+    	m[0] = x;  m[1] = 0;  m[2] = 0;  m[3] = 0;
+        m[4] = 0;  m[5] = y;  m[6] = 0;  m[7] = 0;
+        m[8] = 0;  m[9] = 0;  m[10] = z; m[11] = 0;
+        m[12] = 0; m[13] = 0; m[14] = 0; m[15] = 1;
+        return this;
+    }
+
+    /**
+     * Initializes the matrix for projection
+     * @param fov the field of view
+     * @param width the width
+     * @param height the height
+     * @param zNear the near clipping
+     * @param zFar the far clipping
+     * @return this matrix
+     */
+    public Matrix4f initProjection(float fov, float width, float height, float zNear, float zFar)
+    {
+    	float tanHalfFOV = (float) Math.tan(fov / 2);
+    	float aspectRatio = width / height;
+    	float zRange = zNear - zFar;
+
+    	m[0] = 1 / (tanHalfFOV * aspectRatio); m[1] = 0;               m[2] = 0;                         m[3] = 0;
+        m[4] = 0;                              m[5] = 1 / tanHalfFOV;  m[6] = 0;                         m[7] = 0;
+        m[8] = 0;                              m[9] = 0;               m[10] = (-zNear - zFar) / zRange; m[11] = 2 * zFar * zNear / zRange;
+        m[12] = 0;                             m[13] = 0;              m[14] = 1;                        m[15] = 0;
+        return this;
+    }
+
+    /**
+     * Creates an orthogonal projection
+     * @param width the width
+     * @param height the height
+     * @param zNear the near clipping
+     * @param zFar the far clipping
+     */
+    /*public void initOrthographic(float right, float left, float top, float bottom, float zNear, float zFar)
+    {
+    	matrix[0] [0] = -2 / (right - left); matrix[0] [1] = 0; 					 matrix[0] [2] = 0; 					matrix[0] [3] = 0;
+        matrix[1] [0] = 0; 		   		    matrix[1] [1] = -2 / (top - bottom); matrix[1] [2] = 0; 					matrix[1] [3] = 0;
+        matrix[2] [0] = 0; 		   			matrix[2] [1] = 0; 					 matrix[2] [2] = 2 / (zFar - zNear); 	matrix[2] [3] = 0;
+        matrix[3] [0] = 0; 								matrix[3] [1] = 0; 				matrix[3] [2] = 0; 						  matrix[3] [3] = 1;
+    }*/
+    
+    /**
+     * Initializes the matrix for camera changes
+     * @param forward the forward direction
+     * @param up the up direction
+     * @return this matrix
+     */
+    public Matrix4f initCamera(Vector3f forward, Vector3f up)
+    {
+    	//Worked out on plain floats so that no vectors are created
+    	float fL = 1 / forward.length();
+    	float fx = forward.x * fL, fy = forward.y * fL, fz = forward.z * fL;
+
+    	float uL = 1 / up.length();
+    	float ux = up.x * uL, uy = up.y * uL, uz = up.z * uL;
+
+    	//r = normal(up) x f
+    	float rx = uy * fz - uz * fy;
+    	float ry = uz * fx - ux * fz;
+    	float rz = ux * fy - uy * fx;
+
+    	//u = f x r
+    	ux = fy * rz - fz * ry;
+    	uy = fz * rx - fx * rz;
+    	uz = fx * ry - fy * rx;
+
+    	m[0] = rx;  m[1] = ry;  m[2] = rz;  m[3] = 0;
+        m[4] = ux;  m[5] = uy;  m[6] = uz;  m[7] = 0;
+        m[8] = fx;  m[9] = fy;  m[10] = fz; m[11] = 0;
+        m[12] = 0;  m[13] = 0;  m[14] = 0;  m[15] = 1;
+        return this;
+    }
+
+    /**
+     * Writes the matrix into a buffer in one bulk put and flips it so it is ready for openGL
+     * @param buffer the buffer, cleared before writing
+     * @return the buffer
+     */
+    public FloatBuffer store(FloatBuffer buffer)
+    {
+    	buffer.clear();
+    	buffer.put(m);
+    	buffer.flip();
+    	return buffer;
+    }
+
+    @Override
+    public String toString()
+    {
+    	String res = "";
+    	for (int i = 0; i < SIZE; i++)
+    	{
+    		for (int j = 0; j < SIZE; j++)
+    		{
+    			res += m[i * SIZE + j];
+    		}
+
+    		res += '\n';
+    	}
+
+    	return res;
+    }
+
+    @Override
+    public Matrix4f clone()
+    {
+    	return new Matrix4f().set(this);
+    }
+
+    /**
+     * Multiples this matrix with another
+     * @param other the other
+     * @return the resulting matrix
+     */
+    public Matrix4f mul(Matrix4f other)
+    {
+        return mulInto(other, new Matrix4f());
+    }
+
+    /**
+     * Multiplies this matrix with another and stores the result in this matrix
+     * @param other the other
+     * @return this matrix
+     */
+    public Matrix4f mulLocal(Matrix4f other)
+    {
+    	return mulInto(other, this);
+    }
+
+    /**
+     * Multiplies this matrix with another and stores the result in dest
+     *
+     * dest may be this matrix or other
+     * @param other the other
+     * @param dest the matrix to store the result in
+     * @return dest
+     */
+    public Matrix4f mulInto(Matrix4f other, Matrix4f dest)
+    {
+    	float[] a = m;
+    	float[] b = other.m;
+
+    	float r00 = a[0] * b[0] + a[1] * b[4] + a[2] * b[8] + a[3] * b[12];
+    	float r01 = a[0] * b[1] + a[1] * b[5] + a[2] * b[9] + a[3] * b[13];
+    	float r02 = a[0] * b[2] + a[1] * b[6] + a[2] * b[10] + a[3] * b[14];
+    	float r03 = a[0] * b[3] + a[1] * b[7] + a[2] * b[11] + a[3] * b[15];
+
+    	float r10 = a[4] * b[0] + a[5] * b[4] + a[6] * b[8] + a[7] * b[12];
+    	float r11 = a[4] * b[1] + a[5] * b[5] + a[6] * b[9] + a[7] * b[13];
+    	float r12 = a[4] * b[2] + a[5] * b[6] + a[6] * b[10] + a[7] * b[14];
+    	float r13 = a[4] * b[3] + a[5] * b[7] + a[6] * b[11] + a[7] * b[15];
+
+    	float r20 = a[8] * b[0] + a[9] * b[4] + a[10] * b[8] + a[11] * b[12];
+    	float r21 = a[8] * b[1] + a[9] * b[5] + a[10] * b[9] + a[11] * b[13];
+    	float r22 = a[8] * b[2] + a[9] * b[6] + a[10] * b[10] + a[11] * b[14];
+    	float r23 = a[8] * b[3] + a[9] * b[7] + a[10] * b[11] + a[11] * b[15];
+
+    	float r30 = a[12] * b[0] + a[13] * b[4] + a[14] * b[8] + a[15] * b[12];
+    	float r31 = a[12] * b[1] + a[13] * b[5] + a[14] * b[9] + a[15] * b[13];
+    	float r32 = a[12] * b[2] + a[13] * b[6] + a[14] * b[10] + a[15] * b[14];
+    	float r33 = a[12] * b[3] + a[13] * b[7] + a[14] * b[11] + a[15] * b[15];
+
+    	float[] d = dest.m;
+    	d[0] = r00;  d[1] = r01;  d[2] = r02;  d[3] = r03;
+    	d[4] = r10;  d[5] = r11;  d[6] = r12;  d[7] = r13;
+    	d[8] = r20;  d[9] = r21;  d[10] = r22; d[11] = r23;
+    	d[12] = r30; d[13] = r31; d[14] = r32; d[15] = r33;
+
+    	return dest;
+    }
+
+}
@@ -1,114 +1,189 @@
-package net.engine.matrix;
-
-/**
- * A matrix stack used for positioning objects in openGL
- * @author Davis Cook
- *
- */
-public class MatrixStack
-{
-    
-    private static Matrix4f ignoreTranslation(Matrix4f matrix)
-    {
-        Matrix4f toReturn = matrix;
-        
-        matrix.matrix[0] [3] = 0;
-        matrix.matrix[1] [3] = 0;
-        matrix.matrix[2] [3] = 0;
-        matrix.matrix[3] [3] = 1;
-        matrix.matrix[3] [0] = 0;
-        matrix.matrix[3] [1] = 0;
-        matrix.matrix[3] [2] = 0;
-        
-        return toReturn;
-    }
-    
-    private Matrix4f[] stack;
-    
-    private int topOfStack = -1; //The top of the stack
-
-    /**
-     * Creates a new matrix stack
-     * @param maxSize the maximum amount of matrices that can be on the stack at one time
-     */
-    public MatrixStack(int maxSize)
-    {
-        stack = new Matrix4f[maxSize];
-    }
-    
-    /**
-     * Pushes a matrix onto the stack
-     * @param toPush the matrix to push
-     */
-    public void pushMatrix(Matrix4f toPush)
-    {
-    	topOfStack++;
-        stack[topOfStack] = toPush;
-    }
-    
-    /**
-     * Pops the top matrix off the stack
-     * @return the matrix popped off
-     */
-    public Matrix4f popMatrix()
-    {
-        Matrix4f toReturn = stack[topOfStack]; //Get the matrix
-        stack[topOfStack] = null; //Remove the matrix
-        topOfStack--;
-        
-        return toReturn;
-    }
-    
-    /**
-     * Gets the transformation to apply
-     * @return the transformation, null if there are no matrices in the stack
-     */
-    public Matrix4f getTransform()
-    {
-        if (topOfStack < 0)
-        {
-            return null;
-        }
-        
-        Matrix4f transform = stack[0].clone();
-        
-        loop:
-        for (int i = 1; i < stack.length; i++)
-        {
-        	if (stack[i] == null)
-        	{
-        		break loop;
-        	}
-            transform = transform.mul(stack[i]);
-        }
-        
-        return transform;
-    }
-    
-    /**
-     * Gets the rotation to apply
-     * @return the rotation
-     */
-    public Matrix4f getRotation()
-    {
-        if (topOfStack < 0)
-        {
-            return null;
-        }
-        
-        Matrix4f rotate = ignoreTranslation(stack[0].clone());
-        
-        loop:
-        for (int i = 1; i < stack.length; i++)
-        {
-        	if (stack[i] == null)
-        	{
-        		break loop;
-        	}
-            rotate.mul(ignoreTranslation(stack[i].clone()));
-        }
-        
-        return rotate;
-    }
-    
-}
+package net.engine.matrix;
+
+/**
+ * A matrix stack used for positioning objects in openGL
+ *
+ * Each level stores the product of every matrix pushed so far so reading the
+ * transformation is a lookup of the top of the stack. The matrices for each level
+ * are allocated once when the stack is created and reused by every push.
+ * The normal matrix of each level is calculated the first time it is asked for
+ * and shared by everything drawn at that level.
+ * @author Davis Cook
+ *
+ */
+public class MatrixStack
+{
+
+    /**
+     * Copies the rotation part of a matrix into another, ignoring its translation
+     * @param matrix the matrix to copy from
+     * @param dest the matrix to copy into
+     * @return dest
+     */
+    private static Matrix4f ignoreTranslation(Matrix4f matrix, Matrix4f dest)
+    {
+        dest.set(matrix);
+
+        dest.set(0, 3, 0);
+        dest.set(1, 3, 0);
+        dest.set(2, 3, 0);
+        dest.set(3, 3, 1);
+        dest.set(3, 0, 0);
+        dest.set(3, 1, 0);
+        dest.set(3, 2, 0);
+
+        return dest;
+    }
+
+    private Matrix4f[] stack; //The matrices as they were pushed
+
+    private Matrix4f[] transforms; //The accumulated transformation at each level
+
+    private Matrix4f[] rotations; //The accumulated rotation at each level
+
+    private boolean[] rotationValid; //If the rotation at a level has been calculated
+
+    private Matrix3f[] normals; //The normal matrix at each level
+
+    private boolean[] normalValid; //If the normal matrix at a level has been calculated
+
+    private Matrix4f scratch; //Used to strip the translation from a pushed matrix
+
+    private int topOfStack = -1; //The top of the stack
+
+    /**
+     * Creates a new matrix stack
+     * @param maxSize the maximum amount of matrices that can be on the stack at one time
+     */
+    public MatrixStack(int maxSize)
+    {
+        stack = new Matrix4f[maxSize];
+        transforms = new Matrix4f[maxSize];
+        rotations = new Matrix4f[maxSize];
+        rotationValid = new boolean[maxSize];
+        normals = new Matrix3f[maxSize];
+        normalValid = new boolean[maxSize];
+        scratch = new Matrix4f();
+
+        for (int i = 0; i < maxSize; i++)
+        {
+        	transforms[i] = new Matrix4f();
+        	rotations[i] = new Matrix4f();
+        	normals[i] = new Matrix3f();
+        }
+    }
+
+    /**
+     * Pushes a matrix onto the stack
+     * @param toPush the matrix to push
+     */
+    public void pushMatrix(Matrix4f toPush)
+    {
+    	topOfStack++;
+        stack[topOfStack] = toPush;
+
+        if (topOfStack == 0)
+        {
+        	transforms[topOfStack].set(toPush);
+        }
+        else
+        {
+        	transforms[topOfStack - 1].mulInto(toPush, transforms[topOfStack]);
+        }
+
+        rotationValid[topOfStack] = false; //The rotation and normal matrix are only calculated if they are asked for
+        normalValid[topOfStack] = false;
+    }
+
+    /**
+     * Pops the top matrix off the stack
+     * @return the matrix popped off
+     */
+    public Matrix4f popMatrix()
+    {
+        Matrix4f toReturn = stack[topOfStack]; //Get the matrix
+        stack[topOfStack] = null; //Remove the matrix
+        topOfStack--;
+
+        return toReturn;
+    }
+
+    /**
+     * Gets the transformation to apply
+     *
+     * The matrix belongs to the stack and is overwritten by the next push to this level
+     * @return the transformation, null if there are no matrices in the stack
+     */
+    public Matrix4f getTransform()
+    {
+        if (topOfStack < 0)
+        {
+            return null;
+        }
+
+        return transforms[topOfStack];
+    }
+
+    /**
+     * Gets the rotation to apply
+     *
+     * The matrix belongs to the stack and is overwritten by the next push to this level
+     * @return the rotation, null if there are no matrices in the stack
+     */
+    public Matrix4f getRotation()
+    {
+        if (topOfStack < 0)
+        {
+            return null;
+        }
+
+        return getRotation(topOfStack);
+    }
+
+    /**
+     * Gets the matrix that transforms normals, the inverse transpose of the transformation
+     *
+     * The matrix belongs to the stack and is overwritten by the next push to this level
+     * @return the normal matrix, null if there are no matrices in the stack
+     */
+    public Matrix3f getNormalMatrix()
+    {
+    	if (topOfStack < 0)
+    	{
+    		return null;
+    	}
+
+    	if (!normalValid[topOfStack])
+    	{
+    		normals[topOfStack].initNormalMatrix(transforms[topOfStack]);
+    		normalValid[topOfStack] = true;
+    	}
+
+    	return normals[topOfStack];
+    }
+
+    /**
+     * Gets the accumulated rotation at a level, calculating it and any levels below it that are missing
+     * @param level the level
+     * @return the rotation at that level
+     */
+    private Matrix4f getRotation(int level)
+    {
+    	if (!rotationValid[level])
+    	{
+    		if (level == 0)
+    		{
+    			ignoreTranslation(stack[0], rotations[0]);
+    		}
+    		else
+    		{
+    			getRotation(level - 1).mulInto(ignoreTranslation(stack[level], scratch), rotations[level]);
+    		}
+
+    		rotationValid[level] = true;
+    	}
+
+    	return rotations[level];
+    }
+
+}
@@ -1,51 +1,71 @@
-package net.engine.model;
-
-import java.util.HashMap;
-
-import net.engine.matrix.MatrixStack;
-import net.engine.render.Material;
-import net.engine.transform.Orientation;
-
-/**
- * It is an instance of a model in the world
- * @author Davis
- *
- */
-public abstract class Model
-{
-	
-	public HashMap<String, Integer> flags; //Flags that can be set to determine properties
-	
-	public Orientation modelMatrix; //The model matrix
-	
-	public Material material; //The material this texture uses
-	
-	/**
-	 * Creates a new model
-	 * @param material the material this model is rendered with
-	 */
-	public Model(Material material)
-	{
-		this(new HashMap<String, Integer>(), new Orientation(), material);
-	}
-	
-	/**
-	 * Creates a new model
-	 * @param flags the model's properties
-	 * @param modelMatrix the modelMatrix to start with
-	 * @param material the material this model is rendered with
-	 */
-	public Model(HashMap<String, Integer> flags, Orientation modelMatrix, Material material)
-	{
-		this.flags = flags;
-		this.modelMatrix = modelMatrix;
-		this.material = material;
-	}
-	
-	/**
-	 * Renders the file
-	 * @param stack the matrix stack
-	 */
-	public abstract void render(MatrixStack stack);
-	
-}
+package net.engine.model;
+
+import java.util.HashMap;
+
+import net.engine.math.BoundingBox;
+import net.engine.matrix.MatrixStack;
+import net.engine.render.Material;
+import net.engine.transform.Orientation;
+
+/**
+ * It is an instance of a model in the world
+ * @author Davis
+ *
+ */
+public abstract class Model
+{
+	
+	public HashMap<String, Integer> flags; //Flags that can be set to determine properties
+	
+	public Orientation modelMatrix; //The model matrix
+	
+	public Material material; //The material this texture uses
+	
+	/**
+	 * Creates a new model
+	 * @param material the material this model is rendered with
+	 */
+	public Model(Material material)
+	{
+		this(new HashMap<String, Integer>(), new Orientation(), material);
+	}
+	
+	/**
+	 * Creates a new model
+	 * @param flags the model's properties
+	 * @param modelMatrix the modelMatrix to start with
+	 * @param material the material this model is rendered with
+	 */
+	public Model(HashMap<String, Integer> flags, Orientation modelMatrix, Material material)
+	{
+		this.flags = flags;
+		this.modelMatrix = modelMatrix;
+		this.material = material;
+	}
+	
+	/**
+	 * Gets the box around the model in the space of whatever holds it, with its modelMatrix applied
+	 * @param dest the box to store the bounds in
+	 * @return false if the model has no bounds, in which case it is never culled
+	 */
+	public boolean getBounds(BoundingBox dest)
+	{
+		return false;
+	}
+	
+	/**
+	 * Counts the models that are drawn when this model is, used for the culling counts
+	 * @return the count
+	 */
+	public int getModelCount()
+	{
+		return 1;
+	}
+	
+	/**
+	 * Renders the file
+	 * @param stack the matrix stack
+	 */
+	public abstract void render(MatrixStack stack);
+	
+}
@@ -1,52 +1,207 @@
-package net.engine.model;
-
-import java.util.ArrayList;
-
-import net.engine.matrix.MatrixStack;
-import net.engine.render.Material;
-import net.engine.transform.Orientation;
-
-/**
- * A group of models that all share a modelMatrix (this is done for efficiency purposes)
- * @author Davis
- *
- */
-public class ModelGroup extends Model
-{
-
-	public ArrayList<Model> models;
-	
-	/**
-	 * Creates a new model group
-	 * @param material the material
-	 */
-	public ModelGroup(Material material)
-	{
-		this(new ArrayList<Model>(), new Orientation(), material);
-	}
-	
-	/**
-	 * Creates a model group with starting models and a non default orientation
-	 * @param models the models
-	 * @param modelMatrix the model matrix
-	 * @param material the material
-	 */
-	public ModelGroup(ArrayList<Model> models, Orientation modelMatrix, Material material)
-	{
-		super(material);
-		this.models = models;
-		this.modelMatrix = modelMatrix;
-	}
-
-	@Override
-	public void render(MatrixStack stack)
-	{
-		stack.pushMatrix(modelMatrix.getTransformationMatrix());
-		for (int i = 0; i < models.size(); i++)
-		{
-			models.get(i).render(stack);
-		}
-		stack.popMatrix();
-	}
-	
-}
+package net.engine.model;
+
+import java.util.ArrayList;
+
+import net.engine.core.Engine;
+import net.engine.math.BoundingBox;
+import net.engine.matrix.MatrixStack;
+import net.engine.render.Material;
+import net.engine.render.RenderStats;
+import net.engine.transform.Orientation;
+
+/**
+ * A group of models that all share a modelMatrix (this is done for efficiency purposes)
+ * 
+ * The whole group is skipped if the box around all of its models is off screen. That box is
+ * kept between frames and only found again once the models change: when one is added, removed,
+ * or replaced, when the version of a model's orientation changes, or when the box of a group
+ * inside this one is found again. Orientations count every change, even to their vectors in place,
+ * so nothing has to be told. If a model's bounds change some other way invalidateBounds() has to be called.
+ * @author Davis
+ *
+ */
+public class ModelGroup extends Model
+{
+
+	public ArrayList<Model> models;
+	
+	private BoundingBox bounds; //The box around the models in the group's space, kept until something moves
+	
+	private boolean boundsValid; //False once invalidateBounds() is called
+	
+	private boolean hasBounds; //If every model had bounds when bounds was found
+	
+	private int boundsVersion; //Counts up every time bounds is found again, so groups this is in can tell
+	
+	private Model[] boundsModels; //The models bounds was found from
+	
+	private long[] boundsStamps; //The orientation version of each of those models, with its own boundsVersion if it is a group
+	
+	private BoundingBox childBounds; //Reused for each model's box
+	
+	/**
+	 * Creates a new model group
+	 * @param material the material
+	 */
+	public ModelGroup(Material material)
+	{
+		this(new ArrayList<Model>(), new Orientation(), material);
+	}
+	
+	/**
+	 * Creates a model group with starting models and a non default orientation
+	 * @param models the models
+	 * @param modelMatrix the model matrix
+	 * @param material the material
+	 */
+	public ModelGroup(ArrayList<Model> models, Orientation modelMatrix, Material material)
+	{
+		super(material);
+		this.models = models;
+		this.modelMatrix = modelMatrix;
+		
+		bounds = new BoundingBox();
+		childBounds = new BoundingBox();
+		boundsModels = new Model[0];
+		boundsStamps = new long[0];
+	}
+	
+	/**
+	 * Makes the box around the models be found again the next time it is needed
+	 */
+	public void invalidateBounds()
+	{
+		boundsValid = false;
+	}
+	
+	/**
+	 * Gets what a model's box in this group's space was last found from
+	 * @param model the model
+	 * @return its orientation's version, and the version of its own box if it is a group
+	 */
+	private static long stamp(Model model)
+	{
+		long stamp = (long) model.modelMatrix.getVersion() << 32;
+		
+		if (model instanceof ModelGroup) //Its box changes without its orientation changing
+		{
+			ModelGroup group = (ModelGroup) model;
+			group.updateLocalBounds();
+			stamp |= group.boundsVersion & 0xFFFFFFFFL;
+		}
+		
+		return stamp;
+	}
+	
+	/**
+	 * Checks if any model has been added, removed, replaced, or changed since bounds was found
+	 * @return if one has
+	 */
+	private boolean modelsChanged()
+	{
+		if (boundsModels.length != models.size())
+		{
+			return true;
+		}
+		
+		for (int i = 0; i < boundsModels.length; i++)
+		{
+			Model model = models.get(i);
+			
+			if (boundsModels[i] != model || boundsStamps[i] != stamp(model))
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Finds the box around every model in the group's own space if it isn't already known
+	 * @return false if a model has no bounds
+	 */
+	private boolean updateLocalBounds()
+	{
+		if (boundsValid && !modelsChanged())
+		{
+			return hasBounds;
+		}
+		
+		if (boundsModels.length != models.size())
+		{
+			boundsModels = new Model[models.size()];
+			boundsStamps = new long[models.size()];
+		}
+		
+		bounds.clear();
+		hasBounds = true;
+		
+		for (int i = 0; i < models.size(); i++)
+		{
+			Model model = models.get(i);
+			boundsModels[i] = model;
+			boundsStamps[i] = stamp(model);
+			
+			if (hasBounds)
+			{
+				hasBounds = model.getBounds(childBounds);
+				
+				if (hasBounds)
+				{
+					bounds.include(childBounds);
+				}
+			}
+		}
+		
+		boundsValid = true;
+		boundsVersion++;
+		return hasBounds;
+	}
+	
+	@Override
+	public boolean getBounds(BoundingBox dest)
+	{
+		if (!updateLocalBounds())
+		{
+			return false;
+		}
+		
+		bounds.transform(modelMatrix.getTransformationMatrix(), dest);
+		return true;
+	}
+	
+	@Override
+	public int getModelCount()
+	{
+		int count = 0;
+		
+		for (int i = 0; i < models.size(); i++)
+		{
+			count += models.get(i).getModelCount();
+		}
+		
+		return count;
+	}
+
+	@Override
+	public void render(MatrixStack stack)
+	{
+		stack.pushMatrix(modelMatrix.getTransformationMatrix());
+		
+		if (updateLocalBounds() && !Engine.getInstance().isVisible(bounds, null)) //Skip every model in the group at once
+		{
+			RenderStats.modelsCulled(getModelCount());
+		}
+		else
+		{
+			for (int i = 0; i < models.size(); i++)
+			{
+				models.get(i).render(stack);
+			}
+		}
+		
+		stack.popMatrix();
+	}
+	
+}
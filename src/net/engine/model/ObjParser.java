@@ -0,0 +1,641 @@
+package net.engine.model;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import net.engine.util.FloatArray;
+import net.engine.util.IntArray;
+
+/**
+ * Reads the geometry out of an OBJ file
+ * 
+ * The file is memory mapped and its bytes are scanned directly. Numbers are parsed
+ * in place without making strings and everything is stored in primitive arrays so
+ * loading a model makes a handful of objects no matter how large it is.
+ * 
+ * Faces with more than three corners are split into a fan of triangles. Negative
+ * (relative) indices are resolved against the data read so far.
+ * 
+ * Large files are split into chunks at line ends and the chunks are parsed at the
+ * same time on a ForkJoinPool. A chunk doesn't know how much came before it, so its
+ * relative indices are kept relative to the chunk and fixed when the chunks are joined
+ * in file order.
+ * @author Davis
+ *
+ */
+public class ObjParser
+{
+	
+	public static final int CORNER_SIZE = 3; //Each corner of a face is a position, texture, and normal number
+	
+	public static final int MISSING = -1; //The number of a texture or normal a corner doesn't have
+	
+	public static final int PARALLEL_THRESHOLD = 1 << 22; //Files at least this many bytes are parsed in parallel
+	
+	public static final int CHUNK_SIZE = 1 << 20; //Parallel parsing doesn't split chunks smaller than this many bytes
+	
+	private static final ForkJoinPool POOL = new ForkJoinPool(); //Parses the chunks of large files, its threads are daemons so they don't keep the game running
+	
+	private static final int RELATIVE = Integer.MIN_VALUE / 2; //Added to relative indices in chunks so they can be told apart from absolute ones
+	
+	private static final double[] POWERS_OF_TEN = new double[23]; //Exact powers of ten for parsing floats
+	
+	static
+	{
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+		{
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+	
+	/**
+	 * The geometry read from an OBJ file
+	 * @author Davis
+	 *
+	 */
+	public static class ObjData
+	{
+		
+		public final FloatArray positions; //Three floats per position
+		
+		public final FloatArray texCoords; //Two floats per texture coordinate
+		
+		public final FloatArray normals; //Three floats per normal
+		
+		public final IntArray corners; //CORNER_SIZE numbers per triangle corner, starting at 0
+		
+		private boolean hasRelative; //If any corners are relative to the chunk they were read in
+		
+		/**
+		 * Creates new empty data sized for a file
+		 * @param fileSize the size of the file in bytes
+		 */
+		public ObjData(int fileSize)
+		{
+			int guess = fileSize / 32; //Roughly how many lines there are
+			positions = new FloatArray(guess);
+			texCoords = new FloatArray();
+			normals = new FloatArray();
+			corners = new IntArray(guess * 2);
+		}
+		
+		/**
+		 * Adds the data of the chunk after this one
+		 * @param next the next chunk
+		 */
+		private void append(ObjData next)
+		{
+			int positionCount = positions.size() / 3; //How much came before the chunk
+			int texCount = texCoords.size() / 2;
+			int normalCount = normals.size() / 3;
+			int start = corners.size();
+			
+			positions.addAll(next.positions);
+			texCoords.addAll(next.texCoords);
+			normals.addAll(next.normals);
+			corners.addAll(next.corners);
+			
+			if (next.hasRelative) //Relative indices can now be made absolute
+			{
+				int[] c = corners.getData();
+				int[] counts = {positionCount, texCount, normalCount};
+				
+				for (int i = start; i < corners.size(); i++)
+				{
+					if (c[i] < MISSING)
+					{
+						c[i] = c[i] - RELATIVE + counts[(i - start) % CORNER_SIZE];
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Gets the number of triangle corners
+		 * @return the number of corners
+		 */
+		public int getCornerCount()
+		{
+			return corners.size() / CORNER_SIZE;
+		}
+		
+	}
+	
+	private ByteBuffer buffer; //The bytes being read
+	
+	private int position; //The next byte to read
+	
+	private int end; //Where to stop reading
+	
+	private ObjData data; //Where to put what is read
+	
+	private int[] face = new int[CORNER_SIZE * 4]; //The corners of the face being read
+	
+	private boolean chunk; //If this is reading a chunk that doesn't start at the start of the file
+	
+	/**
+	 * Creates a parser for part of a buffer
+	 * @param buffer the buffer
+	 * @param start the first byte to read, the start of a line
+	 * @param end the byte to stop at
+	 * @param data where to put what is read
+	 */
+	ObjParser(ByteBuffer buffer, int start, int end, ObjData data)
+	{
+		this.buffer = buffer;
+		this.position = start;
+		this.end = end;
+		this.data = data;
+	}
+	
+	/**
+	 * Reads an OBJ file
+	 * @param path the path of the file
+	 * @return the geometry in the file
+	 * @throws IOException if the file can't be read
+	 */
+	public static ObjData parse(String path) throws IOException
+	{
+		return parse(map(path));
+	}
+	
+	/**
+	 * Reads an OBJ file's bytes
+	 * @param buffer the file's bytes, from its position to its limit
+	 * @return the geometry
+	 */
+	public static ObjData parse(ByteBuffer buffer)
+	{
+		if (buffer.remaining() >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1)
+		{
+			return parseParallel(buffer, CHUNK_SIZE);
+		}
+		
+		ObjData data = new ObjData(buffer.remaining());
+		new ObjParser(buffer, buffer.position(), buffer.limit(), data).parse();
+		return data;
+	}
+	
+	/**
+	 * Reads an OBJ file's bytes in chunks at the same time
+	 * @param buffer the file's bytes, from its position to its limit
+	 * @param chunkSize the smallest number of bytes to split off
+	 * @return the geometry
+	 */
+	public static ObjData parseParallel(ByteBuffer buffer, int chunkSize)
+	{
+		ParseTask task = new ParseTask(buffer, buffer.position(), buffer.limit(), chunkSize);
+		ArrayList<ObjData> chunks = POOL.invoke(task);
+		
+		int size = 0; //Join the chunks in order
+		for (int i = 0; i < chunks.size(); i++)
+		{
+			size += chunks.get(i).corners.size();
+		}
+		
+		ObjData data = chunks.get(0);
+		data.corners.ensureCapacity(size);
+		
+		for (int i = 1; i < chunks.size(); i++)
+		{
+			data.append(chunks.get(i));
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * Memory maps a file to read it
+	 * @param path the path of the file
+	 * @return the file's bytes
+	 * @throws IOException if the file can't be read
+	 */
+	static MappedByteBuffer map(String path) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		
+		try
+		{
+			FileChannel channel = file.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); //The mapping stays valid after the file is closed
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+	
+	/**
+	 * Reads every line
+	 */
+	void parse()
+	{
+		while (position < end)
+		{
+			skipSpaces();
+			
+			if (position >= end)
+			{
+				break;
+			}
+			
+			byte c = buffer.get(position);
+			byte next = position + 1 < end ? buffer.get(position + 1) : (byte) '\n';
+			
+			if (c == 'v' && isSpace(next)) //Position
+			{
+				position++;
+				data.positions.add(parseFloat());
+				data.positions.add(parseFloat());
+				data.positions.add(parseFloat());
+			}
+			else if (c == 'v' && next == 't' && position + 2 < end && isSpace(buffer.get(position + 2))) //Texture coordinate
+			{
+				position += 2;
+				data.texCoords.add(parseFloat());
+				data.texCoords.add(parseFloat());
+			}
+			else if (c == 'v' && next == 'n' && position + 2 < end && isSpace(buffer.get(position + 2))) //Normal
+			{
+				position += 2;
+				data.normals.add(parseFloat());
+				data.normals.add(parseFloat());
+				data.normals.add(parseFloat());
+			}
+			else if (c == 'f' && isSpace(next)) //Face
+			{
+				position++;
+				parseFace();
+			}
+			
+			skipLine(); //Comments, groups, materials, and anything else are ignored
+		}
+	}
+	
+	/**
+	 * Reads the corners of a face and adds it as a fan of triangles
+	 */
+	private void parseFace()
+	{
+		int count = 0;
+		
+		while (true)
+		{
+			skipSpaces();
+			
+			if (position >= end || isLineEnd(buffer.get(position)))
+			{
+				break;
+			}
+			
+			if ((count + 1) * CORNER_SIZE > face.length)
+			{
+				face = Arrays.copyOf(face, face.length * 2);
+			}
+			
+			int at = count * CORNER_SIZE;
+			face[at] = resolve(parseInt(), data.positions.size() / 3);
+			face[at + 1] = MISSING;
+			face[at + 2] = MISSING;
+			
+			if (position < end && buffer.get(position) == '/')
+			{
+				position++;
+				
+				if (position < end && buffer.get(position) != '/') //v/t or v/t/n
+				{
+					face[at + 1] = resolve(parseInt(), data.texCoords.size() / 2);
+				}
+				
+				if (position < end && buffer.get(position) == '/') //v//n or v/t/n
+				{
+					position++;
+					face[at + 2] = resolve(parseInt(), data.normals.size() / 3);
+				}
+			}
+			
+			count++;
+		}
+		
+		if (count < 3)
+		{
+			throw new IllegalArgumentException("A face needs at least three corners");
+		}
+		
+		IntArray corners = data.corners;
+		for (int i = 1; i < count - 1; i++) //Fan out from the first corner
+		{
+			addCorner(corners, 0);
+			addCorner(corners, i);
+			addCorner(corners, i + 1);
+		}
+	}
+	
+	/**
+	 * Adds a corner of the current face as a triangle corner
+	 * @param corners where to add it
+	 * @param corner which corner of the face
+	 */
+	private void addCorner(IntArray corners, int corner)
+	{
+		int at = corner * CORNER_SIZE;
+		corners.add(face[at]);
+		corners.add(face[at + 1]);
+		corners.add(face[at + 2]);
+	}
+	
+	/**
+	 * Turns a number from a face into an index starting at 0
+	 * @param number the number, starting at 1 or negative to count back from the last one read
+	 * @param count how many have been read so far
+	 * @return the index
+	 */
+	int resolve(int number, int count)
+	{
+		if (number > 0)
+		{
+			return number - 1;
+		}
+		if (number < 0)
+		{
+			if (chunk) //What came before the chunk isn't known yet
+			{
+				data.hasRelative = true;
+				return RELATIVE + count + number;
+			}
+			
+			return count + number;
+		}
+		
+		throw new IllegalArgumentException("Face indices start at 1");
+	}
+	
+	/**
+	 * Parses an int, leaving the position after it
+	 * @return the int
+	 */
+	private int parseInt()
+	{
+		boolean negative = false;
+		byte c = buffer.get(position);
+		
+		if (c == '-' || c == '+')
+		{
+			negative = c == '-';
+			position++;
+		}
+		
+		int start = position;
+		int value = 0;
+		
+		while (position < end && (c = buffer.get(position)) >= '0' && c <= '9')
+		{
+			value = value * 10 + (c - '0');
+			position++;
+		}
+		
+		if (position == start)
+		{
+			throw new IllegalArgumentException("Expected a number at byte " + position);
+		}
+		
+		return negative ? -value : value;
+	}
+	
+	/**
+	 * Skips spaces then parses a float, leaving the position after it
+	 * @return the float
+	 */
+	private float parseFloat()
+	{
+		skipSpaces();
+		
+		int start = position;
+		boolean negative = false;
+		byte c = position < end ? buffer.get(position) : (byte) '\n';
+		
+		if (c == '-' || c == '+')
+		{
+			negative = c == '-';
+			position++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0; //Digits kept in the mantissa
+		int exponent = 0;
+		boolean any = false;
+		
+		while (position < end && (c = buffer.get(position)) >= '0' && c <= '9') //Whole part
+		{
+			if (digits < 18)
+			{
+				mantissa = mantissa * 10 + (c - '0');
+				if (mantissa != 0)
+				{
+					digits++;
+				}
+			}
+			else
+			{
+				exponent++; //Too many digits to keep, just count them
+			}
+			any = true;
+			position++;
+		}
+		
+		if (position < end && buffer.get(position) == '.')
+		{
+			position++;
+			
+			while (position < end && (c = buffer.get(position)) >= '0' && c <= '9') //Fraction
+			{
+				if (digits < 18)
+				{
+					mantissa = mantissa * 10 + (c - '0');
+					if (mantissa != 0)
+					{
+						digits++;
+					}
+					exponent--;
+				}
+				any = true;
+				position++;
+			}
+		}
+		
+		if (!any)
+		{
+			return parseFloatSlowly(start);
+		}
+		
+		if (position < end && ((c = buffer.get(position)) == 'e' || c == 'E'))
+		{
+			position++;
+			exponent += parseInt();
+		}
+		
+		if (position < end && !isSpace(buffer.get(position))) //Something this doesn't understand, like nan
+		{
+			return parseFloatSlowly(start);
+		}
+		
+		double value = mantissa;
+		
+		if (exponent < 0)
+		{
+			value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent] : value / Math.pow(10, -exponent);
+		}
+		else if (exponent > 0)
+		{
+			value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+		}
+		
+		return (float) (negative ? -value : value);
+	}
+	
+	/**
+	 * Parses a float the normal way for anything parseFloat() doesn't handle
+	 * @param start where the float starts
+	 * @return the float
+	 */
+	private float parseFloatSlowly(int start)
+	{
+		position = start;
+		
+		while (position < end && !isSpace(buffer.get(position)))
+		{
+			position++;
+		}
+		
+		byte[] bytes = new byte[position - start];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			bytes[i] = buffer.get(start + i);
+		}
+		
+		return Float.parseFloat(new String(bytes)); //Throws if it isn't a float
+	}
+	
+	/**
+	 * Moves past spaces and tabs, but not the end of the line
+	 */
+	private void skipSpaces()
+	{
+		byte c;
+		while (position < end && ((c = buffer.get(position)) == ' ' || c == '\t' || c == '\r'))
+		{
+			position++;
+		}
+	}
+	
+	/**
+	 * Moves to the start of the next line
+	 */
+	private void skipLine()
+	{
+		while (position < end && buffer.get(position) != '\n')
+		{
+			position++;
+		}
+		
+		position++;
+	}
+	
+	/**
+	 * Checks if a byte separates values
+	 * @param c the byte
+	 * @return if it is a space, tab, or line end
+	 */
+	private static boolean isSpace(byte c)
+	{
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+	
+	/**
+	 * Checks if a byte ends a line
+	 * @param c the byte
+	 * @return if it does
+	 */
+	private static boolean isLineEnd(byte c)
+	{
+		return c == '\n' || c == '#';
+	}
+	
+	/**
+	 * Parses part of a file, splitting it in half at a line end while it is large
+	 * @author Davis
+	 *
+	 */
+	private static class ParseTask extends RecursiveTask<ArrayList<ObjData>>
+	{
+		
+		private static final long serialVersionUID = 1L;
+		
+		private ByteBuffer buffer; //The file's bytes
+		
+		private int start, end; //The part of the file to read
+		
+		private int chunkSize; //The smallest size to split off
+		
+		/**
+		 * Creates a new task
+		 * @param buffer the file's bytes
+		 * @param start the first byte, the start of a line
+		 * @param end the byte to stop at, the start of a line or the end of the file
+		 * @param chunkSize the smallest size to split off
+		 */
+		private ParseTask(ByteBuffer buffer, int start, int end, int chunkSize)
+		{
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+			this.chunkSize = chunkSize;
+		}
+		
+		@Override
+		protected ArrayList<ObjData> compute()
+		{
+			if (end - start >= chunkSize * 2)
+			{
+				int middle = start + (end - start) / 2;
+				
+				while (middle < end && buffer.get(middle - 1) != '\n') //Split at the start of a line
+				{
+					middle++;
+				}
+				
+				if (middle < end)
+				{
+					ParseTask first = new ParseTask(buffer, start, middle, chunkSize);
+					ParseTask second = new ParseTask(buffer, middle, end, chunkSize);
+					
+					first.fork();
+					ArrayList<ObjData> secondChunks = second.compute();
+					ArrayList<ObjData> chunks = first.join();
+					
+					chunks.addAll(secondChunks);
+					return chunks;
+				}
+			}
+			
+			ObjData data = new ObjData(end - start);
+			ObjParser parser = new ObjParser(buffer, start, end, data);
+			parser.chunk = start > buffer.position(); //The first chunk knows nothing came before it
+			parser.parse();
+			
+			ArrayList<ObjData> chunks = new ArrayList<ObjData>();
+			chunks.add(data);
+			return chunks;
+		}
+		
+	}
+	
+}
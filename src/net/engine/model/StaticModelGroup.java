@@ -0,0 +1,353 @@
+package net.engine.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import net.engine.core.Engine;
+import net.engine.math.BoundingBox;
+import net.engine.math.Frustum;
+import net.engine.matrix.Matrix4f;
+import net.engine.matrix.MatrixStack;
+import net.engine.render.Material;
+import net.engine.render.RenderStats;
+import net.engine.scene.BVH;
+import net.engine.scene.Visitor;
+import net.engine.transform.Orientation;
+
+/**
+ * A group of models that stay still relative to each other, like the props of a level
+ * 
+ * The models are kept in a bounding volume hierarchy built from their boxes so culling,
+ * ray casts, and box queries don't have to look at every model. The group's own modelMatrix
+ * can change freely. If a model in the group moves, update() or refit() must be called.
+ * Models with no bounds are always drawn.
+ * 
+ * Models the tree finds on screen are drawn without being tested again. Those whose box is
+ * inside the frustum skip every test under them, and single models whose box crosses its edge
+ * skip their own, while groups crossing the edge still test what is in them.
+ * @author Davis
+ *
+ */
+public class StaticModelGroup extends Model
+{
+	
+	private ArrayList<Model> models; //The models, in the order they were added
+	
+	private ArrayList<Model> unbounded; //The models with no bounds
+	
+	private BVH<Model> bvh; //The tree over the models with bounds
+	
+	private ArrayList<Model> bounded; //The models in the tree, by their number in the tree
+	
+	private IdentityHashMap<Model, Integer> numbers; //The number of each model in the tree, so a moved model is found without a search
+	
+	private int boundedCount; //How many models are in the tree counting the ones inside groups, found when it is built or refit
+	
+	private boolean built; //If the tree is up to date with the models added
+	
+	private Frustum localFrustum; //The camera's frustum in the group's space
+	
+	private Matrix4f scratch; //Used to combine the camera matrix with the group's transformation
+	
+	private BoundingBox box; //Reused for the models' boxes
+	
+	private MatrixStack renderStack; //The stack while rendering, for the visitor
+	
+	private int visitedCount; //How many models the tree has found this frame, counting the ones inside groups
+	
+	private Visitor<Model> insideVisitor; //Renders each model the tree finds inside the frustum
+	
+	private Visitor<Model> edgeVisitor; //Renders each model the tree finds crossing the edge of the frustum
+	
+	/**
+	 * Creates a new empty group
+	 * @param material the material
+	 */
+	public StaticModelGroup(Material material)
+	{
+		this(new Orientation(), material);
+	}
+	
+	/**
+	 * Creates a new empty group with a non default orientation
+	 * @param modelMatrix the model matrix
+	 * @param material the material
+	 */
+	public StaticModelGroup(Orientation modelMatrix, Material material)
+	{
+		super(material);
+		this.modelMatrix = modelMatrix;
+		
+		models = new ArrayList<Model>();
+		unbounded = new ArrayList<Model>();
+		bounded = new ArrayList<Model>();
+		numbers = new IdentityHashMap<Model, Integer>();
+		bvh = new BVH<Model>();
+		built = true;
+		
+		localFrustum = new Frustum();
+		scratch = new Matrix4f();
+		box = new BoundingBox();
+		
+		insideVisitor = new Visitor<Model>()
+		{
+			
+			@Override
+			public void visit(Model item)
+			{
+				renderSeen(item);
+			}
+			
+		};
+		
+		edgeVisitor = new Visitor<Model>()
+		{
+			
+			@Override
+			public void visit(Model item)
+			{
+				int count = item.getModelCount();
+				
+				if (count == 1) //Its box is the one the tree tested
+				{
+					renderSeen(item);
+				}
+				else
+				{
+					visitedCount += count;
+					item.render(renderStack);
+				}
+			}
+			
+		};
+	}
+	
+	/**
+	 * Adds a model, the tree is rebuilt the next time it is used
+	 * @param model the model
+	 */
+	public void add(Model model)
+	{
+		models.add(model);
+		built = false;
+	}
+	
+	/**
+	 * Removes a model, the tree is rebuilt the next time it is used
+	 * @param model the model
+	 * @return if it was in the group
+	 */
+	public boolean remove(Model model)
+	{
+		if (!models.remove(model))
+		{
+			return false;
+		}
+		
+		built = false;
+		return true;
+	}
+	
+	/**
+	 * Gets the models in the group, which should not be changed except through add() and remove()
+	 * @return the models
+	 */
+	public ArrayList<Model> getModels()
+	{
+		return models;
+	}
+	
+	/**
+	 * Builds the tree over the models, called automatically after models are added or removed
+	 */
+	public void build()
+	{
+		bounded.clear();
+		unbounded.clear();
+		numbers.clear();
+		boundedCount = 0;
+		ArrayList<BoundingBox> bounds = new ArrayList<BoundingBox>();
+		
+		for (int i = 0; i < models.size(); i++)
+		{
+			Model model = models.get(i);
+			BoundingBox modelBounds = new BoundingBox();
+			
+			if (model.getBounds(modelBounds))
+			{
+				numbers.put(model, bounded.size());
+				bounded.add(model);
+				boundedCount += model.getModelCount();
+				bounds.add(modelBounds);
+			}
+			else
+			{
+				unbounded.add(model);
+			}
+		}
+		
+		bvh.build(bounded, bounds);
+		built = true;
+	}
+	
+	/**
+	 * Refits the tree after a model in the group moved
+	 * @param model the model
+	 */
+	public void update(Model model)
+	{
+		Integer index = numbers.get(model);
+		
+		if (!built || index == null || !model.getBounds(box))
+		{
+			built = false; //Not in the tree or lost its bounds, so start again
+			return;
+		}
+		
+		bvh.update(index, box);
+	}
+	
+	/**
+	 * Refits the tree after many models in the group moved
+	 */
+	public void refit()
+	{
+		if (!built)
+		{
+			return; //It will be built from scratch anyway
+		}
+		
+		boundedCount = 0;
+		
+		for (int i = 0; i < bounded.size(); i++)
+		{
+			if (!bounded.get(i).getBounds(box))
+			{
+				built = false;
+				return;
+			}
+			
+			bvh.setBounds(i, box);
+			boundedCount += bounded.get(i).getModelCount();
+		}
+		
+		bvh.refit();
+	}
+	
+	/**
+	 * Gets the tree, in the group's own space
+	 * @return the tree
+	 */
+	public BVH<Model> getBVH()
+	{
+		if (!built)
+		{
+			build();
+		}
+		
+		return bvh;
+	}
+	
+	/**
+	 * Visits every model whose box overlaps a box in the group's own space
+	 * @param range the box
+	 * @param visitor called for each model
+	 * @return how many models were visited
+	 */
+	public int query(BoundingBox range, Visitor<Model> visitor)
+	{
+		return getBVH().query(range, visitor);
+	}
+	
+	/**
+	 * Finds the first model whose box a ray in the group's own space hits
+	 * @param ox the ray's start x
+	 * @param oy the ray's start y
+	 * @param oz the ray's start z
+	 * @param dx the ray's direction x
+	 * @param dy the ray's direction y
+	 * @param dz the ray's direction z
+	 * @param maxDistance how far along the ray to look, in lengths of the direction
+	 * @return the model, null if none is hit
+	 */
+	public Model raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance)
+	{
+		return getBVH().raycast(ox, oy, oz, dx, dy, dz, maxDistance);
+	}
+	
+	@Override
+	public boolean getBounds(BoundingBox dest)
+	{
+		getBVH().getBounds(dest);
+		
+		if (!unbounded.isEmpty()) //They could be anywhere
+		{
+			return false;
+		}
+		
+		dest.transform(modelMatrix.getTransformationMatrix(), dest);
+		return true;
+	}
+	
+	@Override
+	public int getModelCount()
+	{
+		int count = 0;
+		
+		for (int i = 0; i < models.size(); i++)
+		{
+			count += models.get(i).getModelCount();
+		}
+		
+		return count;
+	}
+	
+	@Override
+	public void render(MatrixStack stack)
+	{
+		Engine engine = Engine.getInstance();
+		BVH<Model> tree = getBVH();
+		
+		stack.pushMatrix(modelMatrix.getTransformationMatrix());
+		renderStack = stack;
+		
+		for (int i = 0; i < unbounded.size(); i++)
+		{
+			unbounded.get(i).render(stack);
+		}
+		
+		if (engine.isFrustumCulling() && !engine.isVisibilityKnown()) //No need to cull if the whole group is known to be seen
+		{
+			localFrustum.set(engine.getCameraMatrix().mulInto(stack.getTransform(), scratch)); //The planes in the group's space so the boxes don't need transforming
+			visitedCount = 0;
+			tree.cull(localFrustum, insideVisitor, edgeVisitor);
+			RenderStats.modelsCulled(Math.max(boundedCount - visitedCount, 0)); //Counted like ModelGroup, a culled group counts all its models
+		}
+		else
+		{
+			for (int i = 0; i < bounded.size(); i++)
+			{
+				bounded.get(i).render(stack);
+			}
+		}
+		
+		renderStack = null;
+		stack.popMatrix();
+	}
+	
+	/**
+	 * Renders a model the tree found on screen without it testing itself again
+	 * @param model the model
+	 */
+	private void renderSeen(Model model)
+	{
+		Engine engine = Engine.getInstance();
+		boolean known = engine.isVisibilityKnown(); //Already set if this group was known to be seen
+		
+		visitedCount += model.getModelCount();
+		engine.setVisibilityKnown(true);
+		model.render(renderStack);
+		engine.setVisibilityKnown(known);
+	}
+	
+}
@@ -0,0 +1,144 @@
+package net.engine.render;
+
+import java.nio.FloatBuffer;
+
+import net.engine.matrix.Matrix3f;
+import net.engine.matrix.Matrix4f;
+import net.engine.render.mesh.GPUMesh;
+
+/**
+ * The instances of one mesh with one material collected to be drawn in a single call
+ * 
+ * Each instance is its model matrix followed by its normal matrix. They are stored
+ * column by column because that is how openGL reads matrix attributes.
+ * @author Davis
+ *
+ */
+public class InstanceBatch
+{
+	
+	public static final int INSTANCE_SIZE = Matrix4f.LENGTH + Matrix3f.LENGTH; //Floats per instance
+	
+	public static final int INSTANCE_BYTES = INSTANCE_SIZE * GPUMesh.BYTES_PER_FLOAT; //Bytes per instance
+	
+	public static final int NORMAL_MATRIX_OFFSET = Matrix4f.LENGTH * GPUMesh.BYTES_PER_FLOAT; //Where the normal matrix starts in bytes
+	
+	private static final int START_CAPACITY = 16; //How many instances fit before the first growth
+	
+	private GPUMesh mesh; //The mesh drawn
+	
+	private Material material; //The material drawn with
+	
+	private float[] data; //The instances
+	
+	private int count; //How many instances there are
+	
+	/**
+	 * Creates a new empty batch
+	 */
+	public InstanceBatch()
+	{
+		data = new float[START_CAPACITY * INSTANCE_SIZE];
+		count = 0;
+	}
+	
+	/**
+	 * Empties the batch and sets what it draws
+	 * @param mesh the mesh
+	 * @param material the material
+	 */
+	public void reset(GPUMesh mesh, Material material)
+	{
+		this.mesh = mesh;
+		this.material = material;
+		count = 0;
+	}
+	
+	/**
+	 * Checks if this batch draws a mesh with a material
+	 * @param mesh the mesh
+	 * @param material the material
+	 * @return if it does
+	 */
+	public boolean matches(GPUMesh mesh, Material material)
+	{
+		return this.mesh == mesh && this.material == material;
+	}
+	
+	/**
+	 * Adds an instance
+	 * @param modelMatrix the instance's model matrix
+	 * @param normalMatrix the instance's normal matrix
+	 */
+	public void add(Matrix4f modelMatrix, Matrix3f normalMatrix)
+	{
+		if ((count + 1) * INSTANCE_SIZE > data.length) //Grow, the array is kept for later frames so this stops happening
+		{
+			float[] grown = new float[data.length * 2];
+			System.arraycopy(data, 0, grown, 0, count * INSTANCE_SIZE);
+			data = grown;
+		}
+		
+		int start = count * INSTANCE_SIZE;
+		float[] m = modelMatrix.m;
+		float[] n = normalMatrix.m;
+		
+		for (int col = 0; col < Matrix4f.SIZE; col++) //Transpose into column order
+		{
+			for (int row = 0; row < Matrix4f.SIZE; row++)
+			{
+				data[start++] = m[row * Matrix4f.SIZE + col];
+			}
+		}
+		for (int col = 0; col < Matrix3f.SIZE; col++)
+		{
+			for (int row = 0; row < Matrix3f.SIZE; row++)
+			{
+				data[start++] = n[row * Matrix3f.SIZE + col];
+			}
+		}
+		
+		count++;
+	}
+	
+	/**
+	 * Writes the instances into a buffer and flips it
+	 * @param buffer the buffer, which must have room for every instance
+	 * @return the buffer
+	 */
+	public FloatBuffer store(FloatBuffer buffer)
+	{
+		buffer.clear();
+		buffer.put(data, 0, count * INSTANCE_SIZE);
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Gets the mesh
+	 * @return the mesh
+	 */
+	public GPUMesh getMesh()
+	{
+		return mesh;
+	}
+	
+	/**
+	 * Gets the material
+	 * @return the material
+	 */
+	public Material getMaterial()
+	{
+		return material;
+	}
+	
+	/**
+	 * Gets how many instances there are
+	 * @return the count
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+	
+}
@@ -1,45 +1,59 @@
-package net.engine.render;
-
-import net.engine.math.Vector3f;
-
-/**
- * A material
- * @author Davis
- *
- */
-public class Material
-{
-
-	private Texture tex;
-	private Vector3f color;
-	
-	/**
-	 * Creates a new material
-	 * @param tex its texture
-	 * @param color its color
-	 */
-	public Material(Texture tex, Vector3f color)
-	{
-		this.tex = tex;
-		this.color = color;
-	}
-	
-	/**
-	 * Gets the texture
-	 * @return the texture
-	 */
-	public Texture getTexture()
-	{
-		return tex;
-	}
-	
-	/**
-	 * Gets the color
-	 * @return the color
-	 */
-	public Vector3f getColor()
-	{
-		return color;
-	}
-	
-}
+package net.engine.render;
+
+import net.engine.math.Vector3f;
+
+/**
+ * A material
+ * @author Davis
+ *
+ */
+public class Material
+{
+	
+	private static int nextId = 1; //The id given to the next material, 0 is for no material
+	
+	private int id; //Identifies this material
+
+	private Texture tex;
+	private Vector3f color;
+	
+	/**
+	 * Creates a new material
+	 * @param tex its texture
+	 * @param color its color
+	 */
+	public Material(Texture tex, Vector3f color)
+	{
+		this.id = nextId++;
+		this.tex = tex;
+		this.color = color;
+	}
+	
+	/**
+	 * Gets the id of this material, unique among all materials
+	 * @return the id
+	 */
+	public int getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * Gets the texture
+	 * @return the texture
+	 */
+	public Texture getTexture()
+	{
+		return tex;
+	}
+	
+	/**
+	 * Gets the color
+	 * @return the color
+	 */
+	public Vector3f getColor()
+	{
+		return color;
+	}
+	
+}
@@ -0,0 +1,40 @@
+package net.engine.render;
+
+/**
+ * One pass over every model, drawn with its own shader and openGL state
+ * 
+ * Passes are drawn in the order they were added to the engine. begin() is called with the
+ * pass's shader bound, before the first model of the pass is drawn, and is where the pass
+ * sets things like face culling and its own uniforms.
+ * @author Davis
+ *
+ */
+public abstract class RenderPass
+{
+	
+	private Shader shader; //The shader models are drawn with in this pass
+	
+	/**
+	 * Creates a new pass
+	 * @param shader the shader models are drawn with
+	 */
+	public RenderPass(Shader shader)
+	{
+		this.shader = shader;
+	}
+	
+	/**
+	 * Gets the shader models are drawn with
+	 * @return the shader
+	 */
+	public Shader getShader()
+	{
+		return shader;
+	}
+	
+	/**
+	 * Sets up openGL for the pass, the pass's shader is already bound
+	 */
+	public abstract void begin();
+	
+}
@@ -0,0 +1,367 @@
+package net.engine.render;
+
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import net.engine.core.Engine;
+import net.engine.matrix.Matrix3f;
+import net.engine.matrix.Matrix4f;
+import net.engine.render.mesh.GPUMesh;
+import net.engine.util.BufferUtil;
+
+/**
+ * Collects everything drawn in a frame and draws it in the order that changes openGL state the least
+ * 
+ * Each draw is given a 64 bit key made of, from the highest bits down, its pass, shader, material,
+ * mesh, level of detail, and the draw's own number. Sorting the keys puts every draw of a pass together, and within
+ * it every draw of a shader, and so on, and the draw's number in the lowest bits says which draw the
+ * key belongs to. Shaders, textures, and meshes are only bound when they change from the last draw,
+ * and draws of the same mesh, level of detail, and material with an instanced shader are drawn in one call.
+ * 
+ * The draws and transformations are pooled and kept between frames so a frame creates no garbage
+ * once the pools have grown big enough.
+ * @author Davis
+ *
+ */
+public class RenderQueue
+{
+	
+	//The bits of the key given to each part, highest first
+	public static final int PASS_BITS = 4;
+	public static final int SHADER_BITS = 8;
+	public static final int MATERIAL_BITS = 12;
+	public static final int MESH_BITS = 16;
+	public static final int LOD_BITS = 3;
+	public static final int INDEX_BITS = 20;
+	
+	public static final int INDEX_SHIFT = 0;
+	public static final int LOD_SHIFT = INDEX_SHIFT + INDEX_BITS;
+	public static final int MESH_SHIFT = LOD_SHIFT + LOD_BITS;
+	public static final int MATERIAL_SHIFT = MESH_SHIFT + MESH_BITS;
+	public static final int SHADER_SHIFT = MATERIAL_SHIFT + MATERIAL_BITS;
+	public static final int PASS_SHIFT = SHADER_SHIFT + SHADER_BITS; //The top bit is left clear so keys are never negative
+	
+	public static final int MAX_DRAWS = 1 << INDEX_BITS; //How many draws fit in one frame
+	
+	private static final int START_CAPACITY = 64; //How many draws fit before the first growth
+	
+	private ArrayList<DrawItem> items; //The draws, kept between frames
+	
+	private int itemCount; //How many of the draws are in use
+	
+	private long[] keys; //The key of each draw
+	
+	private ArrayList<Matrix4f> transforms; //The transformations draws use, several draws can share one
+	
+	private ArrayList<Matrix3f> normals; //The normal matrix of each transformation
+	
+	private boolean[] normalValid; //If a normal matrix has been calculated this frame
+	
+	private int transformCount; //How many of the transformations are in use
+	
+	private InstanceBatch batch; //Draws of one mesh and material collected to be drawn instanced
+	
+	private FloatBuffer instanceBuffer; //The buffer instances are sent to openGL from
+	
+	private Shader boundShader; //The last shader bound
+	
+	/**
+	 * Creates a new empty queue
+	 */
+	public RenderQueue()
+	{
+		items = new ArrayList<DrawItem>();
+		itemCount = 0;
+		keys = new long[START_CAPACITY];
+		
+		transforms = new ArrayList<Matrix4f>();
+		normals = new ArrayList<Matrix3f>();
+		normalValid = new boolean[START_CAPACITY];
+		transformCount = 0;
+		
+		batch = new InstanceBatch();
+		instanceBuffer = BufferUtil.createFloatBuffer(InstanceBatch.INSTANCE_SIZE * START_CAPACITY);
+	}
+	
+	/**
+	 * Copies a transformation so draws can use it after it changes
+	 * @param transform the transformation
+	 * @return the number draws use to refer to the copy
+	 */
+	public int addTransform(Matrix4f transform)
+	{
+		if (transformCount == transforms.size())
+		{
+			transforms.add(new Matrix4f());
+			normals.add(new Matrix3f());
+			
+			if (transformCount == normalValid.length)
+			{
+				normalValid = Arrays.copyOf(normalValid, normalValid.length * 2);
+			}
+		}
+		
+		transforms.get(transformCount).set(transform);
+		normalValid[transformCount] = false; //Only calculated if a shader uses it
+		return transformCount++;
+	}
+	
+	/**
+	 * Adds a draw
+	 * @param pass the pass it is drawn in, null to draw it without calling begin() on a pass
+	 * @param passIndex the order of the pass among all the passes
+	 * @param shader the shader
+	 * @param mesh the mesh
+	 * @param lod the mesh's level of detail, 0 for the full mesh
+	 * @param material the material, null to keep whatever texture and color were set
+	 * @param transform the transformation from addTransform()
+	 */
+	public void add(RenderPass pass, int passIndex, Shader shader, GPUMesh mesh, int lod, Material material, int transform)
+	{
+		if (itemCount == MAX_DRAWS)
+		{
+			System.err.println("Too many draws in one frame, at most " + MAX_DRAWS + " can be drawn");
+			return;
+		}
+		
+		if (itemCount == items.size())
+		{
+			items.add(new DrawItem());
+			
+			if (itemCount == keys.length)
+			{
+				keys = Arrays.copyOf(keys, keys.length * 2);
+			}
+		}
+		
+		DrawItem item = items.get(itemCount);
+		item.pass = pass;
+		item.shader = shader;
+		item.mesh = mesh;
+		item.lod = lod;
+		item.material = material;
+		item.transform = transform;
+		
+		keys[itemCount] = key(passIndex, shader.getId(), material == null ? 0 : material.getId(), mesh.getId(), lod, itemCount);
+		itemCount++;
+	}
+	
+	/**
+	 * Draws everything added since the last submit and empties the queue
+	 * @param cameraMatrix the projection and camera matrix, set on each shader when it is bound
+	 */
+	public void submit(Matrix4f cameraMatrix)
+	{
+		Arrays.sort(keys, 0, itemCount); //Primitive sort so nothing is allocated
+		
+		RenderPass pass = null;
+		Shader shader = null;
+		Material material = null;
+		Texture texture = null;
+		GPUMesh mesh = null;
+		
+		for (int k = 0; k < itemCount; k++)
+		{
+			DrawItem item = items.get((int) (keys[k] & (MAX_DRAWS - 1)));
+			
+			if (item.shader != shader) //Bind the shader and set what it needs for the whole frame
+			{
+				shader = item.shader;
+				shader.bind();
+				boundShader = shader;
+				
+				if (shader.hasStandardUniform(Engine.PROJECTED_CAMERA_MATRIX_ID))
+				{
+					shader.setUniform(shader.getStandardUniform(Engine.PROJECTED_CAMERA_MATRIX_ID), cameraMatrix);
+				}
+				if (shader.hasStandardUniform(Engine.SAMPLER_ID))
+				{
+					shader.setUniformi(shader.getStandardUniform(Engine.SAMPLER_ID), Engine.TEXTURE_LOCATION);
+				}
+				
+				material = null; //The color is part of the shader so it has to be set again
+				pass = null;
+			}
+			
+			if (item.pass != pass)
+			{
+				pass = item.pass;
+				
+				if (pass != null)
+				{
+					pass.begin();
+				}
+			}
+			
+			if (item.material != material && item.material != null)
+			{
+				material = item.material;
+				
+				if (material.getTexture() != texture) //Materials can share a texture
+				{
+					texture = material.getTexture();
+					texture.bind(Engine.TEXTURE_LOCATION_OPENGL);
+				}
+				
+				if (shader.hasStandardUniform(Engine.COLOR_ID))
+				{
+					shader.setUniform(shader.getStandardUniform(Engine.COLOR_ID), material.getColor());
+				}
+			}
+			
+			if (item.mesh != mesh)
+			{
+				mesh = item.mesh;
+				mesh.bind(); //Bind the buffers and their layout in one call
+			}
+			
+			if (shader.isInstanced()) //Draw this and every following draw that only differs in its transformation at once
+			{
+				batch.reset(mesh, item.material);
+				batch.add(transforms.get(item.transform), getNormalMatrix(item.transform));
+				
+				while (k + 1 < itemCount)
+				{
+					DrawItem next = items.get((int) (keys[k + 1] & (MAX_DRAWS - 1)));
+					
+					if (next.pass != item.pass || next.shader != shader || next.lod != item.lod || !batch.matches(next.mesh, next.material))
+					{
+						break;
+					}
+					
+					batch.add(transforms.get(next.transform), getNormalMatrix(next.transform));
+					k++;
+				}
+				
+				int size = batch.getCount() * InstanceBatch.INSTANCE_SIZE;
+				if (instanceBuffer.capacity() < size) //Grow the buffer, it is kept for the next frame
+				{
+					instanceBuffer = BufferUtil.createFloatBuffer(Math.max(size, instanceBuffer.capacity() * 2));
+				}
+				
+				mesh.drawInstanced(batch.store(instanceBuffer), batch.getCount(), item.lod);
+				batch.reset(null, null); //Don't hold on to meshes that might be disposed
+			}
+			else
+			{
+				if (shader.hasStandardUniform(Engine.MODEL_MATRIX_ID))
+				{
+					shader.setUniform(shader.getStandardUniform(Engine.MODEL_MATRIX_ID), transforms.get(item.transform));
+				}
+				if (shader.hasStandardUniform(Engine.NORMAL_MATRIX_ID))
+				{
+					shader.setUniform(shader.getStandardUniform(Engine.NORMAL_MATRIX_ID), getNormalMatrix(item.transform));
+				}
+				
+				mesh.draw(item.lod);
+			}
+		}
+		
+		if (mesh != null)
+		{
+			glBindVertexArray(0);
+		}
+		
+		for (int i = 0; i < itemCount; i++) //Don't hold on to anything that might be disposed
+		{
+			items.get(i).clear();
+		}
+		
+		itemCount = 0;
+		transformCount = 0;
+	}
+	
+	/**
+	 * Gets the last shader the queue bound
+	 * @return the shader, null if it hasn't bound one
+	 */
+	public Shader getBoundShader()
+	{
+		return boundShader;
+	}
+	
+	/**
+	 * Gets how many draws are waiting to be submitted
+	 * @return the count
+	 */
+	public int size()
+	{
+		return itemCount;
+	}
+	
+	/**
+	 * Gets the normal matrix of a transformation, calculating it the first time
+	 * @param transform the transformation's number
+	 * @return the normal matrix
+	 */
+	private Matrix3f getNormalMatrix(int transform)
+	{
+		Matrix3f normal = normals.get(transform);
+		
+		if (!normalValid[transform])
+		{
+			normal.initNormalMatrix(transforms.get(transform));
+			normalValid[transform] = true;
+		}
+		
+		return normal;
+	}
+	
+	/**
+	 * Packs the parts of a draw into its key, ids too big for their bits wrap around
+	 * which only makes the order less perfect
+	 * @param pass the pass's order
+	 * @param shader the shader's id
+	 * @param material the material's id
+	 * @param mesh the mesh's id
+	 * @param lod the mesh's level of detail
+	 * @param index the draw's number
+	 * @return the key
+	 */
+	private static long key(int pass, int shader, int material, int mesh, int lod, int index)
+	{
+		return (long) (pass & ((1 << PASS_BITS) - 1)) << PASS_SHIFT
+				| (long) (shader & ((1 << SHADER_BITS) - 1)) << SHADER_SHIFT
+				| (long) (material & ((1 << MATERIAL_BITS) - 1)) << MATERIAL_SHIFT
+				| (long) (mesh & ((1 << MESH_BITS) - 1)) << MESH_SHIFT
+				| (long) (lod & ((1 << LOD_BITS) - 1)) << LOD_SHIFT
+				| (long) index << INDEX_SHIFT;
+	}
+	
+	/**
+	 * One mesh drawn with one shader and material in one pass
+	 * @author Davis
+	 *
+	 */
+	private static class DrawItem
+	{
+		
+		private RenderPass pass;
+		
+		private Shader shader;
+		
+		private GPUMesh mesh;
+		
+		private int lod; //The mesh's level of detail
+		
+		private Material material;
+		
+		private int transform; //The transformation's number in the queue
+		
+		/**
+		 * Drops the references to what was drawn
+		 */
+		private void clear()
+		{
+			pass = null;
+			shader = null;
+			mesh = null;
+			material = null;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,212 @@
+package net.engine.render;
+
+/**
+ * Counts of the work done rendering a frame
+ * 
+ * The counts are collected while a frame is rendered and kept once endFrame() is called
+ * so they can be read while the next frame is being rendered
+ * @author Davis
+ *
+ */
+public class RenderStats
+{
+	
+	private static int uniformUploads, uniformUploadsElided, shaderBinds, textureBinds, draws, modelsVisible, modelsCulled; //The counts for the frame being rendered
+	
+	private static long triangles, fullTriangles; //The triangles drawn this frame, and how many there would have been with every mesh at full detail
+	
+	private static int lastUniformUploads, lastUniformUploadsElided, lastShaderBinds, lastTextureBinds, lastDraws, lastModelsVisible, lastModelsCulled; //The counts for the last frame
+	
+	private static long lastTriangles, lastFullTriangles;
+	
+	/**
+	 * This class should not have instances
+	 */
+	private RenderStats() {}
+	
+	/**
+	 * Counts a uniform sent to openGL
+	 */
+	public static void uniformUploaded()
+	{
+		uniformUploads++;
+	}
+	
+	/**
+	 * Counts a uniform that was not sent because it already had the value
+	 */
+	public static void uniformUploadElided()
+	{
+		uniformUploadsElided++;
+	}
+	
+	/**
+	 * Counts a shader bound
+	 */
+	public static void shaderBound()
+	{
+		shaderBinds++;
+	}
+	
+	/**
+	 * Counts a texture bound
+	 */
+	public static void textureBound()
+	{
+		textureBinds++;
+	}
+	
+	/**
+	 * Counts a draw call, instanced or not
+	 */
+	public static void drawn()
+	{
+		draws++;
+	}
+	
+	/**
+	 * Counts a model that passed the frustum test
+	 */
+	public static void modelVisible()
+	{
+		modelsVisible++;
+	}
+	
+	/**
+	 * Counts models skipped because they were outside the frustum
+	 * @param count how many were skipped
+	 */
+	public static void modelsCulled(int count)
+	{
+		modelsCulled += count;
+	}
+	
+	/**
+	 * Counts the triangles sent to openGL by a draw
+	 * @param submitted how many were drawn
+	 * @param full how many would have been drawn at full detail
+	 */
+	public static void trianglesSubmitted(int submitted, int full)
+	{
+		triangles += submitted;
+		fullTriangles += full;
+	}
+	
+	/**
+	 * Ends the frame, keeping its counts and starting the counts again
+	 */
+	public static void endFrame()
+	{
+		lastUniformUploads = uniformUploads;
+		lastUniformUploadsElided = uniformUploadsElided;
+		lastShaderBinds = shaderBinds;
+		lastTextureBinds = textureBinds;
+		lastDraws = draws;
+		lastModelsVisible = modelsVisible;
+		lastModelsCulled = modelsCulled;
+		lastTriangles = triangles;
+		lastFullTriangles = fullTriangles;
+		
+		uniformUploads = 0;
+		uniformUploadsElided = 0;
+		shaderBinds = 0;
+		textureBinds = 0;
+		draws = 0;
+		modelsVisible = 0;
+		modelsCulled = 0;
+		triangles = 0;
+		fullTriangles = 0;
+	}
+	
+	/**
+	 * Gets how many uniforms were sent to openGL in the last frame
+	 * @return the count
+	 */
+	public static int getUniformUploads()
+	{
+		return lastUniformUploads;
+	}
+	
+	/**
+	 * Gets how many uniforms were not sent in the last frame because they already had the value
+	 * @return the count
+	 */
+	public static int getUniformUploadsElided()
+	{
+		return lastUniformUploadsElided;
+	}
+	
+	/**
+	 * Gets how many shaders were bound in the last frame
+	 * @return the count
+	 */
+	public static int getShaderBinds()
+	{
+		return lastShaderBinds;
+	}
+	
+	/**
+	 * Gets how many textures were bound in the last frame
+	 * @return the count
+	 */
+	public static int getTextureBinds()
+	{
+		return lastTextureBinds;
+	}
+	
+	/**
+	 * Gets how many draw calls were made in the last frame
+	 * @return the count
+	 */
+	public static int getDraws()
+	{
+		return lastDraws;
+	}
+	
+	/**
+	 * Gets how many models passed the frustum test in the last frame
+	 * @return the count
+	 */
+	public static int getModelsVisible()
+	{
+		return lastModelsVisible;
+	}
+	
+	/**
+	 * Gets how many models were skipped in the last frame because they were outside the frustum
+	 * @return the count
+	 */
+	public static int getModelsCulled()
+	{
+		return lastModelsCulled;
+	}
+	
+	/**
+	 * Gets how many triangles were drawn in the last frame, every pass and instance counted
+	 * @return the count
+	 */
+	public static long getTriangles()
+	{
+		return lastTriangles;
+	}
+	
+	/**
+	 * Gets how many triangles the last frame would have drawn with every mesh at full detail
+	 * @return the count
+	 */
+	public static long getFullTriangles()
+	{
+		return lastFullTriangles;
+	}
+	
+	/**
+	 * Describes the last frame's counts
+	 * @return the description
+	 */
+	public static String getSummary()
+	{
+		return "models: " + lastModelsVisible + " visible, " + lastModelsCulled + " culled, triangles: " + lastTriangles + " of " + lastFullTriangles + " at full detail, draws: " + lastDraws + ", shader binds: " + lastShaderBinds + ", texture binds: " + lastTextureBinds
+				+ ", uniforms: " + lastUniformUploads + " sent, " + lastUniformUploadsElided + " skipped";
+	}
+	
+}
@@ -0,0 +1,155 @@
+package net.engine.render;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Prepares shader source code before it is compiled
+ * 
+ * Lines of the form #include "file" are replaced by that file, found relative to the
+ * file including it. Each file is only included once. Comments and blank lines are
+ * removed so the compiled source is as small as it can be.
+ * 
+ * This doesn't use openGL so the asset baker can run it ahead of time.
+ * @author Davis
+ *
+ */
+public class ShaderPreprocessor
+{
+	
+	public static final String INCLUDE = "#include"; //The include directive
+	
+	private HashSet<String> included; //The files already included
+	
+	private List<File> dependencies; //Where to list every file read, may be null
+	
+	private boolean inComment; //If a block comment is still open
+	
+	/**
+	 * Creates a new preprocessor
+	 * @param dependencies where to list every file read, may be null
+	 */
+	private ShaderPreprocessor(List<File> dependencies)
+	{
+		this.included = new HashSet<String>();
+		this.dependencies = dependencies;
+	}
+	
+	/**
+	 * Preprocesses a shader
+	 * @param file the shader's file
+	 * @param dependencies where to list every file read, including the shader, may be null
+	 * @return the preprocessed source
+	 * @throws IOException if a file can't be read
+	 */
+	public static String process(File file, List<File> dependencies) throws IOException
+	{
+		StringBuilder result = new StringBuilder();
+		new ShaderPreprocessor(dependencies).append(file, result);
+		return result.toString();
+	}
+	
+	/**
+	 * Adds a file to the result
+	 * @param file the file
+	 * @param result the result
+	 * @throws IOException if the file can't be read
+	 */
+	private void append(File file, StringBuilder result) throws IOException
+	{
+		if (!included.add(file.getCanonicalPath())) //Already included
+		{
+			return;
+		}
+		
+		if (dependencies != null)
+		{
+			dependencies.add(file);
+		}
+		
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try
+		{
+			String line;
+			
+			while ((line = reader.readLine()) != null)
+			{
+				line = stripComments(line).trim();
+				
+				if (line.isEmpty())
+				{
+					continue;
+				}
+				
+				if (line.startsWith(INCLUDE))
+				{
+					int start = line.indexOf('"');
+					int end = line.lastIndexOf('"');
+					
+					if (start < 0 || end <= start)
+					{
+						throw new IOException("Bad include in " + file + ": " + line);
+					}
+					
+					append(new File(file.getParentFile(), line.substring(start + 1, end)), result);
+					continue;
+				}
+				
+				result.append(line).append('\n');
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Removes the comments from a line, remembering if a block comment is left open
+	 * @param line the line
+	 * @return the line without comments
+	 */
+	private String stripComments(String line)
+	{
+		StringBuilder result = new StringBuilder(line.length());
+		int i = 0;
+		
+		while (i < line.length())
+		{
+			if (inComment)
+			{
+				int end = line.indexOf("*/", i);
+				
+				if (end < 0) //The rest of the line is a comment
+				{
+					return result.toString();
+				}
+				
+				inComment = false;
+				i = end + 2;
+				result.append(' '); //A comment separates tokens
+			}
+			else if (line.startsWith("//", i))
+			{
+				break;
+			}
+			else if (line.startsWith("/*", i))
+			{
+				inComment = true;
+				i += 2;
+			}
+			else
+			{
+				result.append(line.charAt(i++));
+			}
+		}
+		
+		return result.toString();
+	}
+	
+}
@@ -0,0 +1,308 @@
+package net.engine.render;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A texture decoded ahead of time into raw RGBA bytes with every mipmap level
+ * 
+ * The file is a header followed by each level from the full size image down to 1x1,
+ * four bytes per pixel, rows from the top of the image down. The header is ints and
+ * longs in the machine's byte order:
+ * 
+ * magic, version, width, height, level count, padding, the source file's length,
+ * the source file's last modified time
+ * 
+ * This doesn't use openGL so the asset baker can write blobs without a window.
+ * @author Davis
+ *
+ */
+public class TextureBlob
+{
+	
+	public static final String EXTENSION = ".tex"; //Added to the source file name
+	
+	public static final int MAGIC = 0x52584554; //"TEXR" read in little endian
+	
+	public static final int VERSION = 1; //Changed whenever the layout changes
+	
+	public static final int HEADER_SIZE = 48; //Bytes before the first level
+	
+	public static final int BYTES_PER_PIXEL = 4;
+	
+	private int width, height; //The size of the first level
+	
+	private ByteBuffer[] levels; //The pixels of each level
+	
+	/**
+	 * Creates a blob from its levels
+	 * @param width the width of the first level
+	 * @param height the height of the first level
+	 * @param levels the pixels of each level
+	 */
+	private TextureBlob(int width, int height, ByteBuffer[] levels)
+	{
+		this.width = width;
+		this.height = height;
+		this.levels = levels;
+	}
+	
+	/**
+	 * Gets the number of levels a texture of a size has
+	 * @param width the width
+	 * @param height the height
+	 * @return the number of levels down to 1x1
+	 */
+	public static int getLevelCount(int width, int height)
+	{
+		int levels = 1;
+		
+		while (width > 1 || height > 1)
+		{
+			width = Math.max(1, width / 2);
+			height = Math.max(1, height / 2);
+			levels++;
+		}
+		
+		return levels;
+	}
+	
+	/**
+	 * Decodes an image into a blob, making each smaller level by averaging 2x2 blocks of the one before
+	 * @param image the image
+	 * @return the blob
+	 */
+	public static TextureBlob create(BufferedImage image)
+	{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		ByteBuffer[] levels = new ByteBuffer[getLevelCount(width, height)];
+		
+		int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+		ByteBuffer level = ByteBuffer.allocateDirect(width * height * BYTES_PER_PIXEL);
+		
+		for (int i = 0; i < argb.length; i++)
+		{
+			int p = argb[i];
+			level.put((byte) (p >> 16)).put((byte) (p >> 8)).put((byte) p).put((byte) (p >>> 24));
+		}
+		
+		level.flip();
+		levels[0] = level;
+		
+		int w = width, h = height;
+		
+		for (int l = 1; l < levels.length; l++)
+		{
+			int nw = Math.max(1, w / 2);
+			int nh = Math.max(1, h / 2);
+			ByteBuffer next = ByteBuffer.allocateDirect(nw * nh * BYTES_PER_PIXEL);
+			
+			for (int y = 0; y < nh; y++)
+			{
+				int y0 = Math.min(y * 2, h - 1), y1 = Math.min(y * 2 + 1, h - 1);
+				
+				for (int x = 0; x < nw; x++)
+				{
+					int x0 = Math.min(x * 2, w - 1), x1 = Math.min(x * 2 + 1, w - 1);
+					
+					for (int c = 0; c < BYTES_PER_PIXEL; c++)
+					{
+						int sum = (level.get((y0 * w + x0) * BYTES_PER_PIXEL + c) & 0xFF) + (level.get((y0 * w + x1) * BYTES_PER_PIXEL + c) & 0xFF)
+								+ (level.get((y1 * w + x0) * BYTES_PER_PIXEL + c) & 0xFF) + (level.get((y1 * w + x1) * BYTES_PER_PIXEL + c) & 0xFF);
+						next.put((byte) ((sum + 2) / 4));
+					}
+				}
+			}
+			
+			next.flip();
+			levels[l] = next;
+			level = next;
+			w = nw;
+			h = nh;
+		}
+		
+		return new TextureBlob(width, height, levels);
+	}
+	
+	/**
+	 * Reads a blob by memory mapping it
+	 * @param file the blob file
+	 * @param source the file the blob was made from
+	 * @return the blob, or null if it is out of date or from another version
+	 * @throws IOException if the blob can't be read
+	 */
+	public static TextureBlob read(File file, File source) throws IOException
+	{
+		if (!file.isFile() || file.length() < HEADER_SIZE)
+		{
+			return null;
+		}
+		
+		MappedByteBuffer buffer;
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		
+		try
+		{
+			FileChannel channel = input.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			input.close();
+		}
+		
+		buffer.order(ByteOrder.nativeOrder());
+		
+		int magic = buffer.getInt(0);
+		int version = buffer.getInt(4);
+		int width = buffer.getInt(8);
+		int height = buffer.getInt(12);
+		int levelCount = buffer.getInt(16);
+		long sourceLength = buffer.getLong(24);
+		long sourceModified = buffer.getLong(32);
+		
+		if (magic != MAGIC || version != VERSION || width <= 0 || height <= 0 || levelCount != getLevelCount(width, height))
+		{
+			return null;
+		}
+		if (source.exists() && (sourceLength != source.length() || sourceModified != source.lastModified()))
+		{
+			return null;
+		}
+		
+		ByteBuffer[] levels = new ByteBuffer[levelCount];
+		int position = HEADER_SIZE;
+		int w = width, h = height;
+		
+		for (int l = 0; l < levelCount; l++)
+		{
+			int size = w * h * BYTES_PER_PIXEL;
+			
+			if (position + size > buffer.capacity()) //Cut off
+			{
+				return null;
+			}
+			
+			ByteBuffer level = buffer.duplicate();
+			level.position(position);
+			level.limit(position + size);
+			levels[l] = level.slice();
+			
+			position += size;
+			w = Math.max(1, w / 2);
+			h = Math.max(1, h / 2);
+		}
+		
+		return new TextureBlob(width, height, levels);
+	}
+	
+	/**
+	 * Writes the blob, creating the folders it is in
+	 * @param file the blob file
+	 * @param source the file the blob was made from
+	 * @throws IOException if it can't be written
+	 */
+	public void write(File file, File source) throws IOException
+	{
+		File folder = file.getParentFile();
+		if (folder != null)
+		{
+			folder.mkdirs();
+		}
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+		header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(levels.length).putInt(0);
+		header.putLong(source.length()).putLong(source.lastModified());
+		header.position(0);
+		
+		FileOutputStream stream = new FileOutputStream(file);
+		
+		try
+		{
+			FileChannel channel = stream.getChannel();
+			
+			while (header.hasRemaining())
+			{
+				channel.write(header);
+			}
+			
+			for (int l = 0; l < levels.length; l++)
+			{
+				ByteBuffer level = levels[l].duplicate();
+				
+				while (level.hasRemaining())
+				{
+					channel.write(level);
+				}
+			}
+		}
+		finally
+		{
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Gets the first level as ARGB ints, the way BufferedImage gives them
+	 * @return the pixels
+	 */
+	public int[] getBitMap()
+	{
+		ByteBuffer level = levels[0];
+		int[] bitMap = new int[width * height];
+		
+		for (int i = 0; i < bitMap.length; i++)
+		{
+			int at = i * BYTES_PER_PIXEL;
+			bitMap[i] = (level.get(at + 3) & 0xFF) << 24 | (level.get(at) & 0xFF) << 16 | (level.get(at + 1) & 0xFF) << 8 | (level.get(at + 2) & 0xFF);
+		}
+		
+		return bitMap;
+	}
+	
+	/**
+	 * Gets the width of the first level
+	 * @return the width
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * Gets the height of the first level
+	 * @return the height
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	/**
+	 * Gets the number of levels
+	 * @return the level count
+	 */
+	public int getLevelCount()
+	{
+		return levels.length;
+	}
+	
+	/**
+	 * Gets the pixels of a level
+	 * @param level the level, 0 is the full size image
+	 * @return the pixels
+	 */
+	public ByteBuffer getLevel(int level)
+	{
+		return levels[level];
+	}
+	
+}
@@ -0,0 +1,160 @@
+package net.engine.render;
+
+/**
+ * A handle to a uniform in a shader, looked up once when the shader is created
+ * so setting it does not need to look up the uniform's name
+ * 
+ * It also keeps the last value sent to the uniform so that sending the same
+ * value again can be skipped. Uniforms keep their values while other shaders
+ * are in use so the copy stays correct for as long as the shader exists.
+ * @author Davis
+ *
+ */
+public class UniformLocation
+{
+
+	private String name; //The uniform's name
+
+	private int location; //The pointer to the uniform
+	
+	private float[] shadow; //The last value sent, null if nothing has been sent
+	
+	private int shadowLength; //How many values of the shadow are used
+	
+	private int intShadow; //The last integer sent
+	
+	private boolean intShadowValid; //If an integer has been sent
+
+	/**
+	 * Creates a new uniform location
+	 * @param name the uniform's name
+	 * @param location the pointer to the uniform
+	 */
+	UniformLocation(String name, int location)
+	{
+		this.name = name;
+		this.location = location;
+	}
+
+	/**
+	 * Checks if the value is the last one sent and remembers it if it isn't
+	 * @param value the value
+	 * @return true if the value has already been sent
+	 */
+	boolean update(int value)
+	{
+		if (intShadowValid && intShadow == value)
+		{
+			return true;
+		}
+		
+		intShadow = value;
+		intShadowValid = true;
+		return false;
+	}
+	
+	/**
+	 * Checks if the value is the last one sent and remembers it if it isn't
+	 * @param value the value
+	 * @return true if the value has already been sent
+	 */
+	boolean update(float value)
+	{
+		if (shadow != null && shadowLength == 1 && shadow[0] == value)
+		{
+			return true;
+		}
+		
+		store(1)[0] = value;
+		return false;
+	}
+	
+	/**
+	 * Checks if the value is the last one sent and remembers it if it isn't
+	 * @param x the first value
+	 * @param y the second value
+	 * @param z the third value
+	 * @return true if the value has already been sent
+	 */
+	boolean update(float x, float y, float z)
+	{
+		if (shadow != null && shadowLength == 3 && shadow[0] == x && shadow[1] == y && shadow[2] == z)
+		{
+			return true;
+		}
+		
+		float[] s = store(3);
+		s[0] = x; s[1] = y; s[2] = z;
+		return false;
+	}
+	
+	/**
+	 * Checks if the values are the last ones sent and remembers them if they aren't
+	 * @param values the values
+	 * @return true if the values have already been sent
+	 */
+	boolean update(float[] values)
+	{
+		if (shadow != null && shadowLength == values.length)
+		{
+			boolean same = true;
+			
+			for (int i = 0; i < values.length && same; i++)
+			{
+				same = shadow[i] == values[i];
+			}
+			
+			if (same)
+			{
+				return true;
+			}
+		}
+		
+		System.arraycopy(values, 0, store(values.length), 0, values.length);
+		return false;
+	}
+	
+	/**
+	 * Forgets the last value sent so the next one is always sent
+	 */
+	public void invalidate()
+	{
+		shadowLength = 0;
+		intShadowValid = false;
+	}
+	
+	/**
+	 * Gets the array to store a value of some length in
+	 * @param length the length
+	 * @return the array
+	 */
+	private float[] store(int length)
+	{
+		if (shadow == null || shadow.length < length)
+		{
+			shadow = new float[length];
+		}
+		
+		shadowLength = length;
+		return shadow;
+	}
+	
+	/**
+	 * Gets the uniform's name
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Gets the pointer to the uniform
+	 * @return the pointer
+	 */
+	public int getLocation()
+	{
+		return location;
+	}
+
+}
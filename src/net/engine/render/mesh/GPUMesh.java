@@ -0,0 +1,302 @@
+package net.engine.render.mesh;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL33.*;
+
+import java.nio.FloatBuffer;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.BoundingSphere;
+import net.engine.render.InstanceBatch;
+import net.engine.render.RenderStats;
+import net.engine.render.Shader;
+
+/**
+ * A mesh that has been sent to openGL
+ * 
+ * It owns the vertex buffer, index buffer, and vertex array of the mesh and is
+ * shared by every model that draws the mesh. It counts the models using it and
+ * the buffers are deleted once the last one releases it.
+ * 
+ * The levels of detail of the mesh are ranges of the one index buffer so drawing
+ * a simpler level only changes where the draw starts and how many indices it reads.
+ * @author Davis
+ *
+ */
+public class GPUMesh
+{
+	
+	public static final int BYTES_PER_FLOAT = 4;
+	
+	public static final int BYTES_PER_INT = 4;
+	
+	public static final int BYTES_PER_SHORT = 2;
+	
+	private static int nextId = 0; //The id given to the next mesh
+	
+	private int id; //Identifies this mesh
+	
+	private int vboHandle, iboHandle; //The pointers to the buffers
+	
+	private int vaoHandle; //The pointer to the vertex array that remembers how the buffers are laid out
+	
+	private int instanceHandle; //The pointer to the buffer of instances, 0 until the mesh is drawn instanced
+	
+	private int indexCount; //How many indices the full mesh has
+	
+	private int[] lodOffsets; //Where each level of detail starts in the index buffer, in bytes
+	
+	private int[] lodCounts; //How many indices each level of detail has
+	
+	private float[] lodErrors; //About how far each level of detail is from the full mesh
+	
+	private int indexType; //GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+	
+	private int references; //How many models are using this mesh
+	
+	private BoundingBox bounds; //The box around the mesh
+	
+	private BoundingSphere sphere; //The sphere around the mesh
+	
+	/**
+	 * Sends a mesh to openGL, packing it first if it isn't already
+	 * @param mesh the mesh
+	 */
+	public GPUMesh(Mesh mesh)
+	{
+		mesh.pack(); //Does nothing for meshes that were loaded packed
+		
+		id = nextId++;
+		indexType = mesh.indexWidth == BYTES_PER_SHORT ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+		references = 0;
+		
+		int levels = mesh.getLODCount();
+		lodOffsets = new int[levels];
+		lodCounts = new int[levels];
+		lodErrors = new float[levels];
+		
+		for (int i = 0; i < levels; i++)
+		{
+			lodOffsets[i] = (mesh.lodOffsets == null ? 0 : mesh.lodOffsets[i]) * mesh.indexWidth;
+			lodCounts[i] = mesh.getLODIndexCount(i);
+			lodErrors[i] = mesh.lodErrors == null ? 0 : mesh.lodErrors[i];
+		}
+		
+		indexCount = lodCounts[0];
+		
+		if (mesh.bounds == null)
+		{
+			mesh.computeBounds();
+		}
+		
+		bounds = mesh.bounds;
+		sphere = mesh.sphere;
+		
+		//Buffer creation code
+		vboHandle = glGenBuffers();
+		iboHandle = glGenBuffers();
+		vaoHandle = glGenVertexArrays();
+		
+		glBindVertexArray(vaoHandle); //Everything from here on is recorded into the vertex array
+		
+		//Send the arrays to the buffers
+		glBindBuffer(GL_ARRAY_BUFFER, vboHandle);
+        glBufferData(GL_ARRAY_BUFFER, mesh.vertexData, GL_STATIC_DRAW); //For cached meshes this is straight from the mapped file
+        
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboHandle);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, mesh.indexData, GL_STATIC_DRAW);
+        
+        //Record where each attribute is in the vertex buffer, as the layout says
+        VertexLayout layout = mesh.layout;
+        int stride = layout.getStride();
+        
+        glEnableVertexAttribArray(Shader.VERTEX_LOCATION); //Positions are always three floats at the start of each vertex
+        glVertexAttribPointer(Shader.VERTEX_LOCATION, 3, GL_FLOAT, false, stride, 0);
+        
+        if (layout.hasTexCoords()) //If there is texture data:
+        {
+        	glEnableVertexAttribArray(Shader.TEXTURE_LOCATION);
+        	glVertexAttribPointer(Shader.TEXTURE_LOCATION, 2, layout.getTexType(), layout.isTexNormalized(), stride, layout.getTexOffset());
+        }
+        
+        if (layout.hasNormals()) //If there is normal data:
+        {
+        	glEnableVertexAttribArray(Shader.NORMAL_LOCATION); //Packed normals are 4 components with w ignored by the shader's vec3
+        	glVertexAttribPointer(Shader.NORMAL_LOCATION, layout.isNormalNormalized() ? 4 : 3, layout.getNormalType(), layout.isNormalNormalized(), stride, layout.getNormalOffset());
+        }
+        
+        glBindVertexArray(0); //Stop recording
+        
+        mesh.releaseCPUData(); //openGL has its own copy now
+	}
+	
+	/**
+	 * Gets the id of this mesh, unique among all meshes
+	 * @return the id
+	 */
+	public int getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * Gets the box around the mesh, in the mesh's own space
+	 * @return the box, which should not be modified
+	 */
+	public BoundingBox getBounds()
+	{
+		return bounds;
+	}
+	
+	/**
+	 * Gets the sphere around the mesh, in the mesh's own space
+	 * @return the sphere, which should not be modified
+	 */
+	public BoundingSphere getSphere()
+	{
+		return sphere;
+	}
+	
+	/**
+	 * Gets how many indices the full mesh has
+	 * @return the index count
+	 */
+	public int getIndexCount()
+	{
+		return indexCount;
+	}
+	
+	/**
+	 * Gets how many levels of detail there are, including the full mesh
+	 * @return the count
+	 */
+	public int getLODCount()
+	{
+		return lodCounts.length;
+	}
+	
+	/**
+	 * Gets how many indices a level of detail has
+	 * @param level the level, 0 for the full mesh
+	 * @return the index count
+	 */
+	public int getIndexCount(int level)
+	{
+		return lodCounts[level];
+	}
+	
+	/**
+	 * Gets about how far a level of detail is from the full mesh
+	 * @param level the level, 0 for the full mesh
+	 * @return the error in the mesh's own units
+	 */
+	public float getLODError(int level)
+	{
+		return lodErrors[level];
+	}
+	
+	/**
+	 * Gets the pointer to the vertex array
+	 * @return the pointer
+	 */
+	public int getVertexArrayHandle()
+	{
+		return vaoHandle;
+	}
+	
+	/**
+	 * Binds the buffers and their layout
+	 */
+	public void bind()
+	{
+		glBindVertexArray(vaoHandle);
+	}
+	
+	/**
+	 * Draws the mesh, it must be bound first
+	 * @param level the level of detail, 0 for the full mesh
+	 */
+	public void draw(int level)
+	{
+		glDrawElements(GL_TRIANGLES, lodCounts[level], indexType, lodOffsets[level]); //draw triangles, starting where the level starts in the index buffer
+		RenderStats.drawn();
+		RenderStats.trianglesSubmitted(lodCounts[level] / 3, indexCount / 3);
+	}
+	
+	/**
+	 * Draws many instances of the mesh in one call, it must be bound first
+	 * @param instances the instances laid out as InstanceBatch lays them out
+	 * @param count how many instances there are
+	 * @param level the level of detail every instance is drawn at, 0 for the full mesh
+	 */
+	public void drawInstanced(FloatBuffer instances, int count, int level)
+	{
+		if (instanceHandle == 0) //Add the instance attributes to the vertex array the first time
+		{
+			instanceHandle = glGenBuffers();
+			glBindBuffer(GL_ARRAY_BUFFER, instanceHandle);
+			
+			for (int i = 0; i < 4; i++) //A matrix attribute takes one location per column
+			{
+				int location = Shader.INSTANCE_MODEL_MATRIX_LOCATION + i;
+				glEnableVertexAttribArray(location);
+				glVertexAttribPointer(location, 4, GL_FLOAT, false, InstanceBatch.INSTANCE_BYTES, i * 4 * BYTES_PER_FLOAT);
+				glVertexAttribDivisor(location, 1); //Move to the next one once per instance instead of per vertex
+			}
+			for (int i = 0; i < 3; i++)
+			{
+				int location = Shader.INSTANCE_NORMAL_MATRIX_LOCATION + i;
+				glEnableVertexAttribArray(location);
+				glVertexAttribPointer(location, 3, GL_FLOAT, false, InstanceBatch.INSTANCE_BYTES, InstanceBatch.NORMAL_MATRIX_OFFSET + i * 3 * BYTES_PER_FLOAT);
+				glVertexAttribDivisor(location, 1);
+			}
+		}
+		else
+		{
+			glBindBuffer(GL_ARRAY_BUFFER, instanceHandle);
+		}
+		
+		glBufferData(GL_ARRAY_BUFFER, instances, GL_STREAM_DRAW); //Replace last frame's instances
+		glDrawElementsInstanced(GL_TRIANGLES, lodCounts[level], indexType, lodOffsets[level], count);
+		RenderStats.drawn();
+		RenderStats.trianglesSubmitted(lodCounts[level] / 3 * count, indexCount / 3 * count);
+	}
+	
+	/**
+	 * Marks another model as using this mesh
+	 */
+	public void retain()
+	{
+		references++;
+	}
+	
+	/**
+	 * Marks a model as no longer using this mesh, deleting the buffers if it was the last one
+	 * @return true if the buffers were deleted
+	 */
+	public boolean release()
+	{
+		references--;
+		
+		if (references > 0)
+		{
+			return false;
+		}
+		
+		glDeleteVertexArrays(vaoHandle);
+		glDeleteBuffers(vboHandle);
+		glDeleteBuffers(iboHandle);
+		
+		if (instanceHandle != 0)
+		{
+			glDeleteBuffers(instanceHandle);
+		}
+		
+		return true;
+	}
+	
+}
@@ -1,38 +1,291 @@
-package net.engine.render.mesh;
-
-/**
- * A simple container class
- * @author Davis
- *
- */
-public class Mesh
-{
-
-	public Vertex[] vertices;
-	public int[] indices;
-	public boolean texData, normalData;
-	public int vertexSize;
-	
-	/**
-	 * Create a blank mesh
-	 */
-	public Mesh() {}
-	
-	/**
-	 * Create a new mesh with starting vertices and indices
-	 * @param vertices the vertices
-	 * @param indices the indices
-	 * @param vertexSize the vertex size
-	 * @param texData is there texture data
-	 * @param normalData is there normal data
-	 */
-	public Mesh(Vertex[] vertices, int[] indices, int vertexSize, boolean texData, boolean normalData)
-	{
-		this.vertices = vertices;
-		this.indices = indices;
-		this.vertexSize = vertexSize;
-		this.texData = texData;
-		this.normalData = normalData;
-	}
-		
-}
\ No newline at end of file
+package net.engine.render.mesh;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.BoundingSphere;
+
+/**
+ * A simple container class
+ * 
+ * The vertices are kept as one primitive array per attribute, POSITION_SIZE floats per
+ * vertex for positions and so on, and the layout says how they are packed for openGL.
+ * A mesh holds these arrays, the packed bytes, or both. Meshes read from the binary cache
+ * only have the packed bytes.
+ * 
+ * Once a mesh is sent to openGL its CPU copy is released unless cpuAccess is set.
+ * 
+ * A mesh can have simpler levels of detail made by MeshSimplifier. They share the
+ * vertices and their indices follow the full mesh's in the same index array, so the
+ * full mesh is only the first getLODIndexCount(0) indices.
+ * @author Davis
+ *
+ */
+public class Mesh
+{
+	
+	public static final int POSITION_SIZE = 3;
+	public static final int TEXTURE_SIZE = 2;
+	public static final int NORMAL_SIZE = 3;
+	
+	public static final int MAX_SHORT_INDEXED_VERTICES = 65536; //Meshes with at most this many vertices use 16 bit indices
+
+	public float[] positions; //POSITION_SIZE floats per vertex
+	public float[] texCoords; //TEXTURE_SIZE floats per vertex, null if there are none
+	public float[] normals; //NORMAL_SIZE floats per vertex, null if there are none
+	public int[] indices;
+	public VertexLayout layout; //How the vertices are packed
+	
+	public int vertexCount, indexCount; //How many vertices and indices there are
+	
+	public ByteBuffer vertexData, indexData; //The packed vertices and indices, null until packed
+	
+	public int indexWidth; //The size of a packed index in bytes, 2 or 4
+	
+	public boolean cpuAccess; //If the positions and indices are kept after the mesh is sent to openGL, for picking or collision
+	
+	public BoundingBox bounds; //The box around the positions, null until computeBounds()
+	
+	public BoundingSphere sphere; //The sphere around the positions, null until computeBounds()
+	
+	public int[] lodOffsets; //The first index of each level of detail starting with the full mesh, null if there is only the full mesh
+	
+	public float[] lodErrors; //About how far each level is from the full mesh in the mesh's units, null if there is only the full mesh
+	
+	/**
+	 * Create a blank mesh
+	 */
+	public Mesh() {}
+	
+	/**
+	 * Create a new mesh with starting vertices and indices
+	 * @param positions the positions
+	 * @param texCoords the texture coordinates, null if there are none
+	 * @param normals the normals, null if there are none
+	 * @param indices the indices
+	 * @param layout how the vertices will be packed
+	 */
+	public Mesh(float[] positions, float[] texCoords, float[] normals, int[] indices, VertexLayout layout)
+	{
+		this.positions = positions;
+		this.texCoords = texCoords;
+		this.normals = normals;
+		this.indices = indices;
+		this.layout = layout;
+		this.vertexCount = positions.length / POSITION_SIZE;
+		this.indexCount = indices.length;
+	}
+	
+	/**
+	 * Create a new mesh from packed vertices and indices
+	 * @param vertexData the vertices
+	 * @param indexData the indices
+	 * @param vertexCount how many vertices there are
+	 * @param indexCount how many indices there are
+	 * @param layout how the vertices are packed
+	 * @param indexWidth the size of an index in bytes
+	 */
+	public Mesh(ByteBuffer vertexData, ByteBuffer indexData, int vertexCount, int indexCount, VertexLayout layout, int indexWidth)
+	{
+		this.vertexData = vertexData;
+		this.indexData = indexData;
+		this.vertexCount = vertexCount;
+		this.indexCount = indexCount;
+		this.layout = layout;
+		this.indexWidth = indexWidth;
+	}
+	
+	/**
+	 * Packs the vertices and indices into bytes if they haven't been already
+	 * 
+	 * The vertices are interleaved as the layout says. The indices are 16 bit if
+	 * there are few enough vertices and 32 bit otherwise. The arrays must be up to
+	 * date with any changes.
+	 */
+	public void pack()
+	{
+		if (vertexData == null)
+		{
+			vertexCount = positions.length / POSITION_SIZE;
+			vertexData = ByteBuffer.allocateDirect(vertexCount * layout.getStride()).order(ByteOrder.nativeOrder());
+			
+			for (int i = 0; i < vertexCount; i++) //Add the data into the buffer for each vertex
+			{
+				layout.put(vertexData, this, i);
+			}
+			
+			vertexData.flip();
+		}
+		
+		if (indexData == null)
+		{
+			indexCount = indices.length;
+			indexWidth = vertexCount <= MAX_SHORT_INDEXED_VERTICES ? GPUMesh.BYTES_PER_SHORT : GPUMesh.BYTES_PER_INT;
+			indexData = ByteBuffer.allocateDirect(indexCount * indexWidth).order(ByteOrder.nativeOrder());
+			
+			if (indexWidth == GPUMesh.BYTES_PER_SHORT)
+			{
+				ShortBuffer shorts = indexData.asShortBuffer();
+				for (int i = 0; i < indexCount; i++)
+				{
+					shorts.put((short) indices[i]); //Read back as unsigned
+				}
+			}
+			else
+			{
+				indexData.asIntBuffer().put(indices);
+			}
+		}
+	}
+	
+	/**
+	 * Gets how many levels of detail there are, including the full mesh
+	 * @return the count
+	 */
+	public int getLODCount()
+	{
+		return lodOffsets == null ? 1 : lodOffsets.length;
+	}
+	
+	/**
+	 * Gets how many indices a level of detail has
+	 * @param level the level, 0 for the full mesh
+	 * @return the index count
+	 */
+	public int getLODIndexCount(int level)
+	{
+		if (lodOffsets == null)
+		{
+			return indexCount;
+		}
+		
+		return (level + 1 < lodOffsets.length ? lodOffsets[level + 1] : indexCount) - lodOffsets[level];
+	}
+	
+	/**
+	 * Finds the box and sphere around the positions, from the packed bytes if the
+	 * positions aren't there
+	 * 
+	 * The sphere is centered on the box and reaches the furthest position.
+	 */
+	public void computeBounds()
+	{
+		bounds = new BoundingBox();
+		
+		ByteBuffer data = positions == null ? vertexData.duplicate().order(ByteOrder.nativeOrder()) : null;
+		int stride = layout.getStride();
+		
+		for (int i = 0; i < vertexCount; i++)
+		{
+			bounds.include(getPosition(data, stride, i, 0), getPosition(data, stride, i, 1), getPosition(data, stride, i, 2));
+		}
+		
+		float cx = (bounds.minX + bounds.maxX) / 2, cy = (bounds.minY + bounds.maxY) / 2, cz = (bounds.minZ + bounds.maxZ) / 2;
+		float furthest = 0;
+		
+		for (int i = 0; i < vertexCount; i++)
+		{
+			float dx = getPosition(data, stride, i, 0) - cx, dy = getPosition(data, stride, i, 1) - cy, dz = getPosition(data, stride, i, 2) - cz;
+			furthest = Math.max(furthest, dx * dx + dy * dy + dz * dz);
+		}
+		
+		sphere = new BoundingSphere(cx, cy, cz, (float) Math.sqrt(furthest));
+	}
+	
+	/**
+	 * Gets one component of a position
+	 * @param data the packed vertices, or null to read the positions
+	 * @param stride the size of a packed vertex
+	 * @param vertex which vertex
+	 * @param component which component
+	 * @return the component
+	 */
+	private float getPosition(ByteBuffer data, int stride, int vertex, int component)
+	{
+		if (data == null)
+		{
+			return positions[vertex * POSITION_SIZE + component];
+		}
+		
+		return data.getFloat(vertex * stride + component * GPUMesh.BYTES_PER_FLOAT); //Positions are always floats at the start of each vertex
+	}
+	
+	/**
+	 * Fills the positions and indices from the packed bytes if they aren't there,
+	 * for meshes read from the binary cache that need CPU access
+	 */
+	public void unpack()
+	{
+		if (positions == null)
+		{
+			positions = new float[vertexCount * POSITION_SIZE];
+			ByteBuffer data = vertexData.duplicate().order(ByteOrder.nativeOrder());
+			int stride = layout.getStride();
+			
+			for (int i = 0; i < vertexCount; i++) //Positions are always floats at the start of each vertex
+			{
+				for (int c = 0; c < POSITION_SIZE; c++)
+				{
+					positions[i * POSITION_SIZE + c] = data.getFloat(i * stride + c * GPUMesh.BYTES_PER_FLOAT);
+				}
+			}
+		}
+		
+		if (indices == null)
+		{
+			indices = new int[indexCount];
+			ByteBuffer data = indexData.duplicate().order(ByteOrder.nativeOrder());
+			
+			if (indexWidth == GPUMesh.BYTES_PER_SHORT)
+			{
+				ShortBuffer shorts = data.asShortBuffer();
+				for (int i = 0; i < indexCount; i++)
+				{
+					indices[i] = shorts.get(i) & 0xFFFF;
+				}
+			}
+			else
+			{
+				IntBuffer ints = data.asIntBuffer();
+				ints.get(indices);
+			}
+		}
+	}
+	
+	/**
+	 * Drops everything but the counts and layout, called once the mesh is in openGL
+	 * 
+	 * If cpuAccess is set the positions and indices are kept, unpacking them if needed
+	 */
+	public void releaseCPUData()
+	{
+		if (cpuAccess)
+		{
+			unpack();
+		}
+		else
+		{
+			positions = null;
+			indices = null;
+		}
+		
+		texCoords = null;
+		normals = null;
+		vertexData = null;
+		indexData = null;
+	}
+	
+	/**
+	 * Checks if the mesh can still be sent to openGL
+	 * @return if it has its vertices and indices in some form
+	 */
+	public boolean hasData()
+	{
+		boolean vertices = vertexData != null || positions != null && (texCoords != null || !layout.hasTexCoords()) && (normals != null || !layout.hasNormals());
+		return vertices && (indexData != null || indices != null);
+	}
+	
+}
@@ -0,0 +1,286 @@
+package net.engine.render.mesh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes meshes in a binary format that can be handed to openGL without parsing
+ * 
+ * The file is a header followed by the packed vertices and then the packed indices, exactly
+ * as Mesh.pack() lays them out, and then the levels of detail. The header is ints and longs in
+ * the machine's byte order:
+ * 
+ * magic, version, flags, vertex layout code, vertex count, index count, index width in bytes,
+ * vertex stride in bytes, the source file's length, the source file's last modified time,
+ * level of detail count
+ * 
+ * Each level of detail is its first index as an int and its error as a float. A mesh with
+ * only the full mesh has no levels written.
+ * 
+ * A cache file is only used if it was written from a source file of the same length and
+ * modified time, with the same flags, on a machine with the same byte order. If the source
+ * file isn't there at all the cache is used as is, so baked assets can be shipped alone.
+ * @author Davis
+ *
+ */
+public class MeshCache
+{
+	
+	public static final String EXTENSION = ".mesh"; //Added to the source file name
+	
+	public static final int MAGIC = 0x4853454D; //"MESH" read in little endian
+	
+	public static final int VERSION = 4; //Changed whenever the layout changes
+	
+	public static final int HEADER_SIZE = 64; //Bytes before the vertices, a multiple of 16
+	
+	public static final int LOD_SIZE = 8; //Bytes for each level of detail
+	
+	//Flags
+	public static final int OPTIMIZED = 4; //The mesh went through MeshOptimizer
+	public static final int LODS = 8; //The mesh went through MeshSimplifier.generateLODs()
+	
+	/**
+	 * This class should not have instances
+	 */
+	private MeshCache() {}
+	
+	/**
+	 * Reads a mesh from a cache file by memory mapping it
+	 * 
+	 * The header and levels of detail are read and checked first and the file is only mapped
+	 * once they pass, so a cache that is out of date is never left mapped. A mapped file can't
+	 * be written again on some systems until the mapping is collected.
+	 * @param cache the cache file
+	 * @param source the file the cache was made from
+	 * @param optimized if the mesh needs to have been optimized
+	 * @param lods if the mesh needs to have had levels of detail made
+	 * @param quantized if the mesh's attributes need to be quantized
+	 * @return the mesh with only packed data, or null if the cache doesn't exist or is out of date
+	 * @throws IOException if the cache can't be read
+	 */
+	public static Mesh read(File cache, File source, boolean optimized, boolean lods, boolean quantized) throws IOException
+	{
+		if (!cache.isFile() || cache.length() < HEADER_SIZE)
+		{
+			return null;
+		}
+		
+		RandomAccessFile file = new RandomAccessFile(cache, "r");
+		
+		try
+		{
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+			
+			if (!readFully(channel, header, 0))
+			{
+				return null;
+			}
+			
+			int magic = header.getInt(0);
+			int version = header.getInt(4);
+			int flags = header.getInt(8);
+			VertexLayout layout = VertexLayout.fromCode(header.getInt(12));
+			int vertexCount = header.getInt(16);
+			int indexCount = header.getInt(20);
+			int indexWidth = header.getInt(24);
+			int stride = header.getInt(28);
+			long sourceLength = header.getLong(32);
+			long sourceModified = header.getLong(40);
+			int lodCount = header.getInt(48);
+			
+			if (magic != MAGIC || version != VERSION || layout == null || layout.getStride() != stride) //Different byte order or an old format
+			{
+				return null;
+			}
+			if (layout.getCode() != VertexLayout.create(layout.hasTexCoords(), layout.hasNormals(), quantized).getCode())
+			{
+				return null;
+			}
+			if (indexWidth != GPUMesh.BYTES_PER_SHORT && indexWidth != GPUMesh.BYTES_PER_INT)
+			{
+				return null;
+			}
+			if (source.exists() && (sourceLength != source.length() || sourceModified != source.lastModified())) //The source has changed, without a source the cache is all there is
+			{
+				return null;
+			}
+			if (((flags & OPTIMIZED) != 0) != optimized || ((flags & LODS) != 0) != lods)
+			{
+				return null;
+			}
+			if (vertexCount < 0 || indexCount < 0 || lodCount < 0 || lodCount > MeshSimplifier.MAX_LODS)
+			{
+				return null;
+			}
+			
+			long vertexBytes = (long) vertexCount * stride;
+			long indexBytes = (long) indexCount * indexWidth;
+			
+			if (HEADER_SIZE + vertexBytes + indexBytes + lodCount * LOD_SIZE != channel.size()) //Cut off or corrupted
+			{
+				return null;
+			}
+			
+			int[] lodOffsets = null;
+			float[] lodErrors = null;
+			
+			if (lodCount > 0)
+			{
+				ByteBuffer levels = ByteBuffer.allocate(lodCount * LOD_SIZE).order(ByteOrder.nativeOrder());
+				
+				if (!readFully(channel, levels, HEADER_SIZE + vertexBytes + indexBytes))
+				{
+					return null;
+				}
+				
+				lodOffsets = new int[lodCount];
+				lodErrors = new float[lodCount];
+				
+				for (int i = 0; i < lodCount; i++)
+				{
+					lodOffsets[i] = levels.getInt(i * LOD_SIZE);
+					lodErrors[i] = levels.getFloat(i * LOD_SIZE + 4);
+					
+					if (lodOffsets[i] < 0 || lodOffsets[i] >= indexCount || i > 0 && lodOffsets[i] <= lodOffsets[i - 1])
+					{
+						return null;
+					}
+				}
+			}
+			
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); //The mapping stays valid after the file is closed
+			buffer.order(ByteOrder.nativeOrder());
+			
+			ByteBuffer vertexData = slice(buffer, HEADER_SIZE, (int) vertexBytes);
+			ByteBuffer indexData = slice(buffer, HEADER_SIZE + (int) vertexBytes, (int) indexBytes);
+			
+			Mesh mesh = new Mesh(vertexData, indexData, vertexCount, indexCount, layout, indexWidth);
+			mesh.lodOffsets = lodOffsets;
+			mesh.lodErrors = lodErrors;
+			mesh.computeBounds();
+			return mesh;
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+	
+	/**
+	 * Writes a mesh to a cache file, creating the folders it is in
+	 * @param cache the cache file
+	 * @param source the file the mesh was made from
+	 * @param mesh the mesh, packed if it isn't already
+	 * @param optimized if the mesh went through MeshOptimizer
+	 * @param lods if the mesh went through MeshSimplifier.generateLODs(), even if no levels were made
+	 * @throws IOException if the cache can't be written
+	 */
+	public static void write(File cache, File source, Mesh mesh, boolean optimized, boolean lods) throws IOException
+	{
+		mesh.pack();
+		
+		File folder = cache.getParentFile();
+		if (folder != null)
+		{
+			folder.mkdirs();
+		}
+		
+		int flags = (optimized ? OPTIMIZED : 0) | (lods ? LODS : 0);
+		int lodCount = mesh.lodOffsets == null ? 0 : mesh.lodOffsets.length;
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+		header.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(mesh.layout.getCode());
+		header.putInt(mesh.vertexCount).putInt(mesh.indexCount).putInt(mesh.indexWidth).putInt(mesh.layout.getStride());
+		header.putLong(source.length()).putLong(source.lastModified());
+		header.putInt(lodCount);
+		header.position(HEADER_SIZE); //The rest is padding
+		header.flip();
+		
+		ByteBuffer levels = ByteBuffer.allocate(lodCount * LOD_SIZE).order(ByteOrder.nativeOrder());
+		for (int i = 0; i < lodCount; i++)
+		{
+			levels.putInt(mesh.lodOffsets[i]).putFloat(mesh.lodErrors[i]);
+		}
+		levels.flip();
+		
+		FileOutputStream stream = new FileOutputStream(cache);
+		
+		try
+		{
+			FileChannel channel = stream.getChannel();
+			
+			writeFully(channel, header);
+			writeFully(channel, mesh.vertexData.duplicate()); //Duplicates so the mesh's buffers aren't moved
+			writeFully(channel, mesh.indexData.duplicate());
+			writeFully(channel, levels);
+		}
+		finally
+		{
+			stream.close();
+		}
+	}
+	
+	/**
+	 * Gets part of a buffer as its own buffer
+	 * @param buffer the buffer
+	 * @param start the first byte
+	 * @param length how many bytes
+	 * @return the part
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int start, int length)
+	{
+		ByteBuffer copy = buffer.duplicate();
+		copy.position(start);
+		copy.limit(start + length);
+		
+		return copy.slice().order(ByteOrder.nativeOrder());
+	}
+	
+	/**
+	 * Reads from a channel until a buffer is full
+	 * @param channel the channel
+	 * @param buffer the buffer
+	 * @param position where in the channel to start
+	 * @return false if the channel ended first
+	 * @throws IOException if it can't be read
+	 */
+	private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int read = channel.read(buffer, position);
+			
+			if (read < 0)
+			{
+				return false;
+			}
+			
+			position += read;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Writes all of a buffer to a channel
+	 * @param channel the channel
+	 * @param buffer the buffer
+	 * @throws IOException if it can't be written
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+	
+}
@@ -0,0 +1,522 @@
+package net.engine.render.mesh;
+
+import java.util.Arrays;
+
+/**
+ * Reorders the triangles and vertices of indexed meshes so the GPU does less work drawing them
+ * 
+ * Triangles are reordered with Tom Forsyth's linear-speed vertex cache optimization so that
+ * triangles sharing vertices are drawn close together and the transformed vertices are reused.
+ * The triangles are then split into clusters that each keep most of that cache reuse, and the
+ * clusters are sorted so the ones facing outwards from the middle of the mesh are drawn first,
+ * which lets the depth test throw away more of the pixels behind them.
+ * Vertices are then reordered into the order they are first used so reading them from the
+ * vertex buffer is mostly sequential. None of this changes what is drawn.
+ * 
+ * None of this uses openGL so it can be run without a window.
+ * @author Davis
+ *
+ */
+public class MeshOptimizer
+{
+	
+	public static final int CACHE_SIZE = 32; //The size of the cache the triangle order is scored against
+	
+	public static final int FIFO_CACHE_SIZE = 16; //The size of the FIFO cache used to measure a mesh, close to real hardware
+	
+	public static final float OVERDRAW_THRESHOLD = 1.05f; //How much worse the ACMR of a cluster may be than the run it was split from
+	
+	//Forsyth's scoring constants
+	private static final float CACHE_DECAY_POWER = 1.5f;
+	private static final float LAST_TRIANGLE_SCORE = 0.75f;
+	private static final float VALENCE_BOOST_SCALE = 2.0f;
+	private static final float VALENCE_BOOST_POWER = 0.5f;
+	
+	/**
+	 * This class should not have instances
+	 */
+	private MeshOptimizer() {}
+	
+	/**
+	 * Reorders the triangles and then the vertices of a mesh in place
+	 * @param mesh the mesh
+	 */
+	public static void optimize(Mesh mesh)
+	{
+		mesh.indices = optimizeTriangles(mesh.indices, mesh.positions, mesh.vertexCount);
+		optimizeVertexFetch(mesh);
+	}
+	
+	/**
+	 * Reorders triangles for the vertex cache and then for overdraw
+	 * @param indices the indices, three per triangle
+	 * @param positions the positions of the vertices, POSITION_SIZE floats each
+	 * @param vertexCount the number of vertices the indices refer to
+	 * @return the reordered indices
+	 */
+	public static int[] optimizeTriangles(int[] indices, float[] positions, int vertexCount)
+	{
+		return optimizeOverdraw(optimizeVertexCache(indices, vertexCount), positions, vertexCount, OVERDRAW_THRESHOLD);
+	}
+	
+	/**
+	 * Reorders triangles so that the vertices they use are likely to still be in the vertex cache
+	 * @param indices the indices, three per triangle
+	 * @param vertexCount the number of vertices the indices refer to
+	 * @return the reordered indices
+	 */
+	public static int[] optimizeVertexCache(int[] indices, int vertexCount)
+	{
+		int triangleCount = indices.length / 3;
+		
+		//Find which triangles use each vertex, the triangles of vertex v are triangles[offsets[v]] to triangles[offsets[v] + valence[v] - 1]
+		int[] valence = new int[vertexCount]; //The number of triangles using each vertex that haven't been added yet
+		for (int i = 0; i < indices.length; i++)
+		{
+			valence[indices[i]]++;
+		}
+		
+		int[] offsets = new int[vertexCount];
+		for (int v = 1; v < vertexCount; v++)
+		{
+			offsets[v] = offsets[v - 1] + valence[v - 1];
+		}
+		
+		int[] triangles = new int[indices.length];
+		int[] filled = new int[vertexCount];
+		for (int t = 0; t < triangleCount; t++)
+		{
+			for (int k = 0; k < 3; k++)
+			{
+				int v = indices[t * 3 + k];
+				triangles[offsets[v] + filled[v]++] = t;
+			}
+		}
+		
+		float[] vertexScore = new float[vertexCount];
+		for (int v = 0; v < vertexCount; v++)
+		{
+			vertexScore[v] = scoreVertex(-1, valence[v]);
+		}
+		
+		float[] triangleScore = new float[triangleCount];
+		for (int t = 0; t < triangleCount; t++)
+		{
+			triangleScore[t] = vertexScore[indices[t * 3]] + vertexScore[indices[t * 3 + 1]] + vertexScore[indices[t * 3 + 2]];
+		}
+		
+		boolean[] added = new boolean[triangleCount];
+		int[] cache = new int[CACHE_SIZE + 3]; //The cache can overflow by a triangle before it is trimmed
+		int[] newCache = new int[CACHE_SIZE + 3];
+		int cacheCount = 0;
+		
+		int[] result = new int[triangleCount * 3];
+		int bestTriangle = -1;
+		int scanStart = 0; //Every triangle before this has been added
+		
+		for (int out = 0; out < triangleCount; out++)
+		{
+			if (bestTriangle < 0) //Nothing in the cache has triangles left, start again at the best triangle anywhere
+			{
+				float bestScore = -1;
+				
+				while (added[scanStart])
+				{
+					scanStart++;
+				}
+				
+				for (int t = scanStart; t < triangleCount; t++)
+				{
+					if (!added[t] && triangleScore[t] > bestScore)
+					{
+						bestScore = triangleScore[t];
+						bestTriangle = t;
+					}
+				}
+			}
+			
+			//Add the triangle
+			added[bestTriangle] = true;
+			int newCount = 0;
+			
+			for (int k = 0; k < 3; k++)
+			{
+				int v = indices[bestTriangle * 3 + k];
+				result[out * 3 + k] = v;
+				newCache[newCount++] = v;
+				
+				//Remove the triangle from the vertex's triangles
+				int start = offsets[v];
+				int end = start + valence[v] - 1;
+				for (int j = start; j <= end; j++)
+				{
+					if (triangles[j] == bestTriangle)
+					{
+						triangles[j] = triangles[end];
+						break;
+					}
+				}
+				valence[v]--;
+			}
+			
+			//The triangle's vertices move to the front of the cache
+			for (int i = 0; i < cacheCount; i++)
+			{
+				int v = cache[i];
+				if (v != newCache[0] && v != newCache[1] && v != newCache[2])
+				{
+					newCache[newCount++] = v;
+				}
+			}
+			
+			int[] swap = cache; //The new cache becomes the cache
+			cache = newCache;
+			newCache = swap;
+			cacheCount = newCount;
+			
+			//Rescore every vertex that was in the cache, including the ones that just fell out
+			for (int i = 0; i < cacheCount; i++)
+			{
+				int v = cache[i];
+				int position = i < CACHE_SIZE ? i : -1;
+				vertexScore[v] = scoreVertex(position, valence[v]);
+			}
+			
+			//Rescore their triangles and pick the best one to add next
+			bestTriangle = -1;
+			float bestScore = -1;
+			
+			for (int i = 0; i < cacheCount; i++)
+			{
+				int v = cache[i];
+				int start = offsets[v];
+				int end = start + valence[v];
+				
+				for (int j = start; j < end; j++)
+				{
+					int t = triangles[j];
+					float score = vertexScore[indices[t * 3]] + vertexScore[indices[t * 3 + 1]] + vertexScore[indices[t * 3 + 2]];
+					triangleScore[t] = score;
+					
+					if (score > bestScore)
+					{
+						bestScore = score;
+						bestTriangle = t;
+					}
+				}
+			}
+			
+			if (cacheCount > CACHE_SIZE)
+			{
+				cacheCount = CACHE_SIZE;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Reorders triangles already ordered for the vertex cache so that fewer pixels are drawn over
+	 * 
+	 * The triangles are split into clusters wherever the cache order starts somewhere new, and
+	 * those are split again wherever their ACMR is still within threshold of the whole run.
+	 * Clusters facing away from the middle of the mesh are drawn first since they are the most
+	 * likely to be in front of the others from any direction.
+	 * @param indices the indices, three per triangle
+	 * @param positions the positions of the vertices, POSITION_SIZE floats each
+	 * @param vertexCount the number of vertices the indices refer to
+	 * @param threshold how much worse the ACMR of a cluster may be than its run, 1 keeps all the cache reuse
+	 * @return the reordered indices
+	 */
+	public static int[] optimizeOverdraw(int[] indices, float[] positions, int vertexCount, float threshold)
+	{
+		int triangleCount = indices.length / 3;
+		
+		if (triangleCount < 2)
+		{
+			return indices.clone();
+		}
+		
+		int[] insertedAt = new int[vertexCount]; //The time each vertex was put in the simulated cache
+		Arrays.fill(insertedAt, -FIFO_CACHE_SIZE - 1);
+		int[] time = new int[1]; //Counts up with every miss, jumps to empty the cache
+		
+		//Runs start wherever all three vertices of a triangle miss the cache
+		int[] runs = new int[triangleCount + 1];
+		int runCount = 0;
+		
+		for (int t = 0; t < triangleCount; t++)
+		{
+			int misses = simulateTriangle(indices, t, insertedAt, time);
+			
+			if (t == 0 || misses == 3)
+			{
+				runs[runCount++] = t;
+			}
+		}
+		
+		runs[runCount] = triangleCount;
+		
+		//Split each run into clusters whose ACMR is close enough to the run's
+		int[] clusters = new int[triangleCount + 1];
+		int clusterCount = 0;
+		
+		for (int r = 0; r < runCount; r++)
+		{
+			int start = runs[r], end = runs[r + 1];
+			
+			time[0] += FIFO_CACHE_SIZE + 1; //Start with an empty cache
+			int runMisses = 0;
+			for (int t = start; t < end; t++)
+			{
+				runMisses += simulateTriangle(indices, t, insertedAt, time);
+			}
+			
+			float limit = threshold * runMisses / (end - start); //The most misses per triangle a cluster can have
+			
+			time[0] += FIFO_CACHE_SIZE + 1;
+			clusters[clusterCount++] = start;
+			int clusterStart = start;
+			int clusterMisses = 0;
+			
+			for (int t = start; t < end - 1; t++)
+			{
+				clusterMisses += simulateTriangle(indices, t, insertedAt, time);
+				
+				if (clusterMisses <= limit * (t + 1 - clusterStart)) //Good enough, the next triangle starts a new cluster
+				{
+					clusterStart = t + 1;
+					clusters[clusterCount++] = clusterStart;
+					clusterMisses = 0;
+					time[0] += FIFO_CACHE_SIZE + 1;
+				}
+			}
+		}
+		
+		clusters[clusterCount] = triangleCount;
+		
+		//The middle of the mesh, the average of its vertices
+		float[] center = new float[3];
+		for (int v = 0; v < vertexCount; v++)
+		{
+			for (int k = 0; k < 3; k++)
+			{
+				center[k] += positions[v * Mesh.POSITION_SIZE + k] / vertexCount;
+			}
+		}
+		
+		//Sort the clusters by how far their middle is in front of the center along their average normal, largest first
+		long[] order = new long[clusterCount];
+		float[] normal = new float[3];
+		float[] middle = new float[3];
+		
+		for (int c = 0; c < clusterCount; c++)
+		{
+			Arrays.fill(normal, 0);
+			Arrays.fill(middle, 0);
+			float area = 0;
+			
+			for (int t = clusters[c]; t < clusters[c + 1]; t++)
+			{
+				int a = indices[t * 3] * Mesh.POSITION_SIZE, b = indices[t * 3 + 1] * Mesh.POSITION_SIZE, d = indices[t * 3 + 2] * Mesh.POSITION_SIZE;
+				float e1x = positions[b] - positions[a], e1y = positions[b + 1] - positions[a + 1], e1z = positions[b + 2] - positions[a + 2];
+				float e2x = positions[d] - positions[a], e2y = positions[d + 1] - positions[a + 1], e2z = positions[d + 2] - positions[a + 2];
+				float nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x; //As long as twice the area
+				float triangleArea = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+				
+				normal[0] += nx;
+				normal[1] += ny;
+				normal[2] += nz;
+				
+				for (int k = 0; k < 3; k++)
+				{
+					middle[k] += (positions[a + k] + positions[b + k] + positions[d + k]) / 3 * triangleArea;
+				}
+				
+				area += triangleArea;
+			}
+			
+			float length = (float) Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+			float key = 0;
+			
+			if (area > 0 && length > 0) //Clusters of flat triangles stay in the middle
+			{
+				for (int k = 0; k < 3; k++)
+				{
+					key += (middle[k] / area - center[k]) * normal[k] / length;
+				}
+			}
+			
+			int bits = Float.floatToIntBits(-key); //Negated so the sort puts the largest first
+			bits ^= (bits >> 31) & 0x7fffffff; //Negative floats sort backwards as ints, flip them
+			order[c] = (long) bits << 32 | c;
+		}
+		
+		Arrays.sort(order); //Primitive sort so no objects are made for each cluster
+		
+		int[] result = new int[indices.length];
+		int at = 0;
+		
+		for (int i = 0; i < clusterCount; i++)
+		{
+			int c = (int) order[i];
+			int length = (clusters[c + 1] - clusters[c]) * 3;
+			System.arraycopy(indices, clusters[c] * 3, result, at, length);
+			at += length;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Draws a triangle with a simulated FIFO cache
+	 * @param indices the indices, three per triangle
+	 * @param t the triangle
+	 * @param insertedAt the time each vertex was put in the cache, changed in place
+	 * @param time the current time in its first value, moved on by each miss
+	 * @return how many of the triangle's vertices missed the cache
+	 */
+	private static int simulateTriangle(int[] indices, int t, int[] insertedAt, int[] time)
+	{
+		int misses = 0;
+		
+		for (int k = 0; k < 3; k++)
+		{
+			int v = indices[t * 3 + k];
+			
+			if (time[0] - insertedAt[v] > FIFO_CACHE_SIZE)
+			{
+				insertedAt[v] = time[0]++;
+				misses++;
+			}
+		}
+		
+		return misses;
+	}
+	
+	/**
+	 * Scores how much adding a triangle that uses a vertex would help
+	 * @param cachePosition where the vertex is in the cache, -1 if it isn't
+	 * @param valence how many triangles still use the vertex
+	 * @return the score
+	 */
+	private static float scoreVertex(int cachePosition, int valence)
+	{
+		if (valence == 0) //Nothing uses the vertex anymore
+		{
+			return -1;
+		}
+		
+		float score = 0;
+		
+		if (cachePosition >= 0)
+		{
+			if (cachePosition < 3) //The vertices of the last triangle get a fixed score so strips aren't preferred too much
+			{
+				score = LAST_TRIANGLE_SCORE;
+			}
+			else
+			{
+				float scaler = 1.0f / (CACHE_SIZE - 3);
+				score = (float) Math.pow(1.0f - (cachePosition - 3) * scaler, CACHE_DECAY_POWER);
+			}
+		}
+		
+		score += VALENCE_BOOST_SCALE * (float) Math.pow(valence, -VALENCE_BOOST_POWER); //Finish off vertices with few triangles left
+		
+		return score;
+	}
+	
+	/**
+	 * Reorders the vertices of a mesh into the order the indices first use them,
+	 * dropping any vertices that are never used
+	 * @param mesh the mesh, changed in place
+	 */
+	public static void optimizeVertexFetch(Mesh mesh)
+	{
+		int[] remap = new int[mesh.vertexCount]; //The new position of each vertex
+		Arrays.fill(remap, -1);
+		
+		int[] order = new int[mesh.vertexCount]; //The old position of each new vertex
+		int vertexCount = 0;
+		
+		for (int i = 0; i < mesh.indices.length; i++)
+		{
+			int v = mesh.indices[i];
+			
+			if (remap[v] < 0)
+			{
+				remap[v] = vertexCount;
+				order[vertexCount++] = v;
+			}
+			
+			mesh.indices[i] = remap[v];
+		}
+		
+		mesh.positions = reorder(mesh.positions, Mesh.POSITION_SIZE, order, vertexCount);
+		mesh.texCoords = reorder(mesh.texCoords, Mesh.TEXTURE_SIZE, order, vertexCount);
+		mesh.normals = reorder(mesh.normals, Mesh.NORMAL_SIZE, order, vertexCount);
+		mesh.vertexCount = vertexCount;
+	}
+	
+	/**
+	 * Reorders an attribute of the vertices
+	 * @param values the attribute, may be null
+	 * @param size the floats per vertex
+	 * @param order the old position of each new vertex
+	 * @param vertexCount how many vertices are kept
+	 * @return the reordered attribute, null if it was null
+	 */
+	private static float[] reorder(float[] values, int size, int[] order, int vertexCount)
+	{
+		if (values == null)
+		{
+			return null;
+		}
+		
+		float[] result = new float[vertexCount * size];
+		
+		for (int i = 0; i < vertexCount; i++)
+		{
+			System.arraycopy(values, order[i] * size, result, i * size, size);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Calculates the average cache miss ratio, how many vertices are transformed per triangle,
+	 * of drawing indices with a FIFO vertex cache
+	 * 
+	 * 3 is the worst, 0.5 is the best for a large regular mesh
+	 * @param indices the indices, three per triangle
+	 * @param vertexCount the number of vertices the indices refer to
+	 * @param cacheSize the number of vertices the cache holds
+	 * @return the average cache miss ratio
+	 */
+	public static float calculateACMR(int[] indices, int vertexCount, int cacheSize)
+	{
+		if (indices.length < 3)
+		{
+			return 0;
+		}
+		
+		int[] insertedAt = new int[vertexCount]; //The miss that put each vertex in the cache
+		Arrays.fill(insertedAt, -cacheSize - 1);
+		int misses = 0;
+		
+		for (int i = 0; i < indices.length; i++)
+		{
+			int v = indices[i];
+			
+			if (misses - insertedAt[v] > cacheSize) //A vertex leaves a FIFO cache once cacheSize newer vertices have come in
+			{
+				insertedAt[v] = misses;
+				misses++;
+			}
+		}
+		
+		return misses / (float) (indices.length / 3);
+	}
+	
+}
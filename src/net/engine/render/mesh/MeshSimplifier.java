@@ -0,0 +1,649 @@
+package net.engine.render.mesh;
+
+import java.util.Arrays;
+
+import net.engine.util.IntTripleMap;
+
+/**
+ * Makes simpler versions of an indexed mesh by collapsing edges, to draw when it is far away
+ * 
+ * Each collapse moves a vertex onto one of its neighbours, and the collapses that move the surface
+ * the least are made first as measured by Garland and Heckbert's quadric error metric. Vertices keep
+ * their positions and attributes so every level uses the mesh's own vertices and only the indices change.
+ * 
+ * Vertices on the edge of an open surface and vertices split at a texture or normal seam are locked
+ * so holes and seams keep their shape. The simplifier keeps its state between calls to simplify() so
+ * each level carries on from the last one and its error includes every collapse made before it.
+ * 
+ * The quadrics only choose the order of the collapses. The error given for a level is measured: the
+ * furthest any vertex of the original mesh is from the triangles now around the vertex it was moved onto.
+ * 
+ * None of this uses openGL so it can be run without a window.
+ * @author Davis
+ *
+ */
+public class MeshSimplifier
+{
+	
+	public static final int MAX_LODS = 8; //The most levels a mesh can have, including the full mesh
+	
+	public static final float LOD_RATIO = 0.5f; //Each level aims for this much of the last level's triangles
+	
+	public static final float MIN_REDUCTION = 0.8f; //A level that keeps more than this much of the last level's triangles isn't worth adding
+	
+	public static final int MIN_LOD_TRIANGLES = 32; //Levels aren't made with fewer triangles than this
+	
+	private static final int QUADRIC_SIZE = 10; //The symmetric 4x4 matrix of a quadric only needs its upper triangle
+	
+	/**
+	 * Adds simpler levels of detail to a mesh after its own indices
+	 * 
+	 * Each level aims for LOD_RATIO of the triangles of the last and levels stop being added once the
+	 * mesh can't be simplified much more. Nothing is added to meshes that can't be simplified at all.
+	 * The mesh must have its positions and indices and should already be optimized, as reordering
+	 * its vertices afterwards would have to change every level.
+	 * @param mesh the mesh
+	 * @param optimize if the triangles of each level are reordered for the vertex cache and overdraw
+	 */
+	public static void generateLODs(Mesh mesh, boolean optimize)
+	{
+		if (mesh.lodOffsets != null) //Already has levels
+		{
+			return;
+		}
+		
+		MeshSimplifier simplifier = new MeshSimplifier(mesh.positions, mesh.indices);
+		
+		int[][] levels = new int[MAX_LODS][];
+		float[] errors = new float[MAX_LODS];
+		levels[0] = mesh.indices;
+		int count = 1;
+		int total = mesh.indices.length;
+		
+		while (count < MAX_LODS)
+		{
+			int last = levels[count - 1].length;
+			int target = (int) (last / 3 * LOD_RATIO) * 3;
+			
+			if (target / 3 < MIN_LOD_TRIANGLES)
+			{
+				break;
+			}
+			
+			int[] level = simplifier.simplify(target);
+			
+			if (level.length > last * MIN_REDUCTION) //Stuck on locked vertices or collapses that would flip triangles
+			{
+				break;
+			}
+			
+			levels[count] = optimize ? MeshOptimizer.optimizeTriangles(level, mesh.positions, mesh.vertexCount) : level;
+			errors[count] = simplifier.getError();
+			total += level.length;
+			count++;
+		}
+		
+		if (count == 1)
+		{
+			return;
+		}
+		
+		//Every level goes in one array, one after another
+		int[] indices = new int[total];
+		int[] offsets = new int[count];
+		int at = 0;
+		
+		for (int i = 0; i < count; i++)
+		{
+			offsets[i] = at;
+			System.arraycopy(levels[i], 0, indices, at, levels[i].length);
+			at += levels[i].length;
+		}
+		
+		mesh.indices = indices;
+		mesh.indexCount = total;
+		mesh.lodOffsets = offsets;
+		mesh.lodErrors = Arrays.copyOf(errors, count);
+	}
+	
+	private float[] positions; //The mesh's positions, never changed
+	
+	private int vertexCount;
+	
+	private int[] indices; //The triangles left, three indices each
+	
+	private int indexCount; //How many of the indices are used
+	
+	private int[] canonical; //The first vertex with the same position as each vertex
+	
+	private boolean[] locked; //If a vertex can't be moved
+	
+	private double[] quadrics; //QUADRIC_SIZE values for each canonical vertex, the planes of the surface it has taken in
+	
+	private double[] weights; //The total area behind each quadric
+	
+	private int[] moved; //The vertex each vertex has been moved onto, itself if it hasn't been
+	
+	private double error; //The furthest an original vertex has been from the simplified surface so far
+	
+	/**
+	 * Creates a simplifier for a mesh
+	 * @param positions the positions, Mesh.POSITION_SIZE per vertex
+	 * @param indices the indices, three per triangle, which are not changed
+	 */
+	public MeshSimplifier(float[] positions, int[] indices)
+	{
+		this.positions = positions;
+		this.vertexCount = positions.length / Mesh.POSITION_SIZE;
+		this.indices = indices.clone();
+		this.indexCount = indices.length;
+		this.error = 0;
+		
+		moved = new int[vertexCount];
+		for (int v = 0; v < vertexCount; v++)
+		{
+			moved[v] = v;
+		}
+		
+		findCanonical();
+		lockBorders();
+		computeQuadrics();
+	}
+	
+	/**
+	 * Collapses edges until there are at most a target number of indices or nothing more can be collapsed
+	 * @param targetIndexCount the number of indices to aim for
+	 * @return the indices of the triangles left
+	 */
+	public int[] simplify(int targetIndexCount)
+	{
+		while (indexCount > targetIndexCount)
+		{
+			if (collapsePass(targetIndexCount) == 0)
+			{
+				break;
+			}
+		}
+		
+		measureError();
+		return Arrays.copyOf(indices, indexCount);
+	}
+	
+	/**
+	 * Gets how far the simplified surface is from the original, in the mesh's units
+	 * @return the error
+	 */
+	public float getError()
+	{
+		return (float) error;
+	}
+	
+	/**
+	 * Makes one round of collapses, cheapest first, where no two collapses touch the same triangles
+	 * @param targetIndexCount the number of indices to aim for
+	 * @return how many collapses were made
+	 */
+	private int collapsePass(int targetIndexCount)
+	{
+		//Find which triangles use each vertex, the triangles of vertex v are triangles[offsets[v]] to triangles[offsets[v + 1] - 1]
+		int[] offsets = new int[vertexCount + 1];
+		for (int i = 0; i < indexCount; i++)
+		{
+			offsets[indices[i] + 1]++;
+		}
+		for (int v = 0; v < vertexCount; v++)
+		{
+			offsets[v + 1] += offsets[v];
+		}
+		
+		int[] triangles = new int[indexCount];
+		int[] filled = new int[vertexCount];
+		for (int i = 0; i < indexCount; i++)
+		{
+			int v = indices[i];
+			triangles[offsets[v] + filled[v]++] = i / 3;
+		}
+		
+		//Every edge can collapse either way, each edge is found from the triangle that has it in increasing order
+		int[] from = new int[indexCount * 2];
+		int[] to = new int[indexCount * 2];
+		double[] costs = new double[indexCount * 2];
+		long[] order = new long[indexCount * 2]; //The cost's bits and then the candidate's number, costs are never negative so they sort as integers
+		int candidateCount = 0;
+		
+		for (int i = 0; i < indexCount; i++)
+		{
+			int a = indices[i];
+			int b = indices[i - i % 3 + (i + 1) % 3];
+			
+			if (a > b)
+			{
+				continue;
+			}
+			
+			for (int k = 0; k < 2; k++)
+			{
+				int u = k == 0 ? a : b;
+				int v = k == 0 ? b : a;
+				
+				if (!locked[u])
+				{
+					from[candidateCount] = u;
+					to[candidateCount] = v;
+					costs[candidateCount] = cost(u, v);
+					order[candidateCount] = (long) Float.floatToIntBits((float) costs[candidateCount]) << 32 | candidateCount;
+					candidateCount++;
+				}
+			}
+		}
+		
+		Arrays.sort(order, 0, candidateCount);
+		
+		int[] collapseTo = new int[vertexCount];
+		for (int v = 0; v < vertexCount; v++)
+		{
+			collapseTo[v] = v;
+		}
+		
+		boolean[] touched = new boolean[vertexCount]; //Vertices whose triangles have changed this pass
+		int toRemove = (indexCount - targetIndexCount) / 3;
+		int removed = 0;
+		int collapses = 0;
+		
+		for (int c = 0; c < candidateCount && removed < toRemove; c++)
+		{
+			int candidate = (int) order[c];
+			int u = from[candidate], v = to[candidate];
+			
+			if (touched[u] || touched[v] || flips(u, v, offsets, triangles))
+			{
+				continue;
+			}
+			
+			collapseTo[u] = v;
+			
+			int qu = canonical[u] * QUADRIC_SIZE, qv = canonical[v] * QUADRIC_SIZE;
+			for (int i = 0; i < QUADRIC_SIZE; i++) //v now stands for the surface u did too
+			{
+				quadrics[qv + i] += quadrics[qu + i];
+			}
+			weights[canonical[v]] += weights[canonical[u]];
+			
+			for (int j = offsets[u]; j < offsets[u + 1]; j++) //The triangles around u change so nothing else can use them this pass
+			{
+				int t = triangles[j] * 3;
+				touched[indices[t]] = touched[indices[t + 1]] = touched[indices[t + 2]] = true;
+				
+				if (indices[t] == v || indices[t + 1] == v || indices[t + 2] == v)
+				{
+					removed++;
+				}
+			}
+			
+			collapses++;
+		}
+		
+		//Move the collapsed vertices and drop the triangles that have lost their area
+		int count = 0;
+		
+		for (int i = 0; i < indexCount; i += 3)
+		{
+			int a = collapseTo[indices[i]], b = collapseTo[indices[i + 1]], c = collapseTo[indices[i + 2]];
+			
+			if (a != b && b != c && c != a)
+			{
+				indices[count++] = a;
+				indices[count++] = b;
+				indices[count++] = c;
+			}
+		}
+		
+		indexCount = count;
+		
+		for (int v = 0; v < vertexCount; v++)
+		{
+			moved[v] = collapseTo[moved[v]]; //No vertex is moved onto one that moves in the same pass
+		}
+		
+		return collapses;
+	}
+	
+	/**
+	 * Measures how far the original vertices that have been moved are from the triangles left around
+	 * where they were moved to, keeping the largest distance seen so far as the error
+	 */
+	private void measureError()
+	{
+		//Find which triangles use each position, the triangles of canonical vertex c are triangles[offsets[c]] to triangles[offsets[c + 1] - 1]
+		int[] offsets = new int[vertexCount + 1];
+		for (int i = 0; i < indexCount; i++)
+		{
+			offsets[canonical[indices[i]] + 1]++;
+		}
+		for (int v = 0; v < vertexCount; v++)
+		{
+			offsets[v + 1] += offsets[v];
+		}
+		
+		int[] triangles = new int[indexCount];
+		int[] filled = new int[vertexCount];
+		for (int i = 0; i < indexCount; i++)
+		{
+			int c = canonical[indices[i]];
+			triangles[offsets[c] + filled[c]++] = i / 3;
+		}
+		
+		for (int v = 0; v < vertexCount; v++)
+		{
+			int c = canonical[moved[v]];
+			
+			if (canonical[v] != v || (c == v && offsets[c + 1] > offsets[c])) //A copy of a vertex already measured, or still on its triangles
+			{
+				continue;
+			}
+			
+			double distance = Double.POSITIVE_INFINITY;
+			
+			for (int j = offsets[c]; j < offsets[c + 1]; j++) //The triangles around where it went and around their other corners
+			{
+				int t = triangles[j] * 3;
+				
+				for (int k = 0; k < 3; k++)
+				{
+					int n = canonical[indices[t + k]];
+					
+					for (int i = offsets[n]; i < offsets[n + 1]; i++)
+					{
+						int s = triangles[i] * 3;
+						distance = Math.min(distance, distanceToTriangle(v, indices[s], indices[s + 1], indices[s + 2]));
+					}
+				}
+			}
+			
+			if (offsets[c + 1] == offsets[c]) //Every triangle around where it went is gone, which is rare, so look at all of them
+			{
+				for (int t = 0; t < indexCount; t += 3)
+				{
+					distance = Math.min(distance, distanceToTriangle(v, indices[t], indices[t + 1], indices[t + 2]));
+				}
+			}
+			
+			if (distance != Double.POSITIVE_INFINITY) //No triangles left at all
+			{
+				error = Math.max(error, distance);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the distance from a vertex to the closest point of a triangle
+	 * @param v the vertex
+	 * @param a the triangle's first vertex
+	 * @param b the triangle's second vertex
+	 * @param c the triangle's third vertex
+	 * @return the distance
+	 */
+	private double distanceToTriangle(int v, int a, int b, int c)
+	{
+		int pv = v * Mesh.POSITION_SIZE, pa = a * Mesh.POSITION_SIZE, pb = b * Mesh.POSITION_SIZE, pc = c * Mesh.POSITION_SIZE;
+		double ax = positions[pa], ay = positions[pa + 1], az = positions[pa + 2];
+		double abx = positions[pb] - ax, aby = positions[pb + 1] - ay, abz = positions[pb + 2] - az;
+		double acx = positions[pc] - ax, acy = positions[pc + 1] - ay, acz = positions[pc + 2] - az;
+		double apx = positions[pv] - ax, apy = positions[pv + 1] - ay, apz = positions[pv + 2] - az;
+		
+		//Find where the closest point is from which side of each edge the vertex is on, as in Ericson's Real-Time Collision Detection
+		double d1 = abx * apx + aby * apy + abz * apz, d2 = acx * apx + acy * apy + acz * apz;
+		if (d1 <= 0 && d2 <= 0) //Closest to a
+		{
+			return distance(apx, apy, apz, 0, 0, 0);
+		}
+		
+		double d3 = d1 - (abx * abx + aby * aby + abz * abz), d4 = d2 - (abx * acx + aby * acy + abz * acz); //The same from b
+		if (d3 >= 0 && d4 <= d3) //Closest to b
+		{
+			return distance(apx, apy, apz, abx, aby, abz);
+		}
+		
+		double vc = d1 * d4 - d3 * d2;
+		if (vc <= 0 && d1 >= 0 && d3 <= 0) //Closest to the edge ab
+		{
+			double s = d1 / (d1 - d3);
+			return distance(apx, apy, apz, abx * s, aby * s, abz * s);
+		}
+		
+		double d5 = d1 - (abx * acx + aby * acy + abz * acz), d6 = d2 - (acx * acx + acy * acy + acz * acz); //The same from c
+		if (d6 >= 0 && d5 <= d6) //Closest to c
+		{
+			return distance(apx, apy, apz, acx, acy, acz);
+		}
+		
+		double vb = d5 * d2 - d1 * d6;
+		if (vb <= 0 && d2 >= 0 && d6 <= 0) //Closest to the edge ac
+		{
+			double s = d2 / (d2 - d6);
+			return distance(apx, apy, apz, acx * s, acy * s, acz * s);
+		}
+		
+		double va = d3 * d6 - d5 * d4;
+		if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) //Closest to the edge bc
+		{
+			double s = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+			return distance(apx, apy, apz, abx + (acx - abx) * s, aby + (acy - aby) * s, abz + (acz - abz) * s);
+		}
+		
+		double denominator = 1 / (va + vb + vc); //Inside the triangle
+		double s = vb * denominator, r = vc * denominator;
+		return distance(apx, apy, apz, abx * s + acx * r, aby * s + acy * r, abz * s + acz * r);
+	}
+	
+	/**
+	 * Gets the distance between two points
+	 * @param x1 the first point's x
+	 * @param y1 the first point's y
+	 * @param z1 the first point's z
+	 * @param x2 the second point's x
+	 * @param y2 the second point's y
+	 * @param z2 the second point's z
+	 * @return the distance
+	 */
+	private static double distance(double x1, double y1, double z1, double x2, double y2, double z2)
+	{
+		double dx = x1 - x2, dy = y1 - y2, dz = z1 - z2;
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+	
+	/**
+	 * Gets the error of moving a vertex onto another
+	 * @param u the vertex moved
+	 * @param v the vertex moved onto
+	 * @return the average squared distance from v to the planes of both vertices' surfaces
+	 */
+	private double cost(int u, int v)
+	{
+		int cu = canonical[u], cv = canonical[v];
+		int qu = cu * QUADRIC_SIZE, qv = cv * QUADRIC_SIZE;
+		double[] q = quadrics;
+		
+		double x = positions[v * Mesh.POSITION_SIZE], y = positions[v * Mesh.POSITION_SIZE + 1], z = positions[v * Mesh.POSITION_SIZE + 2];
+		
+		double sum = (q[qu] + q[qv]) * x * x + 2 * (q[qu + 1] + q[qv + 1]) * x * y + 2 * (q[qu + 2] + q[qv + 2]) * x * z + 2 * (q[qu + 3] + q[qv + 3]) * x
+				+ (q[qu + 4] + q[qv + 4]) * y * y + 2 * (q[qu + 5] + q[qv + 5]) * y * z + 2 * (q[qu + 6] + q[qv + 6]) * y
+				+ (q[qu + 7] + q[qv + 7]) * z * z + 2 * (q[qu + 8] + q[qv + 8]) * z
+				+ (q[qu + 9] + q[qv + 9]);
+		
+		double weight = weights[cu] + weights[cv];
+		
+		return weight > 0 ? Math.max(sum / weight, 0) : 0; //Rounding can take it just under 0
+	}
+	
+	/**
+	 * Checks if moving a vertex onto another would turn any of its triangles over or flatten them
+	 * @param u the vertex moved
+	 * @param v the vertex moved onto
+	 * @param offsets where each vertex's triangles start
+	 * @param triangles the triangles of every vertex
+	 * @return true if a triangle would be turned over
+	 */
+	private boolean flips(int u, int v, int[] offsets, int[] triangles)
+	{
+		for (int j = offsets[u]; j < offsets[u + 1]; j++)
+		{
+			int t = triangles[j] * 3;
+			int a = indices[t], b = indices[t + 1], c = indices[t + 2];
+			
+			if (a == v || b == v || c == v) //Removed by the collapse
+			{
+				continue;
+			}
+			
+			//Rotate the triangle so u is first, keeping its winding
+			if (b == u)
+			{
+				b = c; c = a;
+			}
+			else if (c == u)
+			{
+				c = b; b = a;
+			}
+			
+			int pb = b * Mesh.POSITION_SIZE, pc = c * Mesh.POSITION_SIZE;
+			float bx = positions[pb], by = positions[pb + 1], bz = positions[pb + 2];
+			float cx = positions[pc], cy = positions[pc + 1], cz = positions[pc + 2];
+			
+			int pu = u * Mesh.POSITION_SIZE, pv = v * Mesh.POSITION_SIZE;
+			
+			//The normal before and after
+			float e1x = bx - positions[pu], e1y = by - positions[pu + 1], e1z = bz - positions[pu + 2];
+			float e2x = cx - positions[pu], e2y = cy - positions[pu + 1], e2z = cz - positions[pu + 2];
+			float n0x = e1y * e2z - e1z * e2y, n0y = e1z * e2x - e1x * e2z, n0z = e1x * e2y - e1y * e2x;
+			
+			e1x = bx - positions[pv]; e1y = by - positions[pv + 1]; e1z = bz - positions[pv + 2];
+			e2x = cx - positions[pv]; e2y = cy - positions[pv + 1]; e2z = cz - positions[pv + 2];
+			float n1x = e1y * e2z - e1z * e2y, n1y = e1z * e2x - e1x * e2z, n1z = e1x * e2y - e1y * e2x;
+			
+			if (n0x * n1x + n0y * n1y + n0z * n1z <= 0)
+			{
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Finds the first vertex with the same position as each vertex
+	 */
+	private void findCanonical()
+	{
+		canonical = new int[vertexCount];
+		IntTripleMap seen = new IntTripleMap(vertexCount); //The bits of each different position
+		int[] first = new int[vertexCount]; //The first vertex with each different position
+		
+		for (int v = 0; v < vertexCount; v++)
+		{
+			int p = v * Mesh.POSITION_SIZE;
+			int count = seen.size();
+			int number = seen.add(bits(positions[p]), bits(positions[p + 1]), bits(positions[p + 2]));
+			
+			if (number == count) //Not seen before
+			{
+				first[number] = v;
+			}
+			
+			canonical[v] = first[number];
+		}
+	}
+	
+	/**
+	 * Gets the bits of a float so that values that are equal have the same bits
+	 * @param value the float
+	 * @return the bits
+	 */
+	private static int bits(float value)
+	{
+		return Float.floatToIntBits(value + 0.0f); //Adding zero turns -0 into 0
+	}
+	
+	/**
+	 * Locks the vertices on seams and on edges that only one triangle has
+	 */
+	private void lockBorders()
+	{
+		locked = new boolean[vertexCount];
+		
+		for (int v = 0; v < vertexCount; v++) //Vertices split at a seam share a position
+		{
+			if (canonical[v] != v)
+			{
+				locked[v] = locked[canonical[v]] = true;
+			}
+		}
+		
+		//An edge is on a border if no triangle has it the other way around, edges are compared by position so seams aren't borders
+		long[] edges = new long[indexCount];
+		for (int i = 0; i < indexCount; i++)
+		{
+			int a = canonical[indices[i]];
+			int b = canonical[indices[i - i % 3 + (i + 1) % 3]];
+			edges[i] = (long) a << 32 | b;
+		}
+		
+		Arrays.sort(edges);
+		
+		for (int i = 0; i < indexCount; i++)
+		{
+			int a = (int) (edges[i] >>> 32), b = (int) edges[i];
+			
+			if (Arrays.binarySearch(edges, (long) b << 32 | a) < 0)
+			{
+				locked[a] = locked[b] = true;
+			}
+		}
+		
+		for (int v = 0; v < vertexCount; v++)
+		{
+			locked[v] |= locked[canonical[v]];
+		}
+	}
+	
+	/**
+	 * Adds up the planes of the triangles around each vertex, weighted by their area
+	 */
+	private void computeQuadrics()
+	{
+		quadrics = new double[vertexCount * QUADRIC_SIZE];
+		weights = new double[vertexCount];
+		
+		for (int t = 0; t < indexCount; t += 3)
+		{
+			int p0 = indices[t] * Mesh.POSITION_SIZE, p1 = indices[t + 1] * Mesh.POSITION_SIZE, p2 = indices[t + 2] * Mesh.POSITION_SIZE;
+			
+			double e1x = positions[p1] - positions[p0], e1y = positions[p1 + 1] - positions[p0 + 1], e1z = positions[p1 + 2] - positions[p0 + 2];
+			double e2x = positions[p2] - positions[p0], e2y = positions[p2 + 1] - positions[p0 + 1], e2z = positions[p2 + 2] - positions[p0 + 2];
+			double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+			double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			
+			if (length == 0) //No area so no plane
+			{
+				continue;
+			}
+			
+			nx /= length; ny /= length; nz /= length;
+			double d = -(nx * positions[p0] + ny * positions[p0 + 1] + nz * positions[p0 + 2]);
+			double area = length / 2;
+			
+			for (int k = 0; k < 3; k++)
+			{
+				int c = canonical[indices[t + k]];
+				int q = c * QUADRIC_SIZE;
+				
+				quadrics[q] += area * nx * nx; quadrics[q + 1] += area * nx * ny; quadrics[q + 2] += area * nx * nz; quadrics[q + 3] += area * nx * d;
+				quadrics[q + 4] += area * ny * ny; quadrics[q + 5] += area * ny * nz; quadrics[q + 6] += area * ny * d;
+				quadrics[q + 7] += area * nz * nz; quadrics[q + 8] += area * nz * d;
+				quadrics[q + 9] += area * d * d;
+				weights[c] += area;
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,314 @@
+package net.engine.render.mesh;
+
+import static org.lwjgl.opengl.GL11.GL_FLOAT;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+import static org.lwjgl.opengl.GL30.GL_HALF_FLOAT;
+import static org.lwjgl.opengl.GL33.GL_INT_2_10_10_10_REV;
+
+import java.nio.ByteBuffer;
+
+/**
+ * How the attributes of a vertex are stored in a vertex buffer
+ * 
+ * Positions are always three floats. Texture coordinates can be two floats, two half floats,
+ * or two normalized unsigned shorts (only for coordinates from 0 to 1). Normals can be three
+ * floats or packed into one int as GL_INT_2_10_10_10_REV. The attributes are interleaved in
+ * the order position, texture coordinates, normal and each starts on a 4 byte boundary.
+ * 
+ * Only openGL constants are used so layouts can be made without a window.
+ * @author Davis
+ *
+ */
+public class VertexLayout
+{
+	
+	//Formats of an attribute
+	public static final int NONE = 0; //Not there
+	public static final int FLOAT = 1; //Full floats
+	public static final int HALF = 2; //Half floats, texture coordinates only
+	public static final int NORMALIZED_SHORT = 3; //Unsigned shorts mapped to 0 to 1, texture coordinates only
+	public static final int PACKED = 4; //Signed 10 bits per component in one int, normals only
+	
+	private int texFormat, normalFormat; //How the texture coordinates and normals are stored
+	
+	private int texOffset, normalOffset; //Where they start in a vertex in bytes
+	
+	private int stride; //The size of a vertex in bytes
+	
+	/**
+	 * Creates a new layout
+	 * @param texFormat how texture coordinates are stored, NONE, FLOAT, HALF, or NORMALIZED_SHORT
+	 * @param normalFormat how normals are stored, NONE, FLOAT, or PACKED
+	 */
+	public VertexLayout(int texFormat, int normalFormat)
+	{
+		if (texFormat < NONE || texFormat > NORMALIZED_SHORT || (normalFormat != NONE && normalFormat != FLOAT && normalFormat != PACKED))
+		{
+			throw new IllegalArgumentException("Unsupported vertex layout: " + texFormat + ", " + normalFormat);
+		}
+		
+		this.texFormat = texFormat;
+		this.normalFormat = normalFormat;
+		
+		stride = Mesh.POSITION_SIZE * GPUMesh.BYTES_PER_FLOAT;
+		
+		texOffset = stride;
+		stride += texFormat == FLOAT ? 8 : texFormat == NONE ? 0 : 4;
+		
+		normalOffset = stride;
+		stride += normalFormat == FLOAT ? 12 : normalFormat == PACKED ? 4 : 0;
+	}
+	
+	/**
+	 * Creates the layout for a mesh
+	 * @param texData if there are texture coordinates
+	 * @param normalData if there are normals
+	 * @param quantize if texture coordinates are stored as half floats and normals packed into an int
+	 * @return the layout
+	 */
+	public static VertexLayout create(boolean texData, boolean normalData, boolean quantize)
+	{
+		int tex = !texData ? NONE : quantize ? HALF : FLOAT;
+		int normal = !normalData ? NONE : quantize ? PACKED : FLOAT;
+		
+		return new VertexLayout(tex, normal);
+	}
+	
+	/**
+	 * Makes a layout from the number getCode() gave
+	 * @param code the number
+	 * @return the layout, null if the number isn't a layout
+	 */
+	public static VertexLayout fromCode(int code)
+	{
+		try
+		{
+			return new VertexLayout(code & 0xF, (code >> 4) & 0xF);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Gets a number that stands for this layout, for saving it
+	 * @return the number
+	 */
+	public int getCode()
+	{
+		return texFormat | normalFormat << 4;
+	}
+	
+	/**
+	 * Adds a vertex of a mesh to a buffer in this layout
+	 * @param buffer the buffer
+	 * @param mesh the mesh
+	 * @param vertex which vertex
+	 */
+	public void put(ByteBuffer buffer, Mesh mesh, int vertex)
+	{
+		float[] p = mesh.positions;
+		int at = vertex * Mesh.POSITION_SIZE;
+		buffer.putFloat(p[at]).putFloat(p[at + 1]).putFloat(p[at + 2]);
+		
+		float[] t = mesh.texCoords;
+		at = vertex * Mesh.TEXTURE_SIZE;
+		
+		switch (texFormat)
+		{
+			case FLOAT:
+				buffer.putFloat(t[at]).putFloat(t[at + 1]);
+				break;
+			case HALF:
+				buffer.putShort(toHalf(t[at])).putShort(toHalf(t[at + 1]));
+				break;
+			case NORMALIZED_SHORT:
+				buffer.putShort(toUnsignedShort(t[at])).putShort(toUnsignedShort(t[at + 1]));
+				break;
+		}
+		
+		float[] n = mesh.normals;
+		at = vertex * Mesh.NORMAL_SIZE;
+		
+		switch (normalFormat)
+		{
+			case FLOAT:
+				buffer.putFloat(n[at]).putFloat(n[at + 1]).putFloat(n[at + 2]);
+				break;
+			case PACKED:
+				buffer.putInt(pack(n[at], n[at + 1], n[at + 2]));
+				break;
+		}
+	}
+	
+	/**
+	 * Converts a float to a half float, rounding to the nearest
+	 * @param value the float
+	 * @return the half float's bits
+	 */
+	public static short toHalf(float value)
+	{
+		int bits = Float.floatToIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+		int mantissa = bits & 0x7FFFFF;
+		
+		if (exponent >= 31) //Too large, or infinity and nan
+		{
+			boolean nan = ((bits >>> 23) & 0xFF) == 0xFF && mantissa != 0;
+			return (short) (sign | 0x7C00 | (nan ? 0x200 : 0));
+		}
+		
+		if (exponent <= 0) //Too small for a normal half float
+		{
+			if (exponent < -10)
+			{
+				return (short) sign;
+			}
+			
+			mantissa |= 0x800000; //The implicit one
+			int shift = 14 - exponent;
+			int half = mantissa >> shift;
+			int rest = mantissa & ((1 << shift) - 1);
+			int midpoint = 1 << (shift - 1);
+			
+			if (rest > midpoint || (rest == midpoint && (half & 1) != 0))
+			{
+				half++;
+			}
+			
+			return (short) (sign | half);
+		}
+		
+		int half = sign | exponent << 10 | mantissa >> 13;
+		int rest = mantissa & 0x1FFF;
+		
+		if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0)) //Rounding can carry into the exponent, which is still right
+		{
+			half++;
+		}
+		
+		return (short) half;
+	}
+	
+	/**
+	 * Converts a float from 0 to 1 to a normalized unsigned short
+	 * @param value the float, clamped to 0 to 1
+	 * @return the short's bits
+	 */
+	public static short toUnsignedShort(float value)
+	{
+		return (short) Math.round(Math.max(0, Math.min(1, value)) * 65535);
+	}
+	
+	/**
+	 * Packs a normal into GL_INT_2_10_10_10_REV, x in the lowest 10 bits then y then z
+	 * @param x the x, clamped to -1 to 1
+	 * @param y the y, clamped to -1 to 1
+	 * @param z the z, clamped to -1 to 1
+	 * @return the packed normal
+	 */
+	public static int pack(float x, float y, float z)
+	{
+		return toSigned10(x) | toSigned10(y) << 10 | toSigned10(z) << 20;
+	}
+	
+	/**
+	 * Converts a float from -1 to 1 to a signed normalized 10 bit number
+	 * @param value the float
+	 * @return the 10 bits
+	 */
+	private static int toSigned10(float value)
+	{
+		return Math.round(Math.max(-1, Math.min(1, value)) * 511) & 0x3FF;
+	}
+	
+	/**
+	 * Gets the openGL type of the texture coordinates
+	 * @return the type
+	 */
+	public int getTexType()
+	{
+		return texFormat == FLOAT ? GL_FLOAT : texFormat == HALF ? GL_HALF_FLOAT : GL_UNSIGNED_SHORT;
+	}
+	
+	/**
+	 * Gets the openGL type of the normals
+	 * @return the type
+	 */
+	public int getNormalType()
+	{
+		return normalFormat == PACKED ? GL_INT_2_10_10_10_REV : GL_FLOAT;
+	}
+	
+	/**
+	 * Checks if openGL needs to normalize the texture coordinates
+	 * @return if they are normalized shorts
+	 */
+	public boolean isTexNormalized()
+	{
+		return texFormat == NORMALIZED_SHORT;
+	}
+	
+	/**
+	 * Checks if openGL needs to normalize the normals
+	 * @return if they are packed
+	 */
+	public boolean isNormalNormalized()
+	{
+		return normalFormat == PACKED;
+	}
+	
+	/**
+	 * Checks if there are texture coordinates
+	 * @return if there are
+	 */
+	public boolean hasTexCoords()
+	{
+		return texFormat != NONE;
+	}
+	
+	/**
+	 * Checks if there are normals
+	 * @return if there are
+	 */
+	public boolean hasNormals()
+	{
+		return normalFormat != NONE;
+	}
+	
+	/**
+	 * Gets where the texture coordinates start in a vertex
+	 * @return the offset in bytes
+	 */
+	public int getTexOffset()
+	{
+		return texOffset;
+	}
+	
+	/**
+	 * Gets where the normal starts in a vertex
+	 * @return the offset in bytes
+	 */
+	public int getNormalOffset()
+	{
+		return normalOffset;
+	}
+	
+	/**
+	 * Gets the size of a vertex
+	 * @return the size in bytes
+	 */
+	public int getStride()
+	{
+		return stride;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "VertexLayout(tex " + texFormat + ", normal " + normalFormat + ", " + stride + " bytes)";
+	}
+	
+}
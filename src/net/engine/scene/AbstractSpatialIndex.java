@@ -0,0 +1,166 @@
+package net.engine.scene;
+
+import java.util.HashMap;
+
+import net.engine.math.BoundingBox;
+
+/**
+ * What the spatial indexes share, the table from each object to where it is stored
+ * and the nearest object search
+ * @author Davis
+ *
+ * @param <T> the type of object
+ * @param <E> the index's record of where an object is
+ */
+public abstract class AbstractSpatialIndex<T, E extends AbstractSpatialIndex.Entry<T>> implements SpatialIndex<T>
+{
+	
+	protected HashMap<T, E> entries; //Where each object is
+	
+	private BoundingBox searchRange; //Reused by nearest()
+	
+	private NearestVisitor nearestVisitor; //Reused by nearest()
+	
+	/**
+	 * Creates an empty index
+	 */
+	protected AbstractSpatialIndex()
+	{
+		entries = new HashMap<T, E>();
+		searchRange = new BoundingBox();
+		nearestVisitor = new NearestVisitor();
+	}
+	
+	@Override
+	public void move(T item, BoundingBox bounds)
+	{
+		insert(item, bounds);
+	}
+	
+	@Override
+	public boolean contains(T item)
+	{
+		return entries.containsKey(item);
+	}
+	
+	@Override
+	public int size()
+	{
+		return entries.size();
+	}
+	
+	/**
+	 * Searches boxes around the point that double in size each time nothing is found in them.
+	 * Anything closer than the edge of a box overlaps the box, so once the closest object found
+	 * is within the box it is the closest of all.
+	 */
+	@Override
+	public T nearest(float x, float y, float z, float maxDistance)
+	{
+		if (entries.isEmpty())
+		{
+			return null;
+		}
+		
+		float radius = Math.min(getSearchStart(), maxDistance);
+		
+		while (true)
+		{
+			searchRange.set(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+			nearestVisitor.reset(x, y, z);
+			query(searchRange, nearestVisitor);
+			
+			if (nearestVisitor.best != null && nearestVisitor.bestDistance <= radius * radius)
+			{
+				T best = nearestVisitor.best;
+				nearestVisitor.best = null;
+				return nearestVisitor.bestDistance <= maxDistance * maxDistance ? best : null;
+			}
+			
+			if (radius >= maxDistance)
+			{
+				nearestVisitor.best = null;
+				return null;
+			}
+			
+			radius = Math.min(radius * 2, maxDistance);
+		}
+	}
+	
+	/**
+	 * Gets the size of the first box nearest() searches
+	 * @return half the box's width
+	 */
+	protected abstract float getSearchStart();
+	
+	/**
+	 * Where an object is stored
+	 * @author Davis
+	 *
+	 * @param <T> the type of object
+	 */
+	public static class Entry<T>
+	{
+		
+		public final T item; //The object
+		
+		public final BoundingBox bounds; //Its box
+		
+		public int slot; //Its place in the list it is stored in
+		
+		/**
+		 * Creates a new entry
+		 * @param item the object
+		 */
+		public Entry(T item)
+		{
+			this.item = item;
+			this.bounds = new BoundingBox();
+		}
+		
+	}
+	
+	/**
+	 * Keeps the closest object it visits
+	 * @author Davis
+	 *
+	 */
+	private class NearestVisitor implements Visitor<T>
+	{
+		
+		private float x, y, z; //The point
+		
+		private T best; //The closest object so far
+		
+		private float bestDistance; //Its squared distance
+		
+		/**
+		 * Starts a new search
+		 * @param x the point's x
+		 * @param y the point's y
+		 * @param z the point's z
+		 */
+		private void reset(float x, float y, float z)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			best = null;
+			bestDistance = Float.POSITIVE_INFINITY;
+		}
+		
+		@Override
+		public void visit(T item)
+		{
+			float distance = entries.get(item).bounds.distanceSquared(x, y, z);
+			
+			if (distance < bestDistance)
+			{
+				best = item;
+				bestDistance = distance;
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,610 @@
+package net.engine.scene;
+
+import java.util.List;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.Frustum;
+
+/**
+ * A bounding volume hierarchy, a tree of boxes over objects that mostly stay still
+ * 
+ * The tree is built once by splitting the objects in half along the longest axis of their
+ * centers until at most MAX_LEAF_SIZE are left. The nodes are kept in flat arrays in depth
+ * first order, so a node's left child is the next node and every object under a node is in
+ * one run of the object order. When objects move the boxes can be refit without rebuilding,
+ * which keeps queries correct but slowly makes them slower if objects move far.
+ * 
+ * Frustum culling, ray casts, and box queries only visit the branches they touch so they
+ * take about log n steps plus one per object found.
+ * @author Davis
+ *
+ * @param <T> the type of object
+ */
+public class BVH<T>
+{
+	
+	public static final int MAX_LEAF_SIZE = 4; //The most objects in one leaf
+	
+	public static final int BOX_SIZE = 6; //minX, minY, minZ, maxX, maxY, maxZ
+	
+	private static final int MAX_DEPTH = 64; //Deeper than any tree made by halving can be
+	
+	private Object[] items; //The objects
+	
+	private float[] itemBounds; //The box around each object, by the object's number
+	
+	private int itemCount; //How many objects there are
+	
+	private int[] order; //The objects' numbers in tree order
+	
+	private int[] leafOf; //The leaf holding each object, by the object's number
+	
+	private float[] nodeBounds; //The box around each node
+	
+	private int[] nodeStart, nodeSize; //The run of the order under each node
+	
+	private int[] nodeRight; //The right child of each node, -1 for leaves
+	
+	private int[] nodeParent; //The parent of each node, -1 for the root
+	
+	private int nodeTotal; //How many nodes there are
+	
+	private int[] stack; //The nodes waiting to be visited during a query
+	
+	private float hitDistance; //The distance to the last ray cast's hit
+	
+	private BoundingBox scratch; //Reused for the boxes tested during a query
+	
+	/**
+	 * Creates an empty hierarchy
+	 */
+	public BVH()
+	{
+		items = new Object[0];
+		itemBounds = new float[0];
+		order = new int[0];
+		leafOf = new int[0];
+		nodeBounds = new float[0];
+		nodeStart = new int[0];
+		nodeSize = new int[0];
+		nodeRight = new int[0];
+		nodeParent = new int[0];
+		stack = new int[MAX_DEPTH * 2];
+		scratch = new BoundingBox();
+	}
+	
+	/**
+	 * Builds the tree over some objects, replacing anything in it
+	 * @param objects the objects
+	 * @param bounds the box around each object
+	 */
+	public void build(List<T> objects, List<BoundingBox> bounds)
+	{
+		itemCount = objects.size();
+		items = objects.toArray();
+		itemBounds = new float[itemCount * BOX_SIZE];
+		order = new int[itemCount];
+		leafOf = new int[itemCount];
+		
+		for (int i = 0; i < itemCount; i++)
+		{
+			storeBox(itemBounds, i, bounds.get(i));
+			order[i] = i;
+		}
+		
+		int maxNodes = Math.max(1, 2 * itemCount - 1); //A binary tree with at most one leaf per object
+		nodeBounds = new float[maxNodes * BOX_SIZE];
+		nodeStart = new int[maxNodes];
+		nodeSize = new int[maxNodes];
+		nodeRight = new int[maxNodes];
+		nodeParent = new int[maxNodes];
+		nodeTotal = 0;
+		
+		if (itemCount > 0)
+		{
+			buildNode(-1, 0, itemCount);
+		}
+	}
+	
+	/**
+	 * Makes a node over a run of the order and the nodes under it
+	 * @param parent the parent node
+	 * @param start the start of the run
+	 * @param count the length of the run
+	 * @return the node
+	 */
+	private int buildNode(int parent, int start, int count)
+	{
+		int node = nodeTotal++;
+		nodeStart[node] = start;
+		nodeSize[node] = count;
+		nodeParent[node] = parent;
+		
+		if (count <= MAX_LEAF_SIZE)
+		{
+			nodeRight[node] = -1;
+			
+			for (int i = start; i < start + count; i++)
+			{
+				leafOf[order[i]] = node;
+			}
+			
+			fitNode(node);
+			return node;
+		}
+		
+		//Split on the longest axis of the centers
+		float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+		float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+		
+		for (int i = start; i < start + count; i++)
+		{
+			for (int axis = 0; axis < 3; axis++)
+			{
+				float c = center(order[i], axis);
+				min[axis] = Math.min(min[axis], c);
+				max[axis] = Math.max(max[axis], c);
+			}
+		}
+		
+		int axis = 0;
+		if (max[1] - min[1] > max[axis] - min[axis]) axis = 1;
+		if (max[2] - min[2] > max[axis] - min[axis]) axis = 2;
+		
+		int half = count / 2;
+		select(start, start + count - 1, start + half, axis); //Half the objects on each side, without fully sorting them
+		
+		buildNode(node, start, half);
+		nodeRight[node] = buildNode(node, start + half, count - half);
+		
+		fitNode(node);
+		return node;
+	}
+	
+	/**
+	 * Partially sorts a run of the order so the object at k is where it would be if sorted by
+	 * center, everything before it is no bigger and everything after no smaller
+	 * @param left the first place in the run
+	 * @param right the last place in the run
+	 * @param k the place to sort
+	 * @param axis the axis to sort on
+	 */
+	private void select(int left, int right, int k, int axis)
+	{
+		while (right > left)
+		{
+			float pivot = center(order[(left + right) >>> 1], axis);
+			int i = left, j = right;
+			
+			while (i <= j)
+			{
+				while (center(order[i], axis) < pivot) i++;
+				while (center(order[j], axis) > pivot) j--;
+				
+				if (i <= j)
+				{
+					int temp = order[i]; order[i] = order[j]; order[j] = temp;
+					i++;
+					j--;
+				}
+			}
+			
+			if (k <= j)
+			{
+				right = j;
+			}
+			else if (k >= i)
+			{
+				left = i;
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the center of an object's box on one axis, doubled as it is only compared
+	 * @param item the object's number
+	 * @param axis the axis
+	 * @return the center
+	 */
+	private float center(int item, int axis)
+	{
+		return itemBounds[item * BOX_SIZE + axis] + itemBounds[item * BOX_SIZE + 3 + axis];
+	}
+	
+	/**
+	 * Sets a node's box to hold its children, or its objects if it is a leaf
+	 * @param node the node
+	 * @return if the box changed
+	 */
+	private boolean fitNode(int node)
+	{
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+		
+		float[] source;
+		int first, second;
+		
+		if (nodeRight[node] < 0)
+		{
+			source = itemBounds;
+			first = -1;
+			second = -1;
+		}
+		else
+		{
+			source = nodeBounds;
+			first = node + 1;
+			second = nodeRight[node];
+		}
+		
+		int count = first < 0 ? nodeSize[node] : 2;
+		
+		for (int i = 0; i < count; i++)
+		{
+			int b = (first < 0 ? order[nodeStart[node] + i] : (i == 0 ? first : second)) * BOX_SIZE;
+			
+			minX = Math.min(minX, source[b]);
+			minY = Math.min(minY, source[b + 1]);
+			minZ = Math.min(minZ, source[b + 2]);
+			maxX = Math.max(maxX, source[b + 3]);
+			maxY = Math.max(maxY, source[b + 4]);
+			maxZ = Math.max(maxZ, source[b + 5]);
+		}
+		
+		int n = node * BOX_SIZE;
+		
+		if (nodeBounds[n] == minX && nodeBounds[n + 1] == minY && nodeBounds[n + 2] == minZ
+				&& nodeBounds[n + 3] == maxX && nodeBounds[n + 4] == maxY && nodeBounds[n + 5] == maxZ)
+		{
+			return false;
+		}
+		
+		nodeBounds[n] = minX; nodeBounds[n + 1] = minY; nodeBounds[n + 2] = minZ;
+		nodeBounds[n + 3] = maxX; nodeBounds[n + 4] = maxY; nodeBounds[n + 5] = maxZ;
+		return true;
+	}
+	
+	/**
+	 * Changes the box of one object and refits the nodes above it, stopping once a node doesn't change
+	 * @param item the object's number, its place in the list it was built from
+	 * @param bounds its new box
+	 */
+	public void update(int item, BoundingBox bounds)
+	{
+		storeBox(itemBounds, item, bounds);
+		
+		for (int node = leafOf[item]; node >= 0 && fitNode(node); node = nodeParent[node]);
+	}
+	
+	/**
+	 * Changes the box of one object without refitting, call refit() after changing them all
+	 * @param item the object's number
+	 * @param bounds its new box
+	 */
+	public void setBounds(int item, BoundingBox bounds)
+	{
+		storeBox(itemBounds, item, bounds);
+	}
+	
+	/**
+	 * Refits every node to the objects' boxes, children come after their parents so going backwards does the leaves first
+	 */
+	public void refit()
+	{
+		for (int node = nodeTotal - 1; node >= 0; node--)
+		{
+			fitNode(node);
+		}
+	}
+	
+	/**
+	 * Visits every object whose box might be seen
+	 * @param frustum the frustum, in the same space as the boxes
+	 * @param visitor called for each object
+	 * @return how many objects were visited
+	 */
+	public int cull(Frustum frustum, Visitor<T> visitor)
+	{
+		return cull(frustum, visitor, visitor);
+	}
+	
+	/**
+	 * Visits every object whose box might be seen, telling apart the ones whose box is wholly seen
+	 * @param frustum the frustum, in the same space as the boxes
+	 * @param inside called for each object whose box is inside the frustum
+	 * @param intersecting called for each object whose box crosses the edge of the frustum
+	 * @return how many objects were visited
+	 */
+	public int cull(Frustum frustum, Visitor<T> inside, Visitor<T> intersecting)
+	{
+		if (nodeTotal == 0)
+		{
+			return 0;
+		}
+		
+		BoundingBox box = scratch;
+		int visited = 0;
+		int top = 0;
+		stack[top++] = 0;
+		
+		while (top > 0)
+		{
+			int node = stack[--top];
+			int result = frustum.test(loadBox(nodeBounds, node, box));
+			
+			if (result == Frustum.OUTSIDE)
+			{
+				continue;
+			}
+			
+			if (result == Frustum.INSIDE || nodeRight[node] < 0) //Everything under it is seen, or it is a leaf
+			{
+				visited += visitRun(node, result == Frustum.INSIDE ? null : frustum, box, inside, intersecting);
+				continue;
+			}
+			
+			stack[top++] = nodeRight[node];
+			stack[top++] = node + 1;
+		}
+		
+		return visited;
+	}
+	
+	/**
+	 * Visits every object whose box overlaps a box
+	 * @param range the box
+	 * @param visitor called for each object
+	 * @return how many objects were visited
+	 */
+	public int query(BoundingBox range, Visitor<T> visitor)
+	{
+		if (nodeTotal == 0)
+		{
+			return 0;
+		}
+		
+		BoundingBox box = scratch;
+		int visited = 0;
+		int top = 0;
+		stack[top++] = 0;
+		
+		while (top > 0)
+		{
+			int node = stack[--top];
+			
+			if (!range.intersects(loadBox(nodeBounds, node, box)))
+			{
+				continue;
+			}
+			
+			if (nodeRight[node] < 0)
+			{
+				for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++)
+				{
+					if (range.intersects(loadBox(itemBounds, order[i], box)))
+					{
+						visitor.visit(getItem(order[i]));
+						visited++;
+					}
+				}
+				continue;
+			}
+			
+			stack[top++] = nodeRight[node];
+			stack[top++] = node + 1;
+		}
+		
+		return visited;
+	}
+	
+	/**
+	 * Finds the first object whose box a ray hits
+	 * 
+	 * The nearer child of each node is searched first and branches further than the best
+	 * hit so far are skipped. The distance to the hit is kept for getHitDistance().
+	 * @param ox the ray's start x
+	 * @param oy the ray's start y
+	 * @param oz the ray's start z
+	 * @param dx the ray's direction x
+	 * @param dy the ray's direction y
+	 * @param dz the ray's direction z
+	 * @param maxDistance how far along the ray to look, in lengths of the direction
+	 * @return the object hit, null if none
+	 */
+	public T raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance)
+	{
+		hitDistance = Float.POSITIVE_INFINITY;
+		
+		if (nodeTotal == 0)
+		{
+			return null;
+		}
+		
+		float ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+		float best = maxDistance;
+		int hit = -1;
+		int top = 0;
+		stack[top++] = 0;
+		
+		while (top > 0)
+		{
+			int node = stack[--top];
+			
+			if (rayBox(nodeBounds, node, ox, oy, oz, ix, iy, iz, best) > best)
+			{
+				continue;
+			}
+			
+			if (nodeRight[node] < 0)
+			{
+				for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++)
+				{
+					float t = rayBox(itemBounds, order[i], ox, oy, oz, ix, iy, iz, best);
+					
+					if (t <= best)
+					{
+						best = t;
+						hit = order[i];
+					}
+				}
+				continue;
+			}
+			
+			int left = node + 1, right = nodeRight[node];
+			float tLeft = rayBox(nodeBounds, left, ox, oy, oz, ix, iy, iz, best);
+			float tRight = rayBox(nodeBounds, right, ox, oy, oz, ix, iy, iz, best);
+			
+			if (tLeft <= tRight) //Push the far one first so the near one is searched first
+			{
+				if (tRight <= best) stack[top++] = right;
+				if (tLeft <= best) stack[top++] = left;
+			}
+			else
+			{
+				if (tLeft <= best) stack[top++] = left;
+				if (tRight <= best) stack[top++] = right;
+			}
+		}
+		
+		if (hit < 0)
+		{
+			return null;
+		}
+		
+		hitDistance = best;
+		return getItem(hit);
+	}
+	
+	/**
+	 * Gets the distance to the last ray cast's hit
+	 * @return the distance in lengths of the ray's direction, infinity if nothing was hit
+	 */
+	public float getHitDistance()
+	{
+		return hitDistance;
+	}
+	
+	/**
+	 * Gets how many objects are in the tree
+	 * @return the count
+	 */
+	public int size()
+	{
+		return itemCount;
+	}
+	
+	/**
+	 * Gets the box around everything in the tree
+	 * @param dest the box to store it in
+	 * @return dest, empty if the tree is
+	 */
+	public BoundingBox getBounds(BoundingBox dest)
+	{
+		return nodeTotal == 0 ? dest.clear() : loadBox(nodeBounds, 0, dest);
+	}
+	
+	/**
+	 * Visits the objects under a node
+	 * @param node the node
+	 * @param frustum the frustum to test each object against, null if they are all inside it
+	 * @param box a box to use for the tests
+	 * @param inside called for each object inside the frustum
+	 * @param intersecting called for each object crossing the edge of the frustum
+	 * @return how many were visited
+	 */
+	private int visitRun(int node, Frustum frustum, BoundingBox box, Visitor<T> inside, Visitor<T> intersecting)
+	{
+		int visited = 0;
+		
+		for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++)
+		{
+			int result = frustum == null ? Frustum.INSIDE : frustum.test(loadBox(itemBounds, order[i], box));
+			
+			if (result == Frustum.INSIDE)
+			{
+				inside.visit(getItem(order[i]));
+				visited++;
+			}
+			else if (result == Frustum.INTERSECTS)
+			{
+				intersecting.visit(getItem(order[i]));
+				visited++;
+			}
+		}
+		
+		return visited;
+	}
+	
+	/**
+	 * Gets an object
+	 * @param item the object's number
+	 * @return the object
+	 */
+	@SuppressWarnings("unchecked")
+	private T getItem(int item)
+	{
+		return (T) items[item];
+	}
+	
+	/**
+	 * Finds where a ray enters a box
+	 * @param boxes the array the box is in
+	 * @param box which box
+	 * @param ox the ray's start x
+	 * @param oy the ray's start y
+	 * @param oz the ray's start z
+	 * @param ix one over the ray's direction x
+	 * @param iy one over the ray's direction y
+	 * @param iz one over the ray's direction z
+	 * @param maxDistance past this the ray is treated as missing
+	 * @return the distance along the ray, infinity if it misses
+	 */
+	private static float rayBox(float[] boxes, int box, float ox, float oy, float oz, float ix, float iy, float iz, float maxDistance)
+	{
+		int b = box * BOX_SIZE;
+		
+		float t1 = (boxes[b] - ox) * ix, t2 = (boxes[b + 3] - ox) * ix;
+		float near = Math.min(t1, t2), far = Math.max(t1, t2);
+		
+		t1 = (boxes[b + 1] - oy) * iy; t2 = (boxes[b + 4] - oy) * iy;
+		near = Math.max(near, Math.min(t1, t2)); far = Math.min(far, Math.max(t1, t2));
+		
+		t1 = (boxes[b + 2] - oz) * iz; t2 = (boxes[b + 5] - oz) * iz;
+		near = Math.max(near, Math.min(t1, t2)); far = Math.min(far, Math.max(t1, t2));
+		
+		near = Math.max(near, 0); //Starting inside the box hits it straight away
+		
+		return near <= far && near <= maxDistance ? near : Float.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Writes a box into an array of boxes
+	 * @param boxes the array
+	 * @param index which box
+	 * @param box the box
+	 */
+	private static void storeBox(float[] boxes, int index, BoundingBox box)
+	{
+		int b = index * BOX_SIZE;
+		boxes[b] = box.minX; boxes[b + 1] = box.minY; boxes[b + 2] = box.minZ;
+		boxes[b + 3] = box.maxX; boxes[b + 4] = box.maxY; boxes[b + 5] = box.maxZ;
+	}
+	
+	/**
+	 * Reads a box out of an array of boxes
+	 * @param boxes the array
+	 * @param index which box
+	 * @param dest the box to store it in
+	 * @return dest
+	 */
+	private static BoundingBox loadBox(float[] boxes, int index, BoundingBox dest)
+	{
+		int b = index * BOX_SIZE;
+		return dest.set(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3], boxes[b + 4], boxes[b + 5]);
+	}
+	
+}
@@ -0,0 +1,405 @@
+package net.engine.scene;
+
+import java.util.ArrayList;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.Frustum;
+
+/**
+ * A spatial index that splits a cube of the world into eighths, and those into eighths, and so on
+ * 
+ * The nodes are loose, each one holds anything centered in its cube that reaches at most
+ * the cube's half width past it, so its loose box is twice as wide as its cube. That means
+ * an object's node only depends on its center and size. It goes in the deepest node it fits
+ * in, found by halving from the top, without looking at any other objects. Moving an object
+ * that stays in its node only copies its box.
+ * 
+ * Objects centered outside the world go in the top node, whose objects are always checked.
+ * @author Davis
+ *
+ * @param <T> the type of object
+ */
+public class LooseOctree<T> extends AbstractSpatialIndex<T, LooseOctree.OctreeEntry<T>>
+{
+	
+	public static final int CHILDREN = 8;
+	
+	private int maxDepth; //The deepest nodes can go
+	
+	private Node<T> root; //The node over the whole world
+	
+	private BoundingBox scratch; //Reused for the nodes' boxes
+	
+	/**
+	 * Creates an empty octree centered on the origin
+	 * @param halfSize half the width of the world
+	 * @param maxDepth how many times the world can be split
+	 */
+	public LooseOctree(float halfSize, int maxDepth)
+	{
+		this(0, 0, 0, halfSize, maxDepth);
+	}
+	
+	/**
+	 * Creates an empty octree
+	 * @param x the world's center x
+	 * @param y the world's center y
+	 * @param z the world's center z
+	 * @param halfSize half the width of the world
+	 * @param maxDepth how many times the world can be split
+	 */
+	public LooseOctree(float x, float y, float z, float halfSize, int maxDepth)
+	{
+		this.maxDepth = maxDepth;
+		root = new Node<T>(null, 0, x, y, z, halfSize);
+		scratch = new BoundingBox();
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public void insert(T item, BoundingBox bounds)
+	{
+		OctreeEntry<T> entry = entries.get(item);
+		
+		if (entry == null)
+		{
+			entry = new OctreeEntry<T>(item);
+			entries.put(item, entry);
+		}
+		
+		entry.bounds.set(bounds);
+		
+		float x = (bounds.minX + bounds.maxX) / 2, y = (bounds.minY + bounds.maxY) / 2, z = (bounds.minZ + bounds.maxZ) / 2;
+		int depth = getDepth(Math.max(bounds.maxX - bounds.minX, Math.max(bounds.maxY - bounds.minY, bounds.maxZ - bounds.minZ)));
+		
+		if (!root.holds(x, y, z))
+		{
+			depth = 0;
+		}
+		
+		Node<T> node = entry.node;
+		
+		if (node != null && node.depth == depth && (depth == 0 || node.holds(x, y, z))) //Still in the same node
+		{
+			return;
+		}
+		
+		if (node != null)
+		{
+			removeFromNode(entry);
+		}
+		
+		node = root;
+		
+		while (node.depth < depth) //Go down to the node's depth, making nodes as needed
+		{
+			int child = node.getChild(x, y, z);
+			
+			if (node.children == null)
+			{
+				node.children = (Node<T>[]) new Node<?>[CHILDREN];
+			}
+			
+			if (node.children[child] == null)
+			{
+				float quarter = node.half / 2;
+				node.children[child] = new Node<T>(node, node.depth + 1,
+						node.x + ((child & 1) == 0 ? -quarter : quarter),
+						node.y + ((child & 2) == 0 ? -quarter : quarter),
+						node.z + ((child & 4) == 0 ? -quarter : quarter), quarter);
+			}
+			
+			node = node.children[child];
+		}
+		
+		entry.node = node;
+		entry.slot = node.entries.size();
+		node.entries.add(entry);
+		
+		for (Node<T> n = node; n != null; n = n.parent)
+		{
+			n.count++;
+		}
+	}
+	
+	@Override
+	public boolean remove(T item)
+	{
+		OctreeEntry<T> entry = entries.remove(item);
+		
+		if (entry == null)
+		{
+			return false;
+		}
+		
+		removeFromNode(entry);
+		return true;
+	}
+	
+	@Override
+	public void clear()
+	{
+		entries.clear();
+		root = new Node<T>(null, 0, root.x, root.y, root.z, root.half);
+	}
+	
+	@Override
+	public int query(BoundingBox range, Visitor<T> visitor)
+	{
+		return query(root, range, visitor);
+	}
+	
+	/**
+	 * Visits the objects under a node that overlap a box
+	 * @param node the node
+	 * @param range the box
+	 * @param visitor called for each object
+	 * @return how many were visited
+	 */
+	private int query(Node<T> node, BoundingBox range, Visitor<T> visitor)
+	{
+		if (node.count == 0 || node != root && !range.intersects(node.getLooseBounds(scratch)))
+		{
+			return 0;
+		}
+		
+		int visited = 0;
+		ArrayList<OctreeEntry<T>> list = node.entries;
+		
+		for (int i = 0; i < list.size(); i++)
+		{
+			OctreeEntry<T> entry = list.get(i);
+			
+			if (range.intersects(entry.bounds))
+			{
+				visitor.visit(entry.item);
+				visited++;
+			}
+		}
+		
+		if (node.children != null)
+		{
+			for (int i = 0; i < CHILDREN; i++)
+			{
+				if (node.children[i] != null)
+				{
+					visited += query(node.children[i], range, visitor);
+				}
+			}
+		}
+		
+		return visited;
+	}
+	
+	@Override
+	public int cull(Frustum frustum, Visitor<T> visitor)
+	{
+		return cull(root, frustum, false, visitor);
+	}
+	
+	/**
+	 * Visits the objects under a node that might be seen
+	 * @param node the node
+	 * @param frustum the frustum
+	 * @param inside if the node is known to be inside the frustum
+	 * @param visitor called for each object
+	 * @return how many were visited
+	 */
+	private int cull(Node<T> node, Frustum frustum, boolean inside, Visitor<T> visitor)
+	{
+		if (node.count == 0)
+		{
+			return 0;
+		}
+		
+		if (!inside && node != root) //The top node holds things outside its box
+		{
+			int result = frustum.test(node.getLooseBounds(scratch));
+			
+			if (result == Frustum.OUTSIDE)
+			{
+				return 0;
+			}
+			
+			inside = result == Frustum.INSIDE;
+		}
+		
+		int visited = 0;
+		ArrayList<OctreeEntry<T>> list = node.entries;
+		
+		for (int i = 0; i < list.size(); i++)
+		{
+			OctreeEntry<T> entry = list.get(i);
+			
+			if (inside || frustum.intersects(entry.bounds))
+			{
+				visitor.visit(entry.item);
+				visited++;
+			}
+		}
+		
+		if (node.children != null)
+		{
+			for (int i = 0; i < CHILDREN; i++)
+			{
+				if (node.children[i] != null)
+				{
+					visited += cull(node.children[i], frustum, inside, visitor);
+				}
+			}
+		}
+		
+		return visited;
+	}
+	
+	@Override
+	protected float getSearchStart()
+	{
+		return root.half / (1 << maxDepth) * 2; //The width of the smallest node
+	}
+	
+	/**
+	 * Gets the depth of the smallest node an object fits in
+	 * @param size the object's largest width
+	 * @return the depth
+	 */
+	private int getDepth(float size)
+	{
+		int depth = 0;
+		float half = root.half;
+		
+		while (depth < maxDepth && half / 2 >= size / 2) //The child's cube can be reached past by its half width
+		{
+			half /= 2;
+			depth++;
+		}
+		
+		return depth;
+	}
+	
+	/**
+	 * Takes an object out of its node, moving the node's last object into its place
+	 * @param entry the object's entry
+	 */
+	private void removeFromNode(OctreeEntry<T> entry)
+	{
+		ArrayList<OctreeEntry<T>> list = entry.node.entries;
+		OctreeEntry<T> last = list.remove(list.size() - 1);
+		
+		if (last != entry)
+		{
+			list.set(entry.slot, last);
+			last.slot = entry.slot;
+		}
+		
+		for (Node<T> n = entry.node; n != null; n = n.parent)
+		{
+			n.count--;
+		}
+		
+		entry.node = null;
+	}
+	
+	/**
+	 * A cube of the world
+	 * @author Davis
+	 *
+	 * @param <T> the type of object
+	 */
+	private static class Node<T>
+	{
+		
+		private final Node<T> parent;
+		
+		private final int depth;
+		
+		private final float x, y, z; //The cube's center
+		
+		private final float half; //Half the cube's width
+		
+		private final ArrayList<OctreeEntry<T>> entries; //The objects in this node
+		
+		private Node<T>[] children; //Null until a child is needed, then each is null until needed
+		
+		private int count; //How many objects are in this node and under it
+		
+		/**
+		 * Creates an empty node
+		 * @param parent the parent
+		 * @param depth how many splits down it is
+		 * @param x the center x
+		 * @param y the center y
+		 * @param z the center z
+		 * @param half half the width
+		 */
+		private Node(Node<T> parent, int depth, float x, float y, float z, float half)
+		{
+			this.parent = parent;
+			this.depth = depth;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.half = half;
+			this.entries = new ArrayList<OctreeEntry<T>>();
+		}
+		
+		/**
+		 * Checks if a point is in this node's cube
+		 * @param px the x
+		 * @param py the y
+		 * @param pz the z
+		 * @return if it is
+		 */
+		private boolean holds(float px, float py, float pz)
+		{
+			return px >= x - half && px < x + half && py >= y - half && py < y + half && pz >= z - half && pz < z + half;
+		}
+		
+		/**
+		 * Gets the child whose cube a point is in, bit 0 for x, 1 for y, 2 for z
+		 * @param px the x
+		 * @param py the y
+		 * @param pz the z
+		 * @return the child's number
+		 */
+		private int getChild(float px, float py, float pz)
+		{
+			return (px >= x ? 1 : 0) | (py >= y ? 2 : 0) | (pz >= z ? 4 : 0);
+		}
+		
+		/**
+		 * Gets the box everything in this node is within, twice the width of the cube
+		 * @param dest the box to store it in
+		 * @return dest
+		 */
+		private BoundingBox getLooseBounds(BoundingBox dest)
+		{
+			float loose = half * 2;
+			return dest.set(x - loose, y - loose, z - loose, x + loose, y + loose, z + loose);
+		}
+		
+	}
+	
+	/**
+	 * Where an object is in the octree
+	 * @author Davis
+	 *
+	 * @param <T> the type of object
+	 */
+	static class OctreeEntry<T> extends AbstractSpatialIndex.Entry<T>
+	{
+		
+		private Node<T> node; //The node it is in
+		
+		/**
+		 * Creates a new entry
+		 * @param item the object
+		 */
+		private OctreeEntry(T item)
+		{
+			super(item);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,212 @@
+package net.engine.scene;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.Frustum;
+import net.engine.model.Model;
+import net.engine.transform.Orientation;
+import net.engine.transform.OrientationListener;
+
+/**
+ * Keeps models in a spatial index as they move
+ * 
+ * Each model's orientation is listened to and a model that changes is marked. The marked
+ * models are moved in the index all at once before the next query, so a model changed many
+ * times in a tick is only moved once. The boxes are in the space the models are in, which
+ * is the world for models added straight to the engine.
+ * 
+ * A model whose modelMatrix is replaced by another orientation has to be removed and added
+ * again. Changes inside a ModelGroup don't change the group's orientation, so markMoved()
+ * has to be called for them.
+ * @author Davis
+ *
+ */
+public class ModelTracker
+{
+	
+	private SpatialIndex<Model> index; //Where the models are kept
+	
+	private HashMap<Model, Tracked> tracked; //The listener on each model
+	
+	private ArrayList<Tracked> moved; //The models changed since the last update
+	
+	private BoundingBox box; //Reused for the models' boxes
+	
+	/**
+	 * Creates a tracker that keeps models in an index
+	 * @param index the index, which should be empty
+	 */
+	public ModelTracker(SpatialIndex<Model> index)
+	{
+		this.index = index;
+		tracked = new HashMap<Model, Tracked>();
+		moved = new ArrayList<Tracked>();
+		box = new BoundingBox();
+	}
+	
+	/**
+	 * Starts tracking a model
+	 * @param model the model
+	 * @return false if the model has no bounds and can't be tracked
+	 */
+	public boolean add(Model model)
+	{
+		if (tracked.containsKey(model))
+		{
+			return true;
+		}
+		if (!model.getBounds(box))
+		{
+			return false;
+		}
+		
+		Tracked t = new Tracked(model);
+		tracked.put(model, t);
+		index.insert(model, box);
+		return true;
+	}
+	
+	/**
+	 * Stops tracking a model
+	 * @param model the model
+	 * @return if it was tracked
+	 */
+	public boolean remove(Model model)
+	{
+		Tracked t = tracked.remove(model);
+		
+		if (t == null)
+		{
+			return false;
+		}
+		
+		t.orientation.removeListener(t);
+		
+		if (t.moved)
+		{
+			moved.remove(t);
+		}
+		
+		return index.remove(model);
+	}
+	
+	/**
+	 * Marks a model as moved when its orientation didn't change, like when a model in a group moves
+	 * @param model the model
+	 */
+	public void markMoved(Model model)
+	{
+		Tracked t = tracked.get(model);
+		
+		if (t != null)
+		{
+			t.orientationChanged(t.orientation);
+		}
+	}
+	
+	/**
+	 * Moves every model that changed since the last update in the index
+	 */
+	public void update()
+	{
+		for (int i = 0; i < moved.size(); i++)
+		{
+			Tracked t = moved.get(i);
+			t.moved = false;
+			
+			if (t.model.getBounds(box))
+			{
+				index.move(t.model, box);
+			}
+		}
+		
+		moved.clear();
+	}
+	
+	/**
+	 * Visits every model whose box overlaps a box
+	 * @param range the box
+	 * @param visitor called for each model
+	 * @return how many were visited
+	 */
+	public int query(BoundingBox range, Visitor<Model> visitor)
+	{
+		update();
+		return index.query(range, visitor);
+	}
+	
+	/**
+	 * Visits every model that might be seen
+	 * @param frustum the frustum
+	 * @param visitor called for each model
+	 * @return how many were visited
+	 */
+	public int cull(Frustum frustum, Visitor<Model> visitor)
+	{
+		update();
+		return index.cull(frustum, visitor);
+	}
+	
+	/**
+	 * Finds the model whose box is closest to a point
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @param maxDistance how far to look
+	 * @return the model, null if none is within maxDistance
+	 */
+	public Model nearest(float x, float y, float z, float maxDistance)
+	{
+		update();
+		return index.nearest(x, y, z, maxDistance);
+	}
+	
+	/**
+	 * Gets the index, which is only up to date after update()
+	 * @return the index
+	 */
+	public SpatialIndex<Model> getIndex()
+	{
+		return index;
+	}
+	
+	/**
+	 * A model being tracked, listening to its orientation
+	 * @author Davis
+	 *
+	 */
+	private class Tracked implements OrientationListener
+	{
+		
+		private final Model model;
+		
+		private Orientation orientation; //The orientation being listened to
+		
+		private boolean moved; //If it is in the list of moved models
+		
+		/**
+		 * Starts listening to a model
+		 * @param model the model
+		 */
+		private Tracked(Model model)
+		{
+			this.model = model;
+			this.orientation = model.modelMatrix;
+			orientation.addListener(this);
+		}
+		
+		@Override
+		public void orientationChanged(Orientation orientation)
+		{
+			if (!moved)
+			{
+				moved = true;
+				ModelTracker.this.moved.add(this);
+			}
+		}
+		
+	}
+	
+}
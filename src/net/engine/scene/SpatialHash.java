@@ -0,0 +1,369 @@
+package net.engine.scene;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.Frustum;
+
+/**
+ * A spatial index that splits space into cubes of one size and keeps each object
+ * in the cube its center is in
+ * 
+ * Moving an object within its cube only copies its box, and moving it to another
+ * cube takes it out of one list and puts it in another. Queries grow their range by
+ * half the size of the biggest object ever added, because an object can reach that far
+ * out of its cube, so objects much bigger than the cubes make queries look at more cubes.
+ * The cube size should be about the size of the objects.
+ * @author Davis
+ *
+ * @param <T> the type of object
+ */
+public class SpatialHash<T> extends AbstractSpatialIndex<T, SpatialHash.HashEntry<T>>
+{
+	
+	public static final int COORDINATE_BITS = 21; //Bits of each cube coordinate in a cube's key
+	
+	private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+	
+	public static final int MIN_CELL = -(1 << (COORDINATE_BITS - 1)); //Cubes past these hold everything further out
+	public static final int MAX_CELL = (1 << (COORDINATE_BITS - 1)) - 1;
+	
+	private float cellSize; //The width of a cube
+	
+	private float inverseCellSize;
+	
+	private float reach; //How far an object can reach out of its cube, half the biggest size seen
+	
+	private HashMap<Long, Cell<T>> cells; //The cubes with objects in them
+	
+	private BoundingBox scratch; //Reused for the cubes' boxes
+	
+	/**
+	 * Creates an empty spatial hash
+	 * @param cellSize the width of a cube, about the size of the objects
+	 */
+	public SpatialHash(float cellSize)
+	{
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1 / cellSize;
+		
+		reach = 0;
+		cells = new HashMap<Long, Cell<T>>();
+		scratch = new BoundingBox();
+	}
+	
+	@Override
+	public void insert(T item, BoundingBox bounds)
+	{
+		HashEntry<T> entry = entries.get(item);
+		
+		if (entry == null)
+		{
+			entry = new HashEntry<T>(item);
+			entries.put(item, entry);
+		}
+		
+		entry.bounds.set(bounds);
+		reach = Math.max(reach, Math.max(bounds.maxX - bounds.minX, Math.max(bounds.maxY - bounds.minY, bounds.maxZ - bounds.minZ)) / 2);
+		
+		long key = key(cell((bounds.minX + bounds.maxX) / 2), cell((bounds.minY + bounds.maxY) / 2), cell((bounds.minZ + bounds.maxZ) / 2));
+		
+		if (entry.cell != null && entry.cell.key == key) //Still in the same cube
+		{
+			return;
+		}
+		
+		if (entry.cell != null)
+		{
+			removeFromCell(entry);
+		}
+		
+		Cell<T> cell = cells.get(key);
+		
+		if (cell == null)
+		{
+			cell = new Cell<T>(key);
+			cells.put(key, cell);
+		}
+		
+		entry.cell = cell;
+		entry.slot = cell.entries.size();
+		cell.entries.add(entry);
+	}
+	
+	@Override
+	public boolean remove(T item)
+	{
+		HashEntry<T> entry = entries.remove(item);
+		
+		if (entry == null)
+		{
+			return false;
+		}
+		
+		removeFromCell(entry);
+		return true;
+	}
+	
+	@Override
+	public void clear()
+	{
+		entries.clear();
+		cells.clear();
+		reach = 0;
+	}
+	
+	@Override
+	public int query(BoundingBox range, Visitor<T> visitor)
+	{
+		int minX = cell(range.minX - reach), minY = cell(range.minY - reach), minZ = cell(range.minZ - reach);
+		int maxX = cell(range.maxX + reach), maxY = cell(range.maxY + reach), maxZ = cell(range.maxZ + reach);
+		
+		long cubes = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+		int visited = 0;
+		
+		if (cubes > cells.size()) //Cheaper to go through the cubes that have objects
+		{
+			for (Cell<T> cell : cells.values())
+			{
+				if (range.intersects(getCellBounds(cell, scratch)))
+				{
+					visited += visitCell(cell, range, visitor);
+				}
+			}
+			
+			return visited;
+		}
+		
+		for (int x = minX; x <= maxX; x++)
+		{
+			for (int y = minY; y <= maxY; y++)
+			{
+				for (int z = minZ; z <= maxZ; z++)
+				{
+					Cell<T> cell = cells.get(key(x, y, z));
+					
+					if (cell != null)
+					{
+						visited += visitCell(cell, range, visitor);
+					}
+				}
+			}
+		}
+		
+		return visited;
+	}
+	
+	@Override
+	public int cull(Frustum frustum, Visitor<T> visitor)
+	{
+		int visited = 0;
+		
+		for (Cell<T> cell : cells.values())
+		{
+			int result = frustum.test(getCellBounds(cell, scratch));
+			
+			if (result == Frustum.OUTSIDE)
+			{
+				continue;
+			}
+			
+			ArrayList<HashEntry<T>> list = cell.entries;
+			
+			for (int i = 0; i < list.size(); i++)
+			{
+				HashEntry<T> entry = list.get(i);
+				
+				if (result == Frustum.INSIDE || frustum.intersects(entry.bounds))
+				{
+					visitor.visit(entry.item);
+					visited++;
+				}
+			}
+		}
+		
+		return visited;
+	}
+	
+	@Override
+	protected float getSearchStart()
+	{
+		return cellSize;
+	}
+	
+	/**
+	 * Gets the width of a cube
+	 * @return the width
+	 */
+	public float getCellSize()
+	{
+		return cellSize;
+	}
+	
+	/**
+	 * Visits the objects in a cube that overlap a box
+	 * @param cell the cube
+	 * @param range the box
+	 * @param visitor called for each object
+	 * @return how many were visited
+	 */
+	private int visitCell(Cell<T> cell, BoundingBox range, Visitor<T> visitor)
+	{
+		int visited = 0;
+		ArrayList<HashEntry<T>> list = cell.entries;
+		
+		for (int i = 0; i < list.size(); i++)
+		{
+			HashEntry<T> entry = list.get(i);
+			
+			if (range.intersects(entry.bounds))
+			{
+				visitor.visit(entry.item);
+				visited++;
+			}
+		}
+		
+		return visited;
+	}
+	
+	/**
+	 * Takes an object out of its cube, moving the last object of the cube into its place
+	 * and dropping the cube if it is empty
+	 * @param entry the object's entry
+	 */
+	private void removeFromCell(HashEntry<T> entry)
+	{
+		ArrayList<HashEntry<T>> list = entry.cell.entries;
+		HashEntry<T> last = list.remove(list.size() - 1);
+		
+		if (last != entry)
+		{
+			list.set(entry.slot, last);
+			last.slot = entry.slot;
+		}
+		
+		if (list.isEmpty())
+		{
+			cells.remove(entry.cell.key);
+		}
+		
+		entry.cell = null;
+	}
+	
+	/**
+	 * Gets the box anything in a cube can be in, the cube grown by the reach
+	 * @param cell the cube
+	 * @param dest the box to store it in
+	 * @return dest
+	 */
+	private BoundingBox getCellBounds(Cell<T> cell, BoundingBox dest)
+	{
+		return dest.set(cellMin(cell.x), cellMin(cell.y), cellMin(cell.z), cellMax(cell.x), cellMax(cell.y), cellMax(cell.z));
+	}
+	
+	/**
+	 * Gets the lowest value anything in a row of cubes can reach
+	 * @param cell the cube's coordinate
+	 * @return the value, the cubes on the edge reach forever
+	 */
+	private float cellMin(int cell)
+	{
+		return cell == MIN_CELL ? Float.NEGATIVE_INFINITY : cell * cellSize - reach;
+	}
+	
+	/**
+	 * Gets the highest value anything in a row of cubes can reach
+	 * @param cell the cube's coordinate
+	 * @return the value, the cubes on the edge reach forever
+	 */
+	private float cellMax(int cell)
+	{
+		return cell == MAX_CELL ? Float.POSITIVE_INFINITY : (cell + 1) * cellSize + reach;
+	}
+	
+	/**
+	 * Gets the cube a coordinate is in, coordinates too far out go in the cubes on the edge
+	 * @param value the coordinate
+	 * @return the cube's coordinate
+	 */
+	private int cell(float value)
+	{
+		return (int) Math.max(MIN_CELL, Math.min(MAX_CELL, Math.floor(value * inverseCellSize)));
+	}
+	
+	/**
+	 * Packs a cube's coordinates into a key
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the key
+	 */
+	private static long key(int x, int y, int z)
+	{
+		return ((long) (x & COORDINATE_MASK) << (2 * COORDINATE_BITS)) | ((long) (y & COORDINATE_MASK) << COORDINATE_BITS) | (z & COORDINATE_MASK);
+	}
+	
+	/**
+	 * A cube with objects in it
+	 * @author Davis
+	 *
+	 * @param <T> the type of object
+	 */
+	private static class Cell<T>
+	{
+		
+		private final long key;
+		
+		private final int x, y, z; //The cube's coordinates
+		
+		private final ArrayList<HashEntry<T>> entries; //The objects whose centers are in the cube
+		
+		/**
+		 * Creates an empty cube
+		 * @param key the cube's key
+		 */
+		private Cell(long key)
+		{
+			this.key = key;
+			this.x = unpack((int) (key >>> (2 * COORDINATE_BITS)));
+			this.y = unpack((int) (key >>> COORDINATE_BITS));
+			this.z = unpack((int) key);
+			this.entries = new ArrayList<HashEntry<T>>();
+		}
+		
+		/**
+		 * Gets a coordinate back out of a key
+		 * @param bits the coordinate's bits in the lowest bits
+		 * @return the coordinate
+		 */
+		private static int unpack(int bits)
+		{
+			return (bits & COORDINATE_MASK) << (32 - COORDINATE_BITS) >> (32 - COORDINATE_BITS); //Sign extend
+		}
+		
+	}
+	
+	/**
+	 * Where an object is in the hash
+	 * @author Davis
+	 *
+	 * @param <T> the type of object
+	 */
+	static class HashEntry<T> extends AbstractSpatialIndex.Entry<T>
+	{
+		
+		private Cell<T> cell; //The cube it is in
+		
+		/**
+		 * Creates a new entry
+		 * @param item the object
+		 */
+		private HashEntry(T item)
+		{
+			super(item);
+		}
+		
+	}
+	
+}
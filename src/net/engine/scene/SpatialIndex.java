@@ -0,0 +1,83 @@
+package net.engine.scene;
+
+import net.engine.math.BoundingBox;
+import net.engine.math.Frustum;
+
+/**
+ * Finds objects by where they are, for objects that move often
+ * 
+ * Objects are given by their box when they are added and whenever they move.
+ * Adding, moving, and removing take about the same time however many objects there are.
+ * @author Davis
+ *
+ * @param <T> the type of object
+ */
+public interface SpatialIndex<T>
+{
+	
+	/**
+	 * Adds an object, or moves it if it is already in the index
+	 * @param item the object
+	 * @param bounds its box, which is copied
+	 */
+	void insert(T item, BoundingBox bounds);
+	
+	/**
+	 * Moves an object, adding it if it isn't in the index
+	 * @param item the object
+	 * @param bounds its new box, which is copied
+	 */
+	void move(T item, BoundingBox bounds);
+	
+	/**
+	 * Removes an object
+	 * @param item the object
+	 * @return if it was in the index
+	 */
+	boolean remove(T item);
+	
+	/**
+	 * Checks if an object is in the index
+	 * @param item the object
+	 * @return if it is
+	 */
+	boolean contains(T item);
+	
+	/**
+	 * Removes every object
+	 */
+	void clear();
+	
+	/**
+	 * Gets how many objects are in the index
+	 * @return the count
+	 */
+	int size();
+	
+	/**
+	 * Visits every object whose box overlaps a box
+	 * @param range the box
+	 * @param visitor called for each object
+	 * @return how many objects were visited
+	 */
+	int query(BoundingBox range, Visitor<T> visitor);
+	
+	/**
+	 * Visits every object whose box might be seen
+	 * @param frustum the frustum, in the same space as the boxes
+	 * @param visitor called for each object
+	 * @return how many objects were visited
+	 */
+	int cull(Frustum frustum, Visitor<T> visitor);
+	
+	/**
+	 * Finds the object whose box is closest to a point
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @param maxDistance how far to look
+	 * @return the object, null if there is none within maxDistance
+	 */
+	T nearest(float x, float y, float z, float maxDistance);
+	
+}
@@ -0,0 +1,18 @@
+package net.engine.scene;
+
+/**
+ * Called for each object a scene query finds
+ * @author Davis
+ *
+ * @param <T> the type of object
+ */
+public interface Visitor<T>
+{
+	
+	/**
+	 * Visits an object found by a query
+	 * @param item the object
+	 */
+	void visit(T item);
+	
+}
@@ -0,0 +1,444 @@
+package net.engine.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import javax.imageio.ImageIO;
+
+import net.engine.core.Engine;
+import net.engine.model.FileModel;
+import net.engine.render.ShaderPreprocessor;
+import net.engine.render.TextureBlob;
+import net.engine.render.mesh.Mesh;
+import net.engine.render.mesh.MeshCache;
+import net.engine.util.AssetManifest;
+import net.engine.util.AssetManifest.Dependency;
+import net.engine.util.AssetManifest.Entry;
+
+/**
+ * Bakes the resources the engine loads into forms it can use without parsing them
+ * 
+ * Models become binary meshes, textures become raw mipmapped blobs, and shaders are
+ * preprocessed. Everything is written to the cache folder along with a manifest the
+ * engine reads to find them. Only sources that changed since the last bake are rebuilt.
+ * 
+ * Usage: AssetBaker [resource folder]
+ * @author Davis
+ *
+ */
+public class AssetBaker
+{
+	
+	public static final String[] MODEL_EXTENSIONS = {".obj"};
+	public static final String[] TEXTURE_EXTENSIONS = {".png", ".jpg", ".jpeg", ".bmp"};
+	public static final String[] SHADER_EXTENSIONS = {".vs", ".fs", ".gs"};
+	
+	//The format each kind of asset is baked in, a baked asset with a different format is baked again
+	public static final int MODEL_FORMAT = MeshCache.VERSION << 16 | (FileModel.OPTIMIZE_MESHES ? MeshCache.OPTIMIZED : 0)
+			| (FileModel.GENERATE_LODS ? MeshCache.LODS : 0) | (FileModel.QUANTIZE_ATTRIBUTES ? 1 : 0);
+	public static final int TEXTURE_FORMAT = TextureBlob.VERSION;
+	public static final int SHADER_FORMAT = 1; //Changed whenever the preprocessor's output changes
+	
+	private File resourceFolder; //The folder everything is relative to
+	
+	private String cacheLocation; //Where baked files go, relative to the resource folder
+	
+	private AssetManifest manifest; //What has been baked
+	
+	private int baked, skipped, failed; //Counts for the summary
+	
+	/**
+	 * Runs the baker
+	 * @param args the resource folder, optional
+	 */
+	public static void main(String[] args)
+	{
+		String resources = args.length > 0 ? args[0] : Engine.DEFAULT_RESOURCE_LOCATION;
+		
+		try
+		{
+			AssetBaker baker = new AssetBaker(new File(resources), Engine.DEFAULT_CACHE_LOCATION);
+			baker.bake();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Creates a new baker
+	 * @param resourceFolder the resource folder
+	 * @param cacheLocation where baked files go, relative to the resource folder
+	 * @throws IOException if the old manifest can't be read
+	 */
+	public AssetBaker(File resourceFolder, String cacheLocation) throws IOException
+	{
+		this.resourceFolder = resourceFolder;
+		this.cacheLocation = cacheLocation;
+		this.manifest = AssetManifest.load(getManifestFile());
+	}
+	
+	/**
+	 * Bakes every model, texture, and shader and saves the manifest
+	 * @throws IOException if the manifest can't be saved
+	 */
+	public void bake() throws IOException
+	{
+		for (String source : manifest.getSources()) //Forget sources that are gone
+		{
+			if (!new File(resourceFolder, source).exists())
+			{
+				manifest.remove(source);
+			}
+		}
+		
+		for (String source : list(Engine.DEFAULT_MODEL_LOCATION, MODEL_EXTENSIONS))
+		{
+			bakeModel(source);
+		}
+		for (String source : list(Engine.DEFAULT_TEXTURE_LOCATION, TEXTURE_EXTENSIONS))
+		{
+			bakeTexture(source);
+		}
+		for (String source : list(Engine.DEFAULT_SHADER_LOCATION, SHADER_EXTENSIONS))
+		{
+			bakeShader(source);
+		}
+		
+		File manifestFile = getManifestFile();
+		manifestFile.getParentFile().mkdirs();
+		manifest.save(manifestFile);
+		
+		System.out.println("Baked " + baked + ", up to date " + skipped + ", failed " + failed);
+	}
+	
+	/**
+	 * Bakes a model into a binary mesh
+	 * @param source the model's path
+	 */
+	private void bakeModel(String source)
+	{
+		String fileName = source.substring(Engine.DEFAULT_MODEL_LOCATION.length());
+		String target = relative(FileModel.getCacheFile(cacheLocation, fileName));
+		
+		if (isUpToDate(source, target, MODEL_FORMAT))
+		{
+			return;
+		}
+		
+		try
+		{
+			File sourceFile = new File(resourceFolder, source);
+			Mesh mesh = FileModel.loadMesh(sourceFile, FileModel.OPTIMIZE_MESHES, true); //The same mesh the engine would make, printing its ACMR
+			
+			MeshCache.write(new File(resourceFolder, target), sourceFile, mesh, FileModel.OPTIMIZE_MESHES, FileModel.GENERATE_LODS);
+			finish(source, target, MODEL_FORMAT);
+			
+			if (mesh.getLODCount() > 1)
+			{
+				String levels = "";
+				for (int i = 0; i < mesh.getLODCount(); i++)
+				{
+					levels += (i == 0 ? "" : ", ") + mesh.getLODIndexCount(i) / 3;
+				}
+				
+				System.out.println("    Levels of detail " + levels + " triangles");
+			}
+		}
+		catch (IOException e)
+		{
+			fail(source, e);
+		}
+	}
+	
+	/**
+	 * Bakes a texture into a blob
+	 * @param source the texture's path
+	 */
+	private void bakeTexture(String source)
+	{
+		String target = cacheLocation + source + TextureBlob.EXTENSION;
+		
+		if (isUpToDate(source, target, TEXTURE_FORMAT))
+		{
+			return;
+		}
+		
+		try
+		{
+			File sourceFile = new File(resourceFolder, source);
+			BufferedImage image = ImageIO.read(sourceFile);
+			
+			if (image == null)
+			{
+				throw new IOException("Not an image the baker can read");
+			}
+			
+			TextureBlob.create(image).write(new File(resourceFolder, target), sourceFile);
+			finish(source, target, TEXTURE_FORMAT);
+		}
+		catch (IOException e)
+		{
+			fail(source, e);
+		}
+	}
+	
+	/**
+	 * Bakes a shader by preprocessing it
+	 * 
+	 * Shaders are always preprocessed since an included file may have changed,
+	 * but they are only written if the result or a file they include is different.
+	 * The included files are recorded so the engine stops using the baked shader once one changes
+	 * @param source the shader's path
+	 */
+	private void bakeShader(String source)
+	{
+		String target = cacheLocation + source;
+		File sourceFile = new File(resourceFolder, source);
+		File targetFile = new File(resourceFolder, target);
+		
+		try
+		{
+			ArrayList<File> files = new ArrayList<File>();
+			String text = ShaderPreprocessor.process(sourceFile, files);
+			
+			Dependency[] dependencies = new Dependency[files.size() - 1]; //The first file is the shader itself
+			for (int i = 0; i < dependencies.length; i++)
+			{
+				File file = files.get(i + 1);
+				dependencies[i] = new Dependency(relative(resourceFolder, file), file.length(), file.lastModified());
+			}
+			
+			if (text.equals(read(targetFile)) && isUpToDate(source, target, SHADER_FORMAT, dependencies))
+			{
+				return;
+			}
+			
+			targetFile.getParentFile().mkdirs();
+			Writer writer = new OutputStreamWriter(new FileOutputStream(targetFile), "UTF-8");
+			
+			try
+			{
+				writer.write(text);
+			}
+			finally
+			{
+				writer.close();
+			}
+			
+			finish(source, target, SHADER_FORMAT, dependencies);
+		}
+		catch (IOException e)
+		{
+			fail(source, e);
+		}
+	}
+	
+	/**
+	 * Checks if a source has been baked in the same format since it last changed, counting it as skipped if it has
+	 * @param source the source's path
+	 * @param target the baked file's path
+	 * @param format the format it would be baked in now
+	 * @return if it is up to date
+	 */
+	private boolean isUpToDate(String source, String target, int format)
+	{
+		return isUpToDate(source, target, format, new Dependency[0]);
+	}
+	
+	/**
+	 * Checks if a source has been baked in the same format from the same files since any of them last changed,
+	 * counting it as skipped if it has
+	 * @param source the source's path
+	 * @param target the baked file's path
+	 * @param format the format it would be baked in now
+	 * @param dependencies the other files it would be made from now
+	 * @return if it is up to date
+	 */
+	private boolean isUpToDate(String source, String target, int format, Dependency[] dependencies)
+	{
+		Entry entry = manifest.get(source);
+		File sourceFile = new File(resourceFolder, source);
+		
+		if (entry != null && entry.baked.equals(target) && entry.format == format && entry.length == sourceFile.length()
+				&& entry.modified == sourceFile.lastModified() && sameFiles(entry.dependencies, dependencies)
+				&& new File(resourceFolder, target).isFile())
+		{
+			skipped++;
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Checks if two lists of files are the same files with the same lengths and times
+	 * @param a the first list
+	 * @param b the second list
+	 * @return if they are
+	 */
+	private static boolean sameFiles(Dependency[] a, Dependency[] b)
+	{
+		if (a.length != b.length)
+		{
+			return false;
+		}
+		
+		for (int i = 0; i < a.length; i++)
+		{
+			if (!a[i].path.equals(b[i].path) || a[i].length != b[i].length || a[i].modified != b[i].modified)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Records a baked source in the manifest
+	 * @param source the source's path
+	 * @param target the baked file's path
+	 * @param format the format it was baked in
+	 */
+	private void finish(String source, String target, int format)
+	{
+		finish(source, target, format, new Dependency[0]);
+	}
+	
+	/**
+	 * Records a baked source in the manifest along with the other files it was made from
+	 * @param source the source's path
+	 * @param target the baked file's path
+	 * @param format the format it was baked in
+	 * @param dependencies the other files it was made from
+	 */
+	private void finish(String source, String target, int format, Dependency[] dependencies)
+	{
+		File sourceFile = new File(resourceFolder, source);
+		manifest.put(new Entry(source, target, sourceFile.length(), sourceFile.lastModified(), format, dependencies));
+		
+		System.out.println("Baked " + source + " -> " + target);
+		baked++;
+	}
+	
+	/**
+	 * Records a source that couldn't be baked, the engine will load it from the source
+	 * @param source the source's path
+	 * @param e what went wrong
+	 */
+	private void fail(String source, IOException e)
+	{
+		manifest.remove(source);
+		
+		System.err.println("Could not bake " + source + ": " + e.getMessage());
+		failed++;
+	}
+	
+	/**
+	 * Lists the files in a folder and its subfolders with some extensions
+	 * @param folder the folder's path
+	 * @param extensions the extensions
+	 * @return the files' paths
+	 */
+	private ArrayList<String> list(String folder, String[] extensions)
+	{
+		ArrayList<String> result = new ArrayList<String>();
+		list(new File(resourceFolder, folder), folder, extensions, result);
+		return result;
+	}
+	
+	/**
+	 * Lists the files in a folder and its subfolders with some extensions
+	 * @param folder the folder
+	 * @param path the folder's path
+	 * @param extensions the extensions
+	 * @param result where to add the files' paths
+	 */
+	private static void list(File folder, String path, String[] extensions, ArrayList<String> result)
+	{
+		File[] files = folder.listFiles();
+		
+		if (files == null)
+		{
+			return;
+		}
+		
+		for (File file : files)
+		{
+			if (file.isDirectory())
+			{
+				list(file, path + file.getName() + "/", extensions, result);
+				continue;
+			}
+			
+			String name = file.getName().toLowerCase();
+			
+			for (String extension : extensions)
+			{
+				if (name.endsWith(extension))
+				{
+					result.add(path + file.getName());
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets a file's path relative to the resource folder
+	 * @param file the file, made by adding a relative path to nothing
+	 * @return the path with '/' between folders
+	 */
+	private static String relative(File file)
+	{
+		return file.getPath().replace(File.separatorChar, '/');
+	}
+	
+	/**
+	 * Gets the path of a file relative to a folder, using '/'
+	 * @param folder the folder
+	 * @param file the file
+	 * @return the path
+	 * @throws IOException if either path can't be resolved
+	 */
+	private static String relative(File folder, File file) throws IOException
+	{
+		return relative(folder.getCanonicalFile().toPath().relativize(file.getCanonicalFile().toPath()).toFile());
+	}
+	
+	/**
+	 * Reads a text file
+	 * @param file the file
+	 * @return the text, null if it can't be read
+	 */
+	private static String read(File file)
+	{
+		try
+		{
+			return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Gets the manifest's file
+	 * @return the file
+	 */
+	private File getManifestFile()
+	{
+		return new File(resourceFolder, cacheLocation + AssetManifest.FILE_NAME);
+	}
+	
+}
@@ -1,148 +1,320 @@
-package net.engine.transform;
-
-import net.engine.math.Vector3f;
-import net.engine.matrix.Matrix4f;
-import net.engine.util.Camera;
-
-/**
- * Represents a transformation
- * @author Davis
- *
- */
-public class Orientation
-{
-
-	private Vector3f translateVector; //The matrix is simply moved by this amount
-	private Vector3f rotateVector; //This is the rotation individually on each plane in radians
-	private Vector3f scaleVector; //The matrix is multiplied by this amount
-	
-	/**
-	 * Creates a new blank transformation
-	 */
-	public Orientation()
-	{
-		translateVector = new Vector3f(0, 0, 0);
-		rotateVector = new Vector3f(0, 0, 0);
-		scaleVector = new Vector3f(1, 1, 1);
-	}
-	
-	/**
-	 * Gets a matrix that when multiplied with a vector will result in this transformation
-	 * @return the matrix that when multiplied with a vector will result in this transformation
-	 */
-	public Matrix4f getTransformationMatrix()
-	{
-		Matrix4f translation = new Matrix4f(); translation.initTranslation(translateVector.x, translateVector.y, translateVector.z);
-		Matrix4f rotation = new Matrix4f(); rotation.initRotation(rotateVector.x, rotateVector.y, rotateVector.z);
-		Matrix4f scale = new Matrix4f(); scale.initScale(scaleVector.x, scaleVector.y, scaleVector.z);
-		
-		return translation.mul(rotation.mul(scale));
-	}
-	
-	/**
-	 * Gets a matrix that rotates this orientation
-	 * @return the matrix that rotates
-	 */
-	public Matrix4f getRotationMatrix()
-	{
-		Matrix4f rotation = new Matrix4f(); rotation.initRotation(rotateVector.x, rotateVector.y, rotateVector.z);
-		
-		return rotation;
-	}
-	
-	/**
-	 * Gets the translation matrix from a camera
-	 * @param camera the camera
-	 * @return the translation matrix
-	 */
-	public Matrix4f getCameraTransformationMatrix(Camera camera)
-	{
-		Matrix4f transformationMatrix = getTransformationMatrix();
-		Matrix4f cameraRotationMatrix = new Matrix4f(); cameraRotationMatrix.initCamera(camera.getForward(), camera.getUp());
-		Matrix4f cameraTranslation = new Matrix4f(); cameraTranslation.initTranslation(-camera.pos.x, -camera.pos.y, -camera.pos.z);
-		
-		return cameraRotationMatrix.mul(cameraTranslation.mul(transformationMatrix));
-	}
-	
-	/**
-	 * Returns the translation vector
-	 * @return the translation vector
-	 */
-	public Vector3f getTranslationVector()
-	{
-		return translateVector;
-	}
-	
-	/**
-	 * Sets the translation vector
-	 * @param translate the vector to set it to
-	 */
-	public void setTranslation(Vector3f translate)
-	{
-		translateVector = translate;
-	}
-	
-	/**
-	 * Sets the translation vector
-	 * @param translate the vector to set it to
-	 */
-	public void setTranslation(float x, float y, float z)
-	{
-		translateVector = new Vector3f(x, y, z);
-	}
-	
-	/**
-	 * Returns the rotation vector
-	 * @return the rotation vector
-	 */
-	public Vector3f getRotationVector()
-	{
-		return rotateVector;
-	}
-	
-	/**
-	 * Sets the rotation vector
-	 * @param rotate the vector to set it to
-	 */
-	public void setRotation(Vector3f rotate)
-	{
-		rotateVector = rotate;
-	}
-	
-	/**
-	 * Sets the rotation vector
-	 * @param rotate the vector to set it to
-	 */
-	public void setRotation(float x, float y, float z)
-	{
-		rotateVector = new Vector3f(x, y, z);
-	}
-	
-	/**
-	 * Returns the scale vector
-	 * @return the scale vector
-	 */
-	public Vector3f getScaleVector()
-	{
-		return scaleVector;
-	}
-	
-	/**
-	 * Sets the scale vector
-	 * @param scale the vector to set it to
-	 */
-	public void setScale(Vector3f scale)
-	{
-		scaleVector = scale;
-	}
-	
-	/**
-	 * Sets the scale vector
-	 * @param scale the vector to set it to
-	 */
-	public void setScale(float x, float y, float z)
-	{
-		scaleVector = new Vector3f(x, y, z);
-	}
-	
-}
+package net.engine.transform;
+
+import java.util.ArrayList;
+
+import net.engine.math.Quaternion;
+import net.engine.math.Vector3f;
+import net.engine.matrix.Matrix4f;
+import net.engine.util.Camera;
+
+/**
+ * Represents a transformation
+ * 
+ * The matrices are cached and only rebuilt when the transformation changes. The setters
+ * mark the cache as dirty, and because the vectors returned by the getters can be changed
+ * in place the values the cache was built from are also compared before it is reused.
+ * invalidate() can be called to force a rebuild. getVersion() counts the rebuilds, so anything
+ * built from this orientation can tell it has changed however it was changed.
+ * 
+ * The rotation is either euler angles or, once setRotation() is given a quaternion,
+ * that quaternion. Quaternions are turned into a matrix without any trig.
+ * 
+ * Listeners are told whenever a setter or invalidate() is called. Changing the vectors
+ * in place doesn't tell them, so call invalidate() afterwards if anything is listening.
+ * @author Davis
+ *
+ */
+public class Orientation
+{
+
+	private Vector3f translateVector; //The matrix is simply moved by this amount
+	private Vector3f rotateVector; //This is the rotation individually on each plane in radians
+	private Quaternion rotateQuaternion; //The rotation when using quaternions, null when using euler angles
+	private Vector3f scaleVector; //The matrix is multiplied by this amount
+	
+	private Matrix4f transformation; //The cached transformation
+	private Matrix4f rotation; //The cached rotation
+	private Matrix4f scratch; //Used when combining with a camera
+	private Matrix4f cameraTransformation; //Reused for the matrix combined with a camera
+	
+	private float[] built; //The translation, rotation, and scale the cache was built from
+	private boolean dirty; //If the cache must be rebuilt
+	private int version; //Counts up every time the cache is rebuilt
+	
+	private ArrayList<OrientationListener> listeners; //Told when this changes, null until one is added
+	
+	/**
+	 * Creates a new blank transformation
+	 */
+	public Orientation()
+	{
+		translateVector = new Vector3f(0, 0, 0);
+		rotateVector = new Vector3f(0, 0, 0);
+		scaleVector = new Vector3f(1, 1, 1);
+		
+		transformation = new Matrix4f();
+		rotation = new Matrix4f();
+		scratch = new Matrix4f();
+		cameraTransformation = new Matrix4f();
+		
+		built = new float[10];
+		dirty = true;
+	}
+	
+	/**
+	 * Marks the cached matrices as needing to be rebuilt
+	 */
+	public void invalidate()
+	{
+		changed();
+	}
+	
+	/**
+	 * Adds a listener told whenever this orientation changes
+	 * @param listener the listener
+	 */
+	public void addListener(OrientationListener listener)
+	{
+		if (listeners == null)
+		{
+			listeners = new ArrayList<OrientationListener>(1);
+		}
+		
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener
+	 * @param listener the listener
+	 */
+	public void removeListener(OrientationListener listener)
+	{
+		if (listeners != null)
+		{
+			listeners.remove(listener);
+		}
+	}
+	
+	/**
+	 * Marks the cache as dirty and tells the listeners
+	 */
+	private void changed()
+	{
+		dirty = true;
+		
+		if (listeners != null)
+		{
+			for (int i = 0; i < listeners.size(); i++)
+			{
+				listeners.get(i).orientationChanged(this);
+			}
+		}
+	}
+	
+	/**
+	 * Rebuilds the cached matrices if the transformation has changed since they were built
+	 */
+	private void update()
+	{
+		boolean rotationChanged;
+		
+		if (rotateQuaternion == null)
+		{
+			rotationChanged = dirty || built[3] != rotateVector.x || built[4] != rotateVector.y || built[5] != rotateVector.z;
+		}
+		else
+		{
+			rotationChanged = dirty || built[3] != rotateQuaternion.x || built[4] != rotateQuaternion.y || built[5] != rotateQuaternion.z || built[9] != rotateQuaternion.w;
+		}
+		
+		if (!rotationChanged && built[0] == translateVector.x && built[1] == translateVector.y && built[2] == translateVector.z
+				&& built[6] == scaleVector.x && built[7] == scaleVector.y && built[8] == scaleVector.z)
+		{
+			return; //Nothing changed
+		}
+		
+		if (rotationChanged) //Only do the trig if the rotation changed
+		{
+			if (rotateQuaternion == null)
+			{
+				rotation.initRotation(rotateVector.x, rotateVector.y, rotateVector.z);
+				built[3] = rotateVector.x; built[4] = rotateVector.y; built[5] = rotateVector.z;
+			}
+			else
+			{
+				rotation.initRotation(rotateQuaternion);
+				built[3] = rotateQuaternion.x; built[4] = rotateQuaternion.y; built[5] = rotateQuaternion.z; built[9] = rotateQuaternion.w;
+			}
+		}
+		
+		transformation.initTransformation(translateVector.x, translateVector.y, translateVector.z, rotation, scaleVector.x, scaleVector.y, scaleVector.z);
+		
+		built[0] = translateVector.x; built[1] = translateVector.y; built[2] = translateVector.z;
+		built[6] = scaleVector.x; built[7] = scaleVector.y; built[8] = scaleVector.z;
+		dirty = false;
+		version++;
+	}
+	
+	/**
+	 * Gets a number that changes every time this transformation changes,
+	 * including when its vectors are changed in place
+	 * @return the version
+	 */
+	public int getVersion()
+	{
+		update();
+		
+		return version;
+	}
+	
+	/**
+	 * Gets a matrix that when multiplied with a vector will result in this transformation
+	 * 
+	 * The matrix is cached by this orientation so it should not be modified
+	 * @return the matrix that when multiplied with a vector will result in this transformation
+	 */
+	public Matrix4f getTransformationMatrix()
+	{
+		update();
+		
+		return transformation;
+	}
+	
+	/**
+	 * Gets a matrix that rotates this orientation
+	 * 
+	 * The matrix is cached by this orientation so it should not be modified
+	 * @return the matrix that rotates
+	 */
+	public Matrix4f getRotationMatrix()
+	{
+		update();
+		
+		return rotation;
+	}
+	
+	/**
+	 * Gets the translation matrix from a camera
+	 * 
+	 * The returned matrix is reused by the next call so it should not be held onto
+	 * @param camera the camera
+	 * @return the translation matrix
+	 */
+	public Matrix4f getCameraTransformationMatrix(Camera camera)
+	{
+		Matrix4f transformationMatrix = getTransformationMatrix();
+		cameraTransformation.initCamera(camera.getForward(), camera.getUp());
+		scratch.initTranslation(-camera.pos.x, -camera.pos.y, -camera.pos.z);
+		
+		return cameraTransformation.mulLocal(scratch.mulLocal(transformationMatrix));
+	}
+	
+	/**
+	 * Returns the translation vector
+	 * @return the translation vector
+	 */
+	public Vector3f getTranslationVector()
+	{
+		return translateVector;
+	}
+	
+	/**
+	 * Sets the translation vector
+	 * @param translate the vector to set it to
+	 */
+	public void setTranslation(Vector3f translate)
+	{
+		translateVector = translate;
+		changed();
+	}
+	
+	/**
+	 * Sets the translation vector
+	 * @param translate the vector to set it to
+	 */
+	public void setTranslation(float x, float y, float z)
+	{
+		translateVector = new Vector3f(x, y, z);
+		changed();
+	}
+	
+	/**
+	 * Returns the rotation vector
+	 * @return the rotation vector
+	 */
+	public Vector3f getRotationVector()
+	{
+		return rotateVector;
+	}
+	
+	/**
+	 * Sets the rotation vector
+	 * @param rotate the vector to set it to
+	 */
+	public void setRotation(Vector3f rotate)
+	{
+		rotateVector = rotate;
+		rotateQuaternion = null;
+		changed();
+	}
+	
+	/**
+	 * Sets the rotation vector
+	 * @param rotate the vector to set it to
+	 */
+	public void setRotation(float x, float y, float z)
+	{
+		rotateVector = new Vector3f(x, y, z);
+		rotateQuaternion = null;
+		changed();
+	}
+	
+	/**
+	 * Returns the rotation quaternion
+	 * @return the rotation quaternion, null if the rotation is in euler angles
+	 */
+	public Quaternion getRotationQuaternion()
+	{
+		return rotateQuaternion;
+	}
+	
+	/**
+	 * Sets the rotation to a quaternion, which is used instead of the rotation vector from then on
+	 * @param rotate the quaternion to set it to, must be normalized
+	 */
+	public void setRotation(Quaternion rotate)
+	{
+		rotateQuaternion = rotate;
+		changed();
+	}
+	
+	/**
+	 * Returns the scale vector
+	 * @return the scale vector
+	 */
+	public Vector3f getScaleVector()
+	{
+		return scaleVector;
+	}
+	
+	/**
+	 * Sets the scale vector
+	 * @param scale the vector to set it to
+	 */
+	public void setScale(Vector3f scale)
+	{
+		scaleVector = scale;
+		changed();
+	}
+	
+	/**
+	 * Sets the scale vector
+	 * @param scale the vector to set it to
+	 */
+	public void setScale(float x, float y, float z)
+	{
+		scaleVector = new Vector3f(x, y, z);
+		changed();
+	}
+	
+}
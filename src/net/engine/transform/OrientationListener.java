@@ -0,0 +1,17 @@
+package net.engine.transform;
+
+/**
+ * Told when an orientation is changed through its setters or invalidate()
+ * @author Davis
+ *
+ */
+public interface OrientationListener
+{
+	
+	/**
+	 * Called after an orientation changes
+	 * @param orientation the orientation
+	 */
+	void orientationChanged(Orientation orientation);
+	
+}
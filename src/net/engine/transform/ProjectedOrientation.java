@@ -1,84 +1,104 @@
-package net.engine.transform;
-
-import net.engine.core.Window;
-import net.engine.matrix.Matrix4f;
-import net.engine.util.Camera;
-
-/**
- * A transformation that implements projection transformation
- * @author Davis
- *
- */
-public class ProjectedOrientation extends Orientation
-{
-
-	private float zNear;
-	private float zFar;
-	private float width;
-	private float height;
-	private float fov;
-	
-	/**
-	 * Creates a new projected transformation
-	 * @param fov the fov
-	 * @param zNear the znear
-	 * @param zFar the zfar
-	 */
-	public ProjectedOrientation(float fov, float zNear, float zFar)
-	{
-		super();
-		
-		this.fov = fov;
-		this.width = Window.getWidth();
-		this.height = Window.getHeight();
-		this.zNear = zNear;
-		this.zFar = zFar;
-	}
-	
-	/**
-	 * Creates a new projected transformation
-	 * @param fov the fov
-	 * @param width the width
-	 * @param height the height
-	 * @param zNear the znear
-	 * @param zFar the zfar
-	 */
-	public ProjectedOrientation(float fov, float width, float height, float zNear, float zFar)
-	{
-		super();
-		
-		this.fov = fov;
-		this.width = width;
-		this.height = height;
-		this.zNear = zNear;
-		this.zFar = zFar;
-	}
-	
-	/**
-	 * Gets the translation matrix for projection perspective
-	 * @return the translation matrix for projection perspective
-	 */
-	public Matrix4f getProjectedTransformationMatrix()
-	{
-		Matrix4f transformationMatrix = getTransformationMatrix();
-		Matrix4f projectionMatrix = new Matrix4f(); projectionMatrix.initProjection(fov, width, height, zNear, zFar);
-		
-		return projectionMatrix.mul(transformationMatrix);
-	}
-	
-	/**
-	 * Gets the translation matrix for project perspective from a camera
-	 * @param camera the camera looking from
-	 * @return the translation matrix
-	 */
-	public Matrix4f getCameraProjectedTransformationMatrix(Camera camera)
-	{
-		Matrix4f transformationMatrix = getTransformationMatrix();
-		Matrix4f projectionMatrix = new Matrix4f(); projectionMatrix.initProjection(fov, width, height, zNear, zFar);
-		Matrix4f cameraRotationMatrix = new Matrix4f(); cameraRotationMatrix.initCamera(camera.getForward(), camera.getUp());
-		Matrix4f cameraTranslation = new Matrix4f(); cameraTranslation.initTranslation(-camera.pos.x, -camera.pos.y, -camera.pos.z);
-		
-		return projectionMatrix.mul(cameraRotationMatrix.mul(cameraTranslation.mul(transformationMatrix)));
-	}
-	
-}
+package net.engine.transform;
+
+import net.engine.core.Window;
+import net.engine.matrix.Matrix4f;
+import net.engine.util.Camera;
+
+/**
+ * A transformation that implements projection transformation
+ * @author Davis
+ *
+ */
+public class ProjectedOrientation extends Orientation
+{
+
+	private float zNear;
+	private float zFar;
+	private float width;
+	private float height;
+	private float fov;
+	
+	private Matrix4f scratch = new Matrix4f(); //Reused for the intermediate matrices
+	private Matrix4f result = new Matrix4f(); //Reused for the returned matrix
+	
+	/**
+	 * Creates a new projected transformation
+	 * @param fov the fov
+	 * @param zNear the znear
+	 * @param zFar the zfar
+	 */
+	public ProjectedOrientation(float fov, float zNear, float zFar)
+	{
+		super();
+		
+		this.fov = fov;
+		this.width = Window.getWidth();
+		this.height = Window.getHeight();
+		this.zNear = zNear;
+		this.zFar = zFar;
+	}
+	
+	/**
+	 * Creates a new projected transformation
+	 * @param fov the fov
+	 * @param width the width
+	 * @param height the height
+	 * @param zNear the znear
+	 * @param zFar the zfar
+	 */
+	public ProjectedOrientation(float fov, float width, float height, float zNear, float zFar)
+	{
+		super();
+		
+		this.fov = fov;
+		this.width = width;
+		this.height = height;
+		this.zNear = zNear;
+		this.zFar = zFar;
+	}
+	
+	/**
+	 * Gets how many pixels tall something one unit tall is drawn when it is one unit in front of the camera
+	 * 
+	 * Dividing by the distance gives the size at that distance
+	 * @return the scale
+	 */
+	public float getProjectionScale()
+	{
+		return height / 2 / (float) Math.tan(fov / 2);
+	}
+	
+	/**
+	 * Gets the translation matrix for projection perspective
+	 * 
+	 * The returned matrix is reused by the next call so it should not be held onto
+	 * @return the translation matrix for projection perspective
+	 */
+	public Matrix4f getProjectedTransformationMatrix()
+	{
+		Matrix4f transformationMatrix = getTransformationMatrix();
+		scratch.initProjection(fov, width, height, zNear, zFar);
+		
+		return scratch.mulInto(transformationMatrix, result);
+	}
+	
+	/**
+	 * Gets the translation matrix for project perspective from a camera
+	 * 
+	 * The returned matrix is reused by the next call so it should not be held onto
+	 * @param camera the camera looking from
+	 * @return the translation matrix
+	 */
+	public Matrix4f getCameraProjectedTransformationMatrix(Camera camera)
+	{
+		Matrix4f transformationMatrix = getTransformationMatrix();
+		scratch.initTranslation(-camera.pos.x, -camera.pos.y, -camera.pos.z);
+		scratch.mulInto(transformationMatrix, result);
+		scratch.initCamera(camera.getForward(), camera.getUp());
+		scratch.mulInto(result, result);
+		scratch.initProjection(fov, width, height, zNear, zFar);
+		
+		return scratch.mulInto(result, result);
+	}
+	
+}
@@ -0,0 +1,302 @@
+package net.engine.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * A list of the assets the asset baker has made, with the source each came from
+ * 
+ * Each line is the source path, the baked path, the source's length, the source's
+ * last modified time, and the format it was baked in separated by tabs. Those are followed by
+ * the path, length, and last modified time of every other file the asset was made from, like
+ * the files a shader includes. Paths are relative to the resource folder and use '/'.
+ * A baked asset is only used while its source and those files are unchanged, or if they
+ * aren't there at all.
+ * @author Davis
+ *
+ */
+public class AssetManifest
+{
+	
+	public static final String FILE_NAME = "manifest.txt"; //The manifest's name in the cache folder
+	
+	public static final String HEADER = "#asset manifest 3"; //The first line, changed whenever the format changes
+	
+	/**
+	 * A file a baked asset was made from besides its source
+	 * @author Davis
+	 *
+	 */
+	public static class Dependency
+	{
+		
+		public final String path; //The file's path
+		
+		public final long length, modified; //The file's length and last modified time when the asset was baked
+		
+		/**
+		 * Creates a new dependency
+		 * @param path the file's path
+		 * @param length the file's length
+		 * @param modified the file's last modified time
+		 */
+		public Dependency(String path, long length, long modified)
+		{
+			this.path = path;
+			this.length = length;
+			this.modified = modified;
+		}
+		
+		/**
+		 * Checks if the file is the same as when the asset was baked
+		 * @param resourceFolder the folder the path is relative to
+		 * @return if it is, or if the file is not there
+		 */
+		public boolean matches(File resourceFolder)
+		{
+			File file = new File(resourceFolder, path);
+			return !file.exists() || (file.length() == length && file.lastModified() == modified);
+		}
+		
+	}
+	
+	/**
+	 * A baked asset
+	 * @author Davis
+	 *
+	 */
+	public static class Entry
+	{
+		
+		public final String source; //The source's path
+		
+		public final String baked; //The baked asset's path
+		
+		public final long length, modified; //The source's length and last modified time when it was baked
+		
+		public final int format; //The version and settings of what the asset was baked into, so a change to them rebakes it
+		
+		public final Dependency[] dependencies; //The other files the asset was made from
+		
+		/**
+		 * Creates a new entry of an asset made only from its source
+		 * @param source the source's path
+		 * @param baked the baked asset's path
+		 * @param length the source's length
+		 * @param modified the source's last modified time
+		 * @param format the format it was baked in
+		 */
+		public Entry(String source, String baked, long length, long modified, int format)
+		{
+			this(source, baked, length, modified, format, new Dependency[0]);
+		}
+		
+		/**
+		 * Creates a new entry
+		 * @param source the source's path
+		 * @param baked the baked asset's path
+		 * @param length the source's length
+		 * @param modified the source's last modified time
+		 * @param format the format it was baked in
+		 * @param dependencies the other files the asset was made from
+		 */
+		public Entry(String source, String baked, long length, long modified, int format, Dependency[] dependencies)
+		{
+			this.source = source;
+			this.baked = baked;
+			this.length = length;
+			this.modified = modified;
+			this.format = format;
+			this.dependencies = dependencies;
+		}
+		
+		/**
+		 * Checks if the source and every other file the asset was made from are the same as when it was baked
+		 * @param resourceFolder the folder paths are relative to
+		 * @return if they are, skipping any that are not there
+		 */
+		public boolean matches(File resourceFolder)
+		{
+			File sourceFile = new File(resourceFolder, source);
+			
+			if (sourceFile.exists() && (sourceFile.length() != length || sourceFile.lastModified() != modified))
+			{
+				return false;
+			}
+			
+			for (Dependency dependency : dependencies)
+			{
+				if (!dependency.matches(resourceFolder))
+				{
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+	}
+	
+	private HashMap<String, Entry> entries; //The entries by source path
+	
+	/**
+	 * Creates a new empty manifest
+	 */
+	public AssetManifest()
+	{
+		entries = new HashMap<String, Entry>();
+	}
+	
+	/**
+	 * Loads a manifest
+	 * @param file the manifest file
+	 * @return the manifest, empty if the file isn't there or is from another version
+	 * @throws IOException if the file can't be read
+	 */
+	public static AssetManifest load(File file) throws IOException
+	{
+		AssetManifest manifest = new AssetManifest();
+		
+		if (!file.isFile())
+		{
+			return manifest;
+		}
+		
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try
+		{
+			String line = reader.readLine();
+			
+			if (line == null || !line.equals(HEADER))
+			{
+				return manifest;
+			}
+			
+			while ((line = reader.readLine()) != null)
+			{
+				String[] tokens = line.split("\t");
+				
+				if (tokens.length < 5 || (tokens.length - 5) % 3 != 0)
+				{
+					continue;
+				}
+				
+				Dependency[] dependencies = new Dependency[(tokens.length - 5) / 3];
+				for (int i = 0; i < dependencies.length; i++)
+				{
+					int at = 5 + i * 3;
+					dependencies[i] = new Dependency(tokens[at], Long.parseLong(tokens[at + 1]), Long.parseLong(tokens[at + 2]));
+				}
+				
+				manifest.put(new Entry(tokens[0], tokens[1], Long.parseLong(tokens[2]), Long.parseLong(tokens[3]), Integer.parseInt(tokens[4]), dependencies));
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		
+		return manifest;
+	}
+	
+	/**
+	 * Saves the manifest, sorted by source so it changes as little as possible
+	 * @param file the manifest file
+	 * @throws IOException if the file can't be written
+	 */
+	public void save(File file) throws IOException
+	{
+		ArrayList<String> sources = new ArrayList<String>(entries.keySet());
+		Collections.sort(sources);
+		
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		
+		try
+		{
+			writer.print(HEADER + "\n");
+			
+			for (String source : sources)
+			{
+				Entry e = entries.get(source);
+				writer.print(e.source + "\t" + e.baked + "\t" + e.length + "\t" + e.modified + "\t" + e.format);
+				
+				for (Dependency d : e.dependencies)
+				{
+					writer.print("\t" + d.path + "\t" + d.length + "\t" + d.modified);
+				}
+				
+				writer.print("\n");
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Adds an entry, replacing any with the same source
+	 * @param entry the entry
+	 */
+	public void put(Entry entry)
+	{
+		entries.put(entry.source, entry);
+	}
+	
+	/**
+	 * Gets the entry of a source
+	 * @param source the source's path
+	 * @return the entry, null if the source hasn't been baked
+	 */
+	public Entry get(String source)
+	{
+		return entries.get(source);
+	}
+	
+	/**
+	 * Removes the entry of a source
+	 * @param source the source's path
+	 */
+	public void remove(String source)
+	{
+		entries.remove(source);
+	}
+	
+	/**
+	 * Gets the sources that have been baked
+	 * @return the sources' paths
+	 */
+	public ArrayList<String> getSources()
+	{
+		return new ArrayList<String>(entries.keySet());
+	}
+	
+	/**
+	 * Gets the baked version of a source if it is up to date
+	 * @param resourceFolder the folder paths are relative to
+	 * @param source the source's path
+	 * @return the baked file, null if there isn't one or the source or a file it was made from has changed
+	 */
+	public File getBaked(File resourceFolder, String source)
+	{
+		Entry entry = entries.get(source);
+		
+		if (entry == null || !entry.matches(resourceFolder))
+		{
+			return null;
+		}
+		
+		File baked = new File(resourceFolder, entry.baked);
+		
+		return baked.isFile() ? baked : null;
+	}
+	
+}
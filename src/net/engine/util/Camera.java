@@ -1,228 +1,316 @@
-package net.engine.util;
-
-import net.engine.core.Time;
-import net.engine.math.Vector3f;
-
-/**
- * The location the world is looked at from
- * @author Davis
- *
- */
-public class Camera
-{
-	
-	public static final float DEFAULT_MOVE_SPEED = 10f;
-	public static final float DEFAULT_TURN_SPEED = 100f;
-	
-	public static final Vector3f Y_AXIS = new Vector3f(0, 1, 0);
-
-	public Vector3f pos;
-	public Vector3f forward;
-	public Vector3f up;
-	
-	private Vector3f posInit;
-	private Vector3f forwardInit;
-	private Vector3f upInit;
-	
-	public float moveSpeed;
-	public float turnSpeed;
-	
-	/**
-	 * Creates a camera with standard up, forward, and move speeds
-	 */
-	public Camera()
-	{
-		this(new Vector3f(0, 0, 0), new Vector3f(0, 0, 1), new Vector3f(0, 1, 0), DEFAULT_MOVE_SPEED, DEFAULT_TURN_SPEED);
-	}
-	
-	/**
-	 * Creates a camera with standard up, forward, and specified move speeds
-	 * @param moveSpeed
-	 * @param turnSpeed
-	 */
-	public Camera(float moveSpeed, float turnSpeed)
-	{
-		this(new Vector3f(0, 0, 0), new Vector3f(0, 0, 1), new Vector3f(0, 1, 0), moveSpeed, turnSpeed);
-	}
-	
-	/**
-	 * Creates a camera
-	 * @param pos the location of the camera
-	 * @param forward the forward
-	 * @param up the up
-	 * @param moveSpeed the speed at which the camera moves
-	 */
-	public Camera(Vector3f pos, Vector3f forward, Vector3f up, float moveSpeed, float turnSpeed)
-	{
-		this.pos = pos;
-		this.forward = forward;
-		this.up = up;
-		this.moveSpeed = moveSpeed;
-		this.turnSpeed = turnSpeed;
-		
-		up = up.normal();
-		forward = forward.normal();
-		
-		this.posInit = pos;
-		this.forwardInit = forward;
-		this.upInit = up;
-	}
-	
-	/**
-	 * Moves the camera in a direction an amount
-	 * @param direction the direction
-	 * @param amount the amount
-	 */
-	public void move(Vector3f direction, float amount)
-	{
-		pos = pos.add(direction.normal().mul(amount));
-	}
-	
-	/**
-	 * Moves forward
-	 */
-	public void moveForward()
-	{
-		move(forward, (float) (moveSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Moves backward
-	 */
-	public void moveBackward()
-	{
-		move(forward.mul(-1), (float) (moveSpeed * Time.getDelta()));
-	}
-	/**
-	 * Moves left
-	 */
-	public void moveLeft()
-	{
-		move(getLeft(), (float) (moveSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Moves right
-	 */
-	public void moveRight()
-	{
-		move(getRight(), (float) (moveSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Turns up
-	 */
-	public void turnUp()
-	{
-		rotateX((float) Math.toRadians(-turnSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Turns down
-	 */
-	public void turnDown()
-	{
-		rotateX((float) Math.toRadians(turnSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Turns left
-	 */
-	public void turnLeft()
-	{
-		rotateY((float) Math.toRadians(-turnSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Turns right
-	 */
-	public void turnRight()
-	{
-		rotateY((float) Math.toRadians(turnSpeed * Time.getDelta()));
-	}
-	
-	/**
-	 * Resets the camera's location to where it was created
-	 */
-	public void reset()
-	{
-		pos = posInit;
-		forward = forwardInit;
-		up = upInit;
-	}
-	
-	/**
-	 * Rotates along the yx plane;
-	 * @param angle the angle to rotate
-	 */
-	public void rotateY(float angle)
-	{
-		Vector3f Haxis = Y_AXIS.cross(forward).normal();
-		
-		forward = forward.rotate(angle, Y_AXIS).normal();
-		
-		up = forward.cross(Haxis).normal();
-	}
-	/**
-	 * Rotates along the xz plane
-	 * @param angle the angle to rotate
-	 */
-	public void rotateX(float angle)
-	{
-		Vector3f Haxis = Y_AXIS.cross(forward).normal();
-		
-		forward = forward.rotate(angle, Haxis).normal();
-		
-		up = forward.cross(Haxis).normal();
-	}
-	
-	/**
-	 * Gets which way is left
-	 * @return left
-	 */
-	public Vector3f getLeft()
-	{
-		Vector3f left = forward.cross(up);
-		left = left.normal();
-		return left;
-	}
-	
-	/**
-	 * Gets which way is right
-	 * @return right
-	 */
-	public Vector3f getRight()
-	{
-		Vector3f right = up.cross(forward);
-		right = right.normal();
-		return right;
-	}
-	
-	/**
-	 * Gets which way is up
-	 * @return up
-	 */
-	public Vector3f getUp()
-	{
-		return up;
-	}
-	
-	/**
-	 * Gets which was is forward
-	 * @return forward
-	 */
-	public Vector3f getForward()
-	{
-		return forward;
-	}
-	
-	/**
-	 * Gets which was is backwards
-	 * @return backwards
-	 */
-	public Vector3f getBackward()
-	{
-		return new Vector3f(-forward.x, -forward.y, -forward.z);
-	}
-	
-}
+package net.engine.util;
+
+import net.engine.core.Time;
+import net.engine.math.Quaternion;
+import net.engine.math.Vector3f;
+
+/**
+ * The location the world is looked at from
+ * 
+ * The camera changes pos, forward, and up in place as it moves and turns
+ * @author Davis
+ *
+ */
+public class Camera
+{
+	
+	public static final float DEFAULT_MOVE_SPEED = 10f;
+	public static final float DEFAULT_TURN_SPEED = 100f;
+	
+	public static final Vector3f Y_AXIS = new Vector3f(0, 1, 0);
+	public static final Vector3f Z_AXIS = new Vector3f(0, 0, 1);
+
+	public Vector3f pos;
+	public Vector3f forward;
+	public Vector3f up;
+	
+	private Vector3f posInit;
+	private Vector3f forwardInit;
+	private Vector3f upInit;
+	
+	public float moveSpeed;
+	public float turnSpeed;
+	
+	private Quaternion rotation; //Reused for every turn
+	private Vector3f moveDirection; //Reused for every move
+	private Vector3f horizontal; //Reused for the axis turned around
+	
+	/**
+	 * Creates a camera with standard up, forward, and move speeds
+	 */
+	public Camera()
+	{
+		this(new Vector3f(0, 0, 0), new Vector3f(0, 0, 1), new Vector3f(0, 1, 0), DEFAULT_MOVE_SPEED, DEFAULT_TURN_SPEED);
+	}
+	
+	/**
+	 * Creates a camera with standard up, forward, and specified move speeds
+	 * @param moveSpeed
+	 * @param turnSpeed
+	 */
+	public Camera(float moveSpeed, float turnSpeed)
+	{
+		this(new Vector3f(0, 0, 0), new Vector3f(0, 0, 1), new Vector3f(0, 1, 0), moveSpeed, turnSpeed);
+	}
+	
+	/**
+	 * Creates a camera
+	 * @param pos the location of the camera
+	 * @param forward the forward
+	 * @param up the up
+	 * @param moveSpeed the speed at which the camera moves
+	 */
+	public Camera(Vector3f pos, Vector3f forward, Vector3f up, float moveSpeed, float turnSpeed)
+	{
+		this.pos = pos.clone(); //Copied as the camera changes its vectors in place
+		this.forward = forward.clone();
+		this.up = up.clone();
+		this.moveSpeed = moveSpeed;
+		this.turnSpeed = turnSpeed;
+		
+		this.rotation = new Quaternion();
+		this.moveDirection = new Vector3f(0, 0, 0);
+		this.horizontal = new Vector3f(0, 0, 0);
+		
+		this.posInit = pos.clone();
+		this.forwardInit = forward.normal();
+		this.upInit = up.normal();
+	}
+	
+	/**
+	 * Moves the camera in a direction an amount
+	 * @param direction the direction
+	 * @param amount the amount
+	 */
+	public void move(Vector3f direction, float amount)
+	{
+		pos.addLocal(direction.normal(moveDirection).mulLocal(amount));
+	}
+	
+	/**
+	 * Moves forward
+	 */
+	public void moveForward()
+	{
+		move(forward, (float) (moveSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Moves backward
+	 */
+	public void moveBackward()
+	{
+		move(forward, (float) (-moveSpeed * Time.getDelta()));
+	}
+	/**
+	 * Moves left
+	 */
+	public void moveLeft()
+	{
+		move(getLeft(moveDirection), (float) (moveSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Moves right
+	 */
+	public void moveRight()
+	{
+		move(getRight(moveDirection), (float) (moveSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Turns up
+	 */
+	public void turnUp()
+	{
+		rotateX((float) Math.toRadians(-turnSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Turns down
+	 */
+	public void turnDown()
+	{
+		rotateX((float) Math.toRadians(turnSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Turns left
+	 */
+	public void turnLeft()
+	{
+		rotateY((float) Math.toRadians(-turnSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Turns right
+	 */
+	public void turnRight()
+	{
+		rotateY((float) Math.toRadians(turnSpeed * Time.getDelta()));
+	}
+	
+	/**
+	 * Resets the camera's location to where it was created
+	 */
+	public void reset()
+	{
+		pos.set(posInit);
+		forward.set(forwardInit);
+		up.set(upInit);
+	}
+	
+	/**
+	 * Rotates along the yx plane;
+	 * @param angle the angle to rotate
+	 */
+	public void rotateY(float angle)
+	{
+		Vector3f Haxis = Y_AXIS.crossInto(forward, horizontal).normalizeLocal();
+		
+		rotation.initAxisAngle(Y_AXIS, angle).rotate(forward, forward).normalizeLocal();
+		
+		forward.crossInto(Haxis, up).normalizeLocal();
+	}
+	/**
+	 * Rotates along the xz plane
+	 * @param angle the angle to rotate
+	 */
+	public void rotateX(float angle)
+	{
+		Vector3f Haxis = Y_AXIS.crossInto(forward, horizontal).normalizeLocal();
+		
+		rotation.initAxisAngle(Haxis, angle).rotate(forward, forward).normalizeLocal();
+		
+		forward.crossInto(Haxis, up).normalizeLocal();
+	}
+	
+	/**
+	 * Rotates the camera by a quaternion
+	 * @param rotation the rotation, must be normalized
+	 */
+	public void rotate(Quaternion rotation)
+	{
+		rotation.rotate(forward, forward).normalizeLocal();
+		rotation.rotate(up, up).normalizeLocal();
+	}
+	
+	/**
+	 * Points the camera so that it is rotated by a quaternion from looking down the z axis with y up,
+	 * this can be used with Quaternion.slerp() to smoothly turn the camera
+	 * @param rotation the rotation, must be normalized
+	 */
+	public void setRotation(Quaternion rotation)
+	{
+		rotation.rotate(Z_AXIS, forward);
+		rotation.rotate(Y_AXIS, up);
+	}
+	
+	/**
+	 * Gets the rotation from looking down the z axis with y up to the camera's current direction
+	 * @param dest the quaternion to store the rotation in
+	 * @return dest
+	 */
+	public Quaternion getRotation(Quaternion dest)
+	{
+		//Build the rotation matrix from the camera's basis and convert it to a quaternion
+		Vector3f f = forward;
+		Vector3f u = up;
+		Vector3f r = u.crossInto(f, horizontal);
+		
+		float m00 = r.x, m01 = u.x, m02 = f.x;
+		float m10 = r.y, m11 = u.y, m12 = f.y;
+		float m20 = r.z, m21 = u.z, m22 = f.z;
+		
+		float trace = m00 + m11 + m22;
+		
+		if (trace > 0)
+		{
+			float s = 0.5f / (float) Math.sqrt(trace + 1);
+			dest.set((m21 - m12) * s, (m02 - m20) * s, (m10 - m01) * s, 0.25f / s);
+		}
+		else if (m00 > m11 && m00 > m22)
+		{
+			float s = 2 * (float) Math.sqrt(1 + m00 - m11 - m22);
+			dest.set(0.25f * s, (m01 + m10) / s, (m02 + m20) / s, (m21 - m12) / s);
+		}
+		else if (m11 > m22)
+		{
+			float s = 2 * (float) Math.sqrt(1 + m11 - m00 - m22);
+			dest.set((m01 + m10) / s, 0.25f * s, (m12 + m21) / s, (m02 - m20) / s);
+		}
+		else
+		{
+			float s = 2 * (float) Math.sqrt(1 + m22 - m00 - m11);
+			dest.set((m02 + m20) / s, (m12 + m21) / s, 0.25f * s, (m10 - m01) / s);
+		}
+		
+		return dest.normalizeLocal();
+	}
+	
+	/**
+	 * Gets which way is left
+	 * @return left
+	 */
+	public Vector3f getLeft()
+	{
+		return getLeft(new Vector3f(0, 0, 0));
+	}
+	
+	/**
+	 * Gets which way is left and stores it in dest
+	 * @param dest the vector to store left in
+	 * @return dest
+	 */
+	public Vector3f getLeft(Vector3f dest)
+	{
+		return forward.crossInto(up, dest).normalizeLocal();
+	}
+	
+	/**
+	 * Gets which way is right
+	 * @return right
+	 */
+	public Vector3f getRight()
+	{
+		return getRight(new Vector3f(0, 0, 0));
+	}
+	
+	/**
+	 * Gets which way is right and stores it in dest
+	 * @param dest the vector to store right in
+	 * @return dest
+	 */
+	public Vector3f getRight(Vector3f dest)
+	{
+		return up.crossInto(forward, dest).normalizeLocal();
+	}
+	
+	/**
+	 * Gets which way is up
+	 * @return up
+	 */
+	public Vector3f getUp()
+	{
+		return up;
+	}
+	
+	/**
+	 * Gets which was is forward
+	 * @return forward
+	 */
+	public Vector3f getForward()
+	{
+		return forward;
+	}
+	
+	/**
+	 * Gets which was is backwards
+	 * @return backwards
+	 */
+	public Vector3f getBackward()
+	{
+		return new Vector3f(-forward.x, -forward.y, -forward.z);
+	}
+	
+}
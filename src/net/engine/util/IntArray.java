@@ -0,0 +1,128 @@
+package net.engine.util;
+
+import java.util.Arrays;
+
+/**
+ * A list of ints that grows as they are added without boxing them
+ * @author Davis
+ */
+public class IntArray
+{
+	
+	public static final int DEFAULT_CAPACITY = 16; //The capacity of a new array if none is given
+	
+	private int[] data; //The values
+	
+	private int size; //How many values there are
+	
+	/**
+	 * Creates a new empty array
+	 */
+	public IntArray()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Creates a new empty array that can hold some values before growing
+	 * @param capacity how many values it can hold
+	 */
+	public IntArray(int capacity)
+	{
+		data = new int[Math.max(capacity, 1)];
+		size = 0;
+	}
+	
+	/**
+	 * Adds a value
+	 * @param value the value
+	 */
+	public void add(int value)
+	{
+		if (size == data.length)
+		{
+			data = Arrays.copyOf(data, data.length * 2);
+		}
+		
+		data[size++] = value;
+	}
+	
+	/**
+	 * Adds every value of another array
+	 * @param other the other array
+	 */
+	public void addAll(IntArray other)
+	{
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.data, 0, data, size, other.size);
+		size += other.size;
+	}
+	
+	/**
+	 * Makes sure the array can hold some values without growing
+	 * @param capacity how many values
+	 */
+	public void ensureCapacity(int capacity)
+	{
+		if (capacity > data.length)
+		{
+			data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+		}
+	}
+	
+	/**
+	 * Gets a value
+	 * @param index the index of the value
+	 * @return the value
+	 */
+	public int get(int index)
+	{
+		return data[index];
+	}
+	
+	/**
+	 * Sets a value
+	 * @param index the index of the value
+	 * @param value the value
+	 */
+	public void set(int index, int value)
+	{
+		data[index] = value;
+	}
+	
+	/**
+	 * Gets how many values there are
+	 * @return the size
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * Removes every value, keeping the memory
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+	
+	/**
+	 * Gets the array the values are stored in, which may be longer than size()
+	 * @return the array
+	 */
+	public int[] getData()
+	{
+		return data;
+	}
+	
+	/**
+	 * Copies the values into a new array of exactly their size
+	 * @return the new array
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(data, size);
+	}
+	
+}
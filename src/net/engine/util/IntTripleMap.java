@@ -0,0 +1,135 @@
+package net.engine.util;
+
+/**
+ * Gives each different triple of ints a number, counting up from 0 in the order they are first added
+ * @author Davis
+ */
+public class IntTripleMap
+{
+	
+	public static final int TRIPLE_SIZE = 3; //How many ints make a triple
+	
+	private IntArray keys; //The triples added, in the order of their numbers
+	
+	private int[] table; //Open addressing hash table of the triples, each slot is a number plus one or 0 if empty
+	
+	private int mask; //The table's size minus one
+	
+	/**
+	 * Creates a new empty map
+	 * @param expected about how many different triples will be added
+	 */
+	public IntTripleMap(int expected)
+	{
+		keys = new IntArray(Math.max(expected, 1) * TRIPLE_SIZE);
+		table = new int[tableSize(expected)];
+		mask = table.length - 1;
+	}
+	
+	/**
+	 * Gets the number of a triple, giving it the next number if it hasn't been added before
+	 * @param a the first int
+	 * @param b the second int
+	 * @param c the third int
+	 * @return the number of the triple
+	 */
+	public int add(int a, int b, int c)
+	{
+		int slot = hash(a, b, c) & mask;
+		
+		while (true)
+		{
+			int number = table[slot] - 1;
+			
+			if (number < 0) //Not added yet
+			{
+				number = size();
+				keys.add(a);
+				keys.add(b);
+				keys.add(c);
+				table[slot] = number + 1;
+				
+				if (size() * 2 > table.length) //Keep at least twice as many slots as triples so probes stay short
+				{
+					grow();
+				}
+				
+				return number;
+			}
+			
+			int k = number * TRIPLE_SIZE;
+			if (keys.get(k) == a && keys.get(k + 1) == b && keys.get(k + 2) == c)
+			{
+				return number;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+	}
+	
+	/**
+	 * Gets one of the ints of a triple
+	 * @param number the number of the triple
+	 * @param part which int, 0 to 2
+	 * @return the int
+	 */
+	public int get(int number, int part)
+	{
+		return keys.get(number * TRIPLE_SIZE + part);
+	}
+	
+	/**
+	 * Gets how many different triples there are
+	 * @return the size
+	 */
+	public int size()
+	{
+		return keys.size() / TRIPLE_SIZE;
+	}
+	
+	/**
+	 * Doubles the table and puts every triple back in
+	 */
+	private void grow()
+	{
+		table = new int[table.length * 2];
+		mask = table.length - 1;
+		
+		for (int number = 0, count = size(); number < count; number++)
+		{
+			int k = number * TRIPLE_SIZE;
+			int slot = hash(keys.get(k), keys.get(k + 1), keys.get(k + 2)) & mask;
+			
+			while (table[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			
+			table[slot] = number + 1;
+		}
+	}
+	
+	/**
+	 * Gets the table size for a number of triples, a power of two with at least twice as many slots
+	 * @param expected the number of triples
+	 * @return the size
+	 */
+	private static int tableSize(int expected)
+	{
+		return Integer.highestOneBit(Math.max(expected, 2) * 2) << 1;
+	}
+	
+	/**
+	 * Mixes three ints into one
+	 * @param a the first int
+	 * @param b the second int
+	 * @param c the third int
+	 * @return the hash
+	 */
+	private static int hash(int a, int b, int c)
+	{
+		int h = a * 73856093 ^ b * 19349663 ^ c * 83492791;
+		return h ^ (h >>> 16); //Bring the high bits down since the table only uses the low ones
+	}
+	
+}